@@ -0,0 +1,208 @@
+package com.binance.pricemonitor;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioTrack;
+
+/**
+ * Preloaded alert sounds: each sound id is synthesized to 16-bit PCM once and kept in its own
+ * static-mode AudioTrack, so playing is a rewind + play with no decode or tone setup on the
+ * alert path. Separate tracks per sound let the platform mixer play overlapping alerts together.
+ *
+ * Trigger-to-audio latency is measured with a playback marker on the first frame and reported
+ * per play (split into queueing before play() and output start after it).
+ */
+final class AlertAudioEngine {
+    static final int SOUND_COUNT = 11; // ids 0..10, 0 = default beep
+
+    private static final String TAG = "[perf] AlertAudioEngine";
+    private static final int SAMPLE_RATE = 22050;
+    private static final double AMPLITUDE = 0.6;
+    private static final int FADE_SAMPLES = SAMPLE_RATE / 200; // 5ms edges avoid clicks
+
+    // {startHz, endHz, ms} segments repeated to fill the sound's duration; 0 Hz = silence.
+    private static final int[][][] PATTERNS = {
+            {{880, 880, 200}, {0, 0, 100}},                                          // default
+            {{1047, 1047, 120}, {1319, 1319, 120}, {1568, 1568, 200}, {0, 0, 300}},  // 1 success
+            {{600, 1200, 500}, {1200, 600, 500}},                                    // 2 danger
+            {{988, 988, 80}, {1319, 1319, 400}, {0, 0, 520}},                         // 3 coin
+            {{2000, 400, 250}, {0, 0, 250}},                                         // 4 laser
+            {{400, 1600, 1000}, {0, 0, 500}},                                        // 5 rise
+            {{1200, 300, 60}, {0, 0, 440}},                                          // 6 pop
+            {{1500, 1500, 50}, {0, 0, 50}, {1500, 1500, 50}, {0, 0, 350}},           // 7 tech
+            {{660, 660, 200}, {440, 440, 300}, {0, 0, 500}},                          // 8 low battery
+            {{880, 880, 100}, {0, 0, 50}, {1760, 1760, 150}, {0, 0, 700}},            // 9 confirm
+            {{1000, 1000, 250}, {0, 0, 250}},                                        // 10 attention
+    };
+
+    interface DurationTable {
+        int durationMs(int soundId);
+    }
+
+    private final Context appContext;
+    private final DurationTable durations;
+    private final AudioTrack[] tracks = new AudioTrack[SOUND_COUNT];
+    private final int[] clipMs = new int[SOUND_COUNT];
+    private final long[] triggeredAtNs = new long[SOUND_COUNT];
+    private final long[] playCalledAtNs = new long[SOUND_COUNT];
+    private android.os.HandlerThread callbackThread;
+    private volatile boolean ready = false;
+
+    private long measuredCount;
+    private long measuredTotalNs;
+    private long measuredMaxNs;
+
+    AlertAudioEngine(Context context, DurationTable durations) {
+        this.appContext = context.getApplicationContext();
+        this.durations = durations;
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    /** Synthesizes and loads every sound; call off the main thread. */
+    synchronized void preload() {
+        if (ready) return;
+        long t0 = System.nanoTime();
+        callbackThread = new android.os.HandlerThread("AlertAudio");
+        callbackThread.start();
+        android.os.Handler callbacks = new android.os.Handler(callbackThread.getLooper());
+        try {
+            for (int id = 0; id < SOUND_COUNT; id++) {
+                int ms = durations.durationMs(id);
+                short[] pcm = synthesize(id, ms);
+                AudioTrack track = buildTrack(pcm.length * 2);
+                track.write(pcm, 0, pcm.length);
+                final int soundId = id;
+                track.setPlaybackPositionUpdateListener(new AudioTrack.OnPlaybackPositionUpdateListener() {
+                    @Override
+                    public void onMarkerReached(AudioTrack t) {
+                        recordLatency(soundId, System.nanoTime());
+                    }
+
+                    @Override
+                    public void onPeriodicNotification(AudioTrack t) {}
+                }, callbacks);
+                tracks[id] = track;
+                clipMs[id] = ms;
+            }
+            ready = true;
+        } catch (Exception e) {
+            android.util.Log.w(TAG, "preload failed, falling back to ToneGenerator", e);
+            releaseTracks();
+        }
+        android.util.Log.d(TAG, "preload " + (ready ? "ok" : "failed") + " in "
+                + (System.nanoTime() - t0) / 1_000_000L + "ms");
+    }
+
+    /**
+     * Restarts the clip for soundId from the top; returns its length in ms, or -1 if not loaded.
+     * triggeredAtNs (System.nanoTime of the alert trigger, 0 = don't measure) feeds the latency report.
+     */
+    int play(int soundId, long triggeredAt) {
+        if (!ready) return -1;
+        int id = soundId >= 0 && soundId < SOUND_COUNT ? soundId : 0;
+        AudioTrack track = tracks[id];
+        synchronized (track) {
+            try {
+                if (track.getPlayState() != AudioTrack.PLAYSTATE_STOPPED) track.stop();
+                track.reloadStaticData();
+                triggeredAtNs[id] = triggeredAt;
+                if (triggeredAt > 0) track.setNotificationMarkerPosition(1);
+                playCalledAtNs[id] = System.nanoTime();
+                track.play();
+            } catch (Exception e) {
+                e.printStackTrace();
+                return -1;
+            }
+        }
+        return clipMs[id];
+    }
+
+    synchronized String describe() {
+        if (measuredCount == 0) return "audio trigger->first frame: no samples";
+        return String.format(java.util.Locale.US, "audio trigger->first frame: n=%d avg=%.1fms max=%.1fms",
+                measuredCount, measuredTotalNs / 1e6 / measuredCount, measuredMaxNs / 1e6);
+    }
+
+    synchronized void release() {
+        ready = false;
+        releaseTracks();
+        if (callbackThread != null) {
+            callbackThread.quitSafely();
+            callbackThread = null;
+        }
+    }
+
+    private void recordLatency(int id, long reachedAtNs) {
+        long triggered = triggeredAtNs[id];
+        if (triggered <= 0) return;
+        triggeredAtNs[id] = 0L;
+        long total = reachedAtNs - triggered;
+        long queued = playCalledAtNs[id] - triggered;
+        synchronized (this) {
+            measuredCount++;
+            measuredTotalNs += total;
+            if (total > measuredMaxNs) measuredMaxNs = total;
+        }
+        String line = String.format(java.util.Locale.US, "[audio] sound=%d trigger->audio=%.1fms (queue=%.1fms output=%.1fms)",
+                id, total / 1e6, queued / 1e6, (total - queued) / 1e6);
+        android.util.Log.d(TAG, line);
+        DiagnosticsLog.append(appContext, "[native] " + line);
+    }
+
+    private AudioTrack buildTrack(int bytes) {
+        AudioTrack.Builder builder = new AudioTrack.Builder()
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_ALARM)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                        .build())
+                .setAudioFormat(new AudioFormat.Builder()
+                        .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                        .setSampleRate(SAMPLE_RATE)
+                        .setChannelMask(AudioFormat.CHANNEL_OUT_MONO)
+                        .build())
+                .setTransferMode(AudioTrack.MODE_STATIC)
+                .setBufferSizeInBytes(bytes);
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
+            builder.setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY);
+        }
+        return builder.build();
+    }
+
+    private void releaseTracks() {
+        for (int i = 0; i < tracks.length; i++) {
+            if (tracks[i] == null) continue;
+            try { tracks[i].release(); } catch (Exception ignored) {}
+            tracks[i] = null;
+        }
+    }
+
+    static short[] synthesize(int soundId, int durationMs) {
+        int[][] pattern = PATTERNS[soundId >= 0 && soundId < PATTERNS.length ? soundId : 0];
+        int total = (int) ((long) SAMPLE_RATE * durationMs / 1000L);
+        short[] out = new short[total];
+        double phase = 0;
+        int pos = 0;
+        while (pos < total) {
+            for (int[] seg : pattern) {
+                int n = Math.min(total - pos, SAMPLE_RATE * seg[2] / 1000);
+                if (n <= 0) break;
+                for (int i = 0; i < n; i++) {
+                    if (seg[0] == 0) {
+                        out[pos + i] = 0;
+                        continue;
+                    }
+                    double hz = seg[0] + (seg[1] - seg[0]) * (double) i / n;
+                    phase += 2 * Math.PI * hz / SAMPLE_RATE;
+                    double env = Math.min(1.0, Math.min(i, n - 1 - i) / (double) FADE_SAMPLES);
+                    out[pos + i] = (short) (Math.sin(phase) * env * AMPLITUDE * Short.MAX_VALUE);
+                }
+                pos += n;
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,237 @@
+package com.binance.pricemonitor;
+
+/**
+ * Single thread that performs alert actions (notification, sound, vibration). Triggers are
+ * posted as compact events into per-priority lanes of preallocated primitive rings; the
+ * dispatcher always serves the most urgent non-empty lane first.
+ *
+ * Posting never blocks: the symbol loops must not wait on system services. The critical lane
+ * grows instead of losing anything. If the normal lane is full its oldest pending event makes
+ * room for the newest; the sink is told how many were folded away ({@link Sink#onOverflow}) so
+ * they still show up in the coalesced summary.
+ *
+ * Between events the sink gets {@link Sink#onIdle} to run deferred work (e.g. coalesced
+ * notifications); the thread sleeps until the next event or the delay it asks for.
+ */
+final class AlertDispatcher {
+
+    interface Sink {
+        void dispatch(FloatingWindowService.AlertConfig alert, double currentPrice, double targetValue,
+                      long triggeredAtNs, long triggeredAtMs, long journalSeq);
+
+        /** Returns ms until it wants to be called again, -1 for no deadline. */
+        long onIdle();
+
+        /** count triggers were evicted from a full normal lane; their journal entries remain. */
+        void onOverflow(int count);
+    }
+
+    static final int LANE_CRITICAL = 0;
+    static final int LANE_NORMAL = 1;
+    private static final String[] LANE_NAMES = {"dispatch-critical", "dispatch-normal"};
+
+    private final Sink sink;
+    private final Lane[] lanes;
+    // Guarded by this.
+    private boolean consumerWaiting = false;
+    private volatile boolean running = false;
+    private Thread thread;
+
+    AlertDispatcher(int laneCapacity, Sink sink) {
+        this.sink = sink;
+        this.lanes = new Lane[LANE_NAMES.length];
+        for (int i = 0; i < lanes.length; i++) lanes[i] = new Lane(LANE_NAMES[i], laneCapacity, i == LANE_CRITICAL);
+    }
+
+    synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::drainLoop, "AlertDispatch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void stop() {
+        running = false;
+        thread = null;
+        notifyAll();
+    }
+
+    /** Returns false only when the dispatcher is stopped. */
+    synchronized boolean post(int lane, FloatingWindowService.AlertConfig alert, double currentPrice,
+                              double targetValue, long triggeredAtNs, long triggeredAtMs, long journalSeq) {
+        if (!running) return false;
+        Lane l = lanes[Math.max(0, Math.min(lanes.length - 1, lane))];
+        l.put(alert, currentPrice, targetValue, triggeredAtNs, triggeredAtMs, journalSeq);
+        if (consumerWaiting) {
+            consumerWaiting = false;
+            notifyAll();
+        }
+        return true;
+    }
+
+    synchronized String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Lane l : lanes) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(l.stats.format((int) (l.tail - l.head))).append(" cap=").append(l.capacity);
+        }
+        return sb.toString();
+    }
+
+    private void drainLoop() {
+        while (running) {
+            FloatingWindowService.AlertConfig alert;
+            double price;
+            double target;
+            long triggeredAtNs;
+            long triggeredAtMs;
+            long journalSeq;
+            long enqueuedAtNs;
+            Lane lane = null;
+            int overflowed = 0;
+            synchronized (this) {
+                for (Lane l : lanes) {
+                    overflowed += l.overflowed;
+                    l.overflowed = 0;
+                }
+            }
+            if (overflowed > 0) {
+                try {
+                    sink.onOverflow(overflowed);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            long idleMs;
+            try {
+                idleMs = sink.onIdle();
+            } catch (Exception e) {
+                e.printStackTrace();
+                idleMs = -1L;
+            }
+            synchronized (this) {
+                for (Lane l : lanes) {
+                    if (l.head < l.tail) {
+                        lane = l;
+                        break;
+                    }
+                }
+                if (lane == null) {
+                    if (idleMs == 0L || !running) continue;
+                    consumerWaiting = true;
+                    try {
+                        wait(idleMs > 0 ? idleMs : 0L);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    continue;
+                }
+                int slot = (int) (lane.head % lane.capacity);
+                alert = lane.alert[slot];
+                price = lane.price[slot];
+                target = lane.target[slot];
+                triggeredAtNs = lane.triggeredAtNs[slot];
+                triggeredAtMs = lane.triggeredAtMs[slot];
+                journalSeq = lane.journalSeq[slot];
+                enqueuedAtNs = lane.enqueuedAtNs[slot];
+                lane.alert[slot] = null;
+                lane.head++;
+            }
+            long t0 = System.nanoTime();
+            try {
+                sink.dispatch(alert, price, target, triggeredAtNs, triggeredAtMs, journalSeq);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            long t1 = System.nanoTime();
+            lane.stats.recordProcessed(t0 - enqueuedAtNs, t1 - t0);
+        }
+    }
+
+    // Guarded by the dispatcher's lock.
+    private static final class Lane {
+        final boolean lossless;
+        int capacity;
+        FloatingWindowService.AlertConfig[] alert;
+        double[] price;
+        double[] target;
+        long[] triggeredAtNs;
+        long[] triggeredAtMs;
+        long[] journalSeq;
+        long[] enqueuedAtNs;
+        final StageStats stats;
+        long head = 0L;
+        long tail = 0L;
+        // Evicted since the dispatcher last reported them.
+        int overflowed = 0;
+
+        Lane(String name, int capacity, boolean lossless) {
+            this.lossless = lossless;
+            this.capacity = capacity;
+            this.alert = new FloatingWindowService.AlertConfig[capacity];
+            this.price = new double[capacity];
+            this.target = new double[capacity];
+            this.triggeredAtNs = new long[capacity];
+            this.triggeredAtMs = new long[capacity];
+            this.journalSeq = new long[capacity];
+            this.enqueuedAtNs = new long[capacity];
+            this.stats = new StageStats(name);
+        }
+
+        void put(FloatingWindowService.AlertConfig a, double p, double t, long trigNs, long trigMs, long jSeq) {
+            if (tail - head >= capacity) {
+                if (lossless) {
+                    grow();
+                } else {
+                    alert[(int) (head % capacity)] = null;
+                    head++;
+                    overflowed++;
+                    stats.dropped++;
+                }
+            }
+            int slot = (int) (tail % capacity);
+            alert[slot] = a;
+            price[slot] = p;
+            target[slot] = t;
+            triggeredAtNs[slot] = trigNs;
+            triggeredAtMs[slot] = trigMs;
+            journalSeq[slot] = jSeq;
+            enqueuedAtNs[slot] = System.nanoTime();
+            tail++;
+            stats.recordEnqueue((int) (tail - head));
+        }
+
+        // Doubles the ring, keeping pending events in order; slots are renumbered from head.
+        private void grow() {
+            int n = (int) (tail - head);
+            int cap = capacity * 2;
+            FloatingWindowService.AlertConfig[] a2 = new FloatingWindowService.AlertConfig[cap];
+            double[] p2 = new double[cap];
+            double[] t2 = new double[cap];
+            long[] ns2 = new long[cap];
+            long[] ms2 = new long[cap];
+            long[] j2 = new long[cap];
+            long[] e2 = new long[cap];
+            for (int i = 0; i < n; i++) {
+                int from = (int) ((head + i) % capacity);
+                int to = (int) ((head + i) % cap);
+                a2[to] = alert[from];
+                p2[to] = price[from];
+                t2[to] = target[from];
+                ns2[to] = triggeredAtNs[from];
+                ms2[to] = triggeredAtMs[from];
+                j2[to] = journalSeq[from];
+                e2[to] = enqueuedAtNs[from];
+            }
+            capacity = cap;
+            alert = a2;
+            price = p2;
+            target = t2;
+            triggeredAtNs = ns2;
+            triggeredAtMs = ms2;
+            journalSeq = j2;
+            enqueuedAtNs = e2;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.binance.pricemonitor;
+
+/**
+ * Single thread that owns alert audio. One-shot and looping sounds are jobs in a priority queue
+ * ordered by their next play time; however many alerts fire, there is one thread and one player.
+ *
+ * Overlaps are arbitrated by priority: a due job with higher priority than the tone still
+ * playing cuts it off; otherwise it waits until that tone ends, so equal-priority bursts play
+ * one after another instead of restarting each other. A player that mixes (separate voices per
+ * sound) skips that arbitration and overlapping alerts sound together. Cancelling a loop just
+ * flags its job.
+ */
+final class AlertSoundScheduler {
+
+    interface Player {
+        /**
+         * Starts the sound; returns how long it plays (ms). triggeredAtNs is the System.nanoTime of
+         * the alert trigger for the first play of a job, 0 for loop repeats.
+         */
+        int play(int soundId, long triggeredAtNs);
+
+        /** True when overlapping plays are mixed rather than replacing each other. */
+        boolean canMix();
+    }
+
+    static final int PRIORITY_ONCE = 0;
+    static final int PRIORITY_LOOP = 1;
+    static final int PRIORITY_PREVIEW = 2;
+
+    private static final class Job {
+        final String key;
+        final int soundId;
+        final int priority;
+        final long pauseMs;
+        final long endAtMs; // 0 = single play
+        final long seq;
+        long triggeredAtNs;
+        long nextAtMs;
+        boolean cancelled;
+
+        Job(String key, int soundId, int priority, long pauseMs, long endAtMs, long nextAtMs, long seq) {
+            this.key = key;
+            this.soundId = soundId;
+            this.priority = priority;
+            this.pauseMs = pauseMs;
+            this.endAtMs = endAtMs;
+            this.nextAtMs = nextAtMs;
+            this.seq = seq;
+        }
+    }
+
+    private final Player player;
+    private final long originNs = System.nanoTime();
+    private final java.util.PriorityQueue<Job> queue = new java.util.PriorityQueue<>(16, (a, b) -> {
+        if (a.nextAtMs != b.nextAtMs) return Long.compare(a.nextAtMs, b.nextAtMs);
+        if (a.priority != b.priority) return Integer.compare(b.priority, a.priority);
+        return Long.compare(a.seq, b.seq);
+    });
+    private final java.util.Map<String, Job> loopsByKey = new java.util.HashMap<>();
+    private long seq = 0L;
+    private long busyUntilMs = 0L;
+    private int busyPriority = -1;
+    private Job playing;
+    private boolean running = false;
+    private Thread thread;
+
+    AlertSoundScheduler(Player player) {
+        this.player = player;
+    }
+
+    private long nowMs() {
+        return (System.nanoTime() - originNs) / 1_000_000L;
+    }
+
+    synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::runLoop, "AlertSound");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void stop() {
+        running = false;
+        cancelAllLocked();
+        thread = null;
+        notifyAll();
+    }
+
+    synchronized void playOnce(int soundId, int priority, long triggeredAtNs) {
+        Job job = new Job(null, soundId, priority, 0L, 0L, nowMs(), seq++);
+        job.triggeredAtNs = triggeredAtNs;
+        enqueue(job);
+    }
+
+    /** Starts (or restarts) the loop for key: play, pause, repeat until totalMs elapses. */
+    synchronized void startLoop(String key, int soundId, int priority, long pauseMs, long totalMs, long triggeredAtNs) {
+        cancelLocked(key);
+        long now = nowMs();
+        Job job = new Job(key, soundId, priority, pauseMs, now + totalMs, now, seq++);
+        job.triggeredAtNs = triggeredAtNs;
+        loopsByKey.put(key, job);
+        enqueue(job);
+    }
+
+    synchronized void cancel(String key) {
+        cancelLocked(key);
+    }
+
+    synchronized void cancelAll() {
+        cancelAllLocked();
+    }
+
+    private void cancelLocked(String key) {
+        Job old = key != null ? loopsByKey.remove(key) : null;
+        if (old != null) old.cancelled = true; // dropped lazily when it reaches the head
+    }
+
+    private void cancelAllLocked() {
+        for (Job j : queue) j.cancelled = true;
+        queue.clear();
+        loopsByKey.clear();
+    }
+
+    private void enqueue(Job job) {
+        if (!running) return;
+        queue.add(job);
+        notifyAll();
+    }
+
+    private void runLoop() {
+        while (true) {
+            int soundId;
+            long triggeredAtNs;
+            synchronized (this) {
+                Job job;
+                while (true) {
+                    if (!running) return;
+                    job = queue.peek();
+                    if (job != null && job.cancelled) {
+                        queue.poll();
+                        continue;
+                    }
+                    long now = nowMs();
+                    long waitMs = job == null ? 0L : job.nextAtMs - now;
+                    if (job != null && waitMs <= 0) {
+                        // Lower/equal priority than what is still sounding: wait for it to finish.
+                        if (now < busyUntilMs && job.priority <= busyPriority && !player.canMix()) {
+                            queue.poll();
+                            job.nextAtMs = busyUntilMs;
+                            queue.add(job);
+                            continue;
+                        }
+                        queue.poll();
+                        break;
+                    }
+                    try {
+                        wait(job == null ? 0L : waitMs);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                soundId = job.soundId;
+                triggeredAtNs = job.triggeredAtNs;
+                job.triggeredAtNs = 0L;
+                busyPriority = job.priority;
+                playing = job;
+            }
+
+            int durationMs = 0;
+            try {
+                durationMs = player.play(soundId, triggeredAtNs);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+
+            synchronized (this) {
+                Job job = playing;
+                playing = null;
+                long now = nowMs();
+                busyUntilMs = now + Math.max(0, durationMs);
+                if (job.endAtMs > 0 && !job.cancelled) {
+                    long next = now + Math.max(0, durationMs) + job.pauseMs;
+                    if (next < job.endAtMs) {
+                        job.nextAtMs = next;
+                        queue.add(job);
+                    } else if (loopsByKey.get(job.key) == job) {
+                        loopsByKey.remove(job.key);
+                    }
+                }
+            }
+        }
+    }
+}
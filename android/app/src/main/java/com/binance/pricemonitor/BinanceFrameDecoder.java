@@ -0,0 +1,124 @@
+package com.binance.pricemonitor;
+
+/**
+ * Allocation-free field access for Binance combined-stream frames (miniTicker / kline / aggTrade).
+ * Works on the frame text in place: keys are located with indexOf and values parsed from the
+ * char range, so symbols/intervals resolve to registry ids without creating Strings.
+ */
+final class BinanceFrameDecoder {
+    static final String KEY_STREAM = "\"stream\":\"";
+    static final String KEY_DATA = "\"data\":";
+    static final String KEY_EVENT = "\"e\":\"";
+    static final String KEY_EVENT_TIME = "\"E\":";
+    static final String KEY_SYMBOL = "\"s\":\"";
+    static final String KEY_CLOSE = "\"c\":\"";
+    static final String KEY_OPEN = "\"o\":\"";
+    static final String KEY_HIGH = "\"h\":\"";
+    static final String KEY_LOW = "\"l\":\"";
+    static final String KEY_KLINE = "\"k\":{";
+    static final String KEY_INTERVAL = "\"i\":\"";
+    static final String KEY_OPEN_TIME = "\"t\":";
+    static final String KEY_IS_CLOSED = "\"x\":";
+    static final String KEY_PRICE = "\"p\":\"";
+    static final String KEY_TRADE_TIME = "\"T\":";
+    static final String KEY_AGG_ID = "\"a\":";
+    static final String EVENT_KLINE = "kline";
+    static final String EVENT_AGG_TRADE = "aggTrade";
+
+    private BinanceFrameDecoder() {}
+
+    /** Index of the first char of the value following key, or -1. */
+    static int valueStart(String text, String key, int from) {
+        int i = text.indexOf(key, from);
+        return i < 0 ? -1 : i + key.length();
+    }
+
+    /** End (exclusive) of a quoted string value starting at start. */
+    static int stringEnd(String text, int start) {
+        return start < 0 ? -1 : text.indexOf('"', start);
+    }
+
+    static boolean stringEquals(String text, int start, String expected) {
+        return start >= 0 && text.startsWith(expected, start) && text.length() > start + expected.length()
+                && text.charAt(start + expected.length()) == '"';
+    }
+
+    /** Parses a plain decimal (optionally quoted-terminated) at start; NaN if malformed. */
+    static double parseDecimal(String text, int start) {
+        if (start < 0 || start >= text.length()) return Double.NaN;
+        int i = start;
+        boolean negative = false;
+        char ch = text.charAt(i);
+        if (ch == '-') {
+            negative = true;
+            i++;
+        }
+        long mantissa = 0L;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDot = false;
+        int n = text.length();
+        for (; i < n; i++) {
+            ch = text.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (ch - '0');
+                    if (mantissa != 0) digits++;
+                    if (seenDot && ++scale >= POW10.length) return parseFallback(text, start);
+                } else if (!seenDot) {
+                    return parseFallback(text, start);
+                }
+            } else if (ch == '.' && !seenDot) {
+                seenDot = true;
+            } else if (ch == 'e' || ch == 'E') {
+                return parseFallback(text, start);
+            } else {
+                break;
+            }
+        }
+        if (i == start || (negative && i == start + 1)) return Double.NaN;
+        double v = scale == 0 ? (double) mantissa : mantissa / POW10[scale];
+        return negative ? -v : v;
+    }
+
+    static long parseLong(String text, int start) {
+        if (start < 0) return Long.MIN_VALUE;
+        long v = 0L;
+        int i = start;
+        int n = text.length();
+        boolean any = false;
+        for (; i < n; i++) {
+            char ch = text.charAt(i);
+            if (ch < '0' || ch > '9') break;
+            v = v * 10 + (ch - '0');
+            any = true;
+        }
+        return any ? v : Long.MIN_VALUE;
+    }
+
+    static boolean parseBoolean(String text, int start) {
+        return start >= 0 && text.startsWith("true", start);
+    }
+
+    private static double parseFallback(String text, int start) {
+        int end = start;
+        int n = text.length();
+        while (end < n) {
+            char ch = text.charAt(end);
+            if (ch == '"' || ch == ',' || ch == '}') break;
+            end++;
+        }
+        try {
+            return Double.parseDouble(text.substring(start, end));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static final double[] POW10 = new double[19];
+
+    static {
+        POW10[0] = 1d;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10d;
+    }
+}
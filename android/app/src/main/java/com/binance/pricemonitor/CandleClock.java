@@ -0,0 +1,107 @@
+package com.binance.pricemonitor;
+
+/**
+ * Kline interval arithmetic: interval lengths and the wall-clock (UTC) boundaries at which
+ * candles open and close. Second through day intervals are aligned to the epoch, weeks start on
+ * Monday and "1M" follows calendar months. Intervals need not be ones the exchange serves.
+ */
+final class CandleClock {
+    static final long SECOND_MS = 1_000L;
+    static final long MINUTE_MS = 60L * SECOND_MS;
+    static final long HOUR_MS = 60L * MINUTE_MS;
+    static final long DAY_MS = 24L * HOUR_MS;
+    static final long WEEK_MS = 7L * DAY_MS;
+    // 1970-01-01 was a Thursday; the first Monday is four days later.
+    private static final long WEEK_OFFSET_MS = 4L * DAY_MS;
+
+    // Finest first.
+    private static final String[] BINANCE_INTERVALS = {
+            "1s", "1m", "3m", "5m", "15m", "30m", "1h", "2h", "4h", "6h", "8h", "12h", "1d", "3d", "1w", "1M"};
+    private static final String[] HYPERLIQUID_INTERVALS = {
+            "1m", "3m", "5m", "15m", "30m", "1h", "2h", "4h", "8h", "12h", "1d", "3d", "1w", "1M"};
+
+    private CandleClock() {}
+
+    /** Length of a fixed interval ("1s".."1w"); -1 for "1M" or anything unparseable. */
+    static long intervalMs(String interval) {
+        if (interval == null || interval.length() < 2) return -1L;
+        char unit = interval.charAt(interval.length() - 1);
+        long mult;
+        switch (unit) {
+            case 's': mult = SECOND_MS; break;
+            case 'm': mult = MINUTE_MS; break;
+            case 'h': mult = HOUR_MS; break;
+            case 'd': mult = DAY_MS; break;
+            case 'w': mult = WEEK_MS; break;
+            default: return -1L;
+        }
+        try {
+            long n = Long.parseLong(interval.substring(0, interval.length() - 1));
+            return n > 0 ? n * mult : -1L;
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /** Open time of the candle containing t, or -1 if the interval is unknown. */
+    static long bucketStartMs(String interval, long t) {
+        if ("1M".equals(interval)) return monthStartMs(t, 0);
+        long len = intervalMs(interval);
+        if (len <= 0) return -1L;
+        long offset = interval.endsWith("w") ? WEEK_OFFSET_MS : 0L;
+        return Math.floorDiv(t - offset, len) * len + offset;
+    }
+
+    /** True when every derived boundary is also a base boundary, so base candles tile it exactly. */
+    static boolean canRollUp(String base, String derived) {
+        long baseLen = intervalMs(base);
+        if (baseLen <= 0 || base.equals(derived)) return false;
+        if ("1M".equals(derived)) return DAY_MS % baseLen == 0;
+        long len = intervalMs(derived);
+        if (len <= baseLen || len % baseLen != 0) return false;
+        return !derived.endsWith("w") || WEEK_OFFSET_MS % baseLen == 0 || base.endsWith("w");
+    }
+
+    /** True if the exchange streams klines for this interval. */
+    static boolean isExchangeInterval(String interval, boolean hyperliquid) {
+        for (String s : hyperliquid ? HYPERLIQUID_INTERVALS : BINANCE_INTERVALS) {
+            if (s.equals(interval)) return true;
+        }
+        return false;
+    }
+
+    /** Coarsest exchange interval whose candles tile interval exactly, or null. */
+    static String exchangeSourceFor(String interval, boolean hyperliquid) {
+        String[] list = hyperliquid ? HYPERLIQUID_INTERVALS : BINANCE_INTERVALS;
+        for (int i = list.length - 1; i >= 0; i--) {
+            if (canRollUp(list[i], interval)) return list[i];
+        }
+        return null;
+    }
+
+    /** Approximate length for ordering intervals; months count as 31 days. */
+    static long sortLengthMs(String interval) {
+        return "1M".equals(interval) ? 31L * DAY_MS : intervalMs(interval);
+    }
+
+    /** First candle boundary strictly after nowMs, or -1 if the interval is unknown. */
+    static long nextBoundaryMs(String interval, long nowMs) {
+        if ("1M".equals(interval)) return monthStartMs(nowMs, 1);
+        long len = intervalMs(interval);
+        if (len <= 0) return -1L;
+        long offset = interval.endsWith("w") ? WEEK_OFFSET_MS : 0L;
+        return Math.floorDiv(nowMs - offset, len) * len + len + offset;
+    }
+
+    private static long monthStartMs(long t, int addMonths) {
+        java.util.Calendar c = java.util.Calendar.getInstance(java.util.TimeZone.getTimeZone("UTC"));
+        c.setTimeInMillis(t);
+        c.set(java.util.Calendar.DAY_OF_MONTH, 1);
+        c.set(java.util.Calendar.HOUR_OF_DAY, 0);
+        c.set(java.util.Calendar.MINUTE, 0);
+        c.set(java.util.Calendar.SECOND, 0);
+        c.set(java.util.Calendar.MILLISECOND, 0);
+        c.add(java.util.Calendar.MONTH, addMonths);
+        return c.getTimeInMillis();
+    }
+}
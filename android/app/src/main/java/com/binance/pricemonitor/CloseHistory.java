@@ -0,0 +1,53 @@
+package com.binance.pricemonitor;
+
+/**
+ * Closed-candle closes for one series, kept in a fixed primitive ring (oldest first via get()).
+ * Replaces the boxed List&lt;Double&gt; history so candle closes don't allocate.
+ */
+final class CloseHistory {
+    static final int CAPACITY = 100;
+
+    private final double[] values = new double[CAPACITY];
+    private int start = 0;
+    private int size = 0;
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** i = 0 is the oldest close, size() - 1 the newest. */
+    synchronized double get(int i) {
+        return values[(start + i) % CAPACITY];
+    }
+
+    synchronized double last() {
+        return size == 0 ? Double.NaN : values[(start + size - 1) % CAPACITY];
+    }
+
+    synchronized void add(double close) {
+        if (size < CAPACITY) {
+            values[(start + size) % CAPACITY] = close;
+            size++;
+        } else {
+            values[start] = close;
+            start = (start + 1) % CAPACITY;
+        }
+    }
+
+    /** Replaces the content with the newest CAPACITY values of src[0, n). */
+    synchronized void replaceWith(double[] src, int n) {
+        int from = Math.max(0, n - CAPACITY);
+        size = n - from;
+        start = 0;
+        System.arraycopy(src, from, values, 0, size);
+    }
+
+    synchronized void clear() {
+        start = 0;
+        size = 0;
+    }
+}
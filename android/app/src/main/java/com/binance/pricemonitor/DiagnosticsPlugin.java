@@ -25,6 +25,58 @@ public class DiagnosticsPlugin extends Plugin {
         call.resolve(ret);
     }
 
+    @PluginMethod
+    public void getPipelineStats(PluginCall call) {
+        String stats = FloatingWindowService.pipelineStats();
+        JSObject ret = new JSObject();
+        ret.put("running", stats != null);
+        ret.put("text", stats != null ? stats : "");
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getEndpointLatency(PluginCall call) {
+        java.util.List<StreamRace.Snapshot> stats = FloatingWindowService.streamRaceStats();
+        JSObject ret = new JSObject();
+        ret.put("running", stats != null);
+        com.getcapacitor.JSArray bounds = new com.getcapacitor.JSArray();
+        for (long b : StreamRace.BUCKET_BOUNDS_MS) bounds.put(b == Long.MAX_VALUE ? -1L : b);
+        ret.put("bucketBoundsMs", bounds);
+        com.getcapacitor.JSArray endpoints = new com.getcapacitor.JSArray();
+        if (stats != null) {
+            for (StreamRace.Snapshot s : stats) {
+                JSObject e = new JSObject();
+                e.put("endpoint", s.endpoint);
+                e.put("active", s.active);
+                e.put("frames", s.frames);
+                e.put("first", s.wins);
+                e.put("duplicates", s.duplicates);
+                com.getcapacitor.JSArray buckets = new com.getcapacitor.JSArray();
+                for (long n : s.buckets) buckets.put(n);
+                e.put("buckets", buckets);
+                endpoints.put(e);
+            }
+        }
+        ret.put("endpoints", endpoints);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void setStreamEndpoints(PluginCall call) {
+        com.getcapacitor.JSArray jsArray = call.getArray("endpoints");
+        java.util.ArrayList<String> endpoints = new java.util.ArrayList<>();
+        try {
+            if (jsArray != null) {
+                for (int i = 0; i < jsArray.length(); i++) endpoints.add(jsArray.getString(i));
+            }
+        } catch (Exception e) {
+            call.reject("Invalid endpoint list");
+            return;
+        }
+        FloatingWindowService.saveStreamEndpoints(getContext().getApplicationContext(), endpoints);
+        call.resolve();
+    }
+
     @PluginMethod
     public void clearLogs(PluginCall call) {
         DiagnosticsLog.clear(getContext().getApplicationContext());
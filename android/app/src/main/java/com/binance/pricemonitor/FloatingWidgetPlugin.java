@@ -14,29 +14,175 @@ import com.getcapacitor.annotation.CapacitorPlugin;
 
 @CapacitorPlugin(name = "FloatingWidget")
 public class FloatingWidgetPlugin extends Plugin {
+    private static final long DEFAULT_BATCH_INTERVAL_MS = 250L;
+    private static final long MIN_BATCH_INTERVAL_MS = 16L;
+    private static final long MAX_BATCH_INTERVAL_MS = 5000L;
+    private static final int DEFAULT_TRIGGER_PAGE = 100;
+    private static final int MAX_TRIGGER_PAGE = 500;
+
+    // Ticks are aggregated natively and crossed over the bridge once per interval as "tickerBatch".
+    private final android.os.Handler batchHandler = new android.os.Handler(android.os.Looper.getMainLooper());
+    private final Object batchLock = new Object();
+    private final java.util.Map<String, double[]> latestTicks = new java.util.HashMap<>(); // {price, changePercent, version}
+    private final java.util.LinkedHashSet<String> changedSymbols = new java.util.LinkedHashSet<>();
+    private boolean batchScheduled = false;
+    private volatile long batchIntervalMs = DEFAULT_BATCH_INTERVAL_MS;
+    private final Runnable flushBatch = this::flushTickerBatch;
+
+    // Set while bound to the running service; commands then skip the Intent round trip.
+    private volatile FloatingWindowService.LocalBinder service;
+    private final android.content.ServiceConnection serviceConnection = new android.content.ServiceConnection() {
+        @Override
+        public void onServiceConnected(android.content.ComponentName name, android.os.IBinder binder) {
+            service = (FloatingWindowService.LocalBinder) binder;
+        }
+
+        @Override
+        public void onServiceDisconnected(android.content.ComponentName name) {
+            service = null;
+        }
+    };
 
     @Override
     public void load() {
         super.load();
         
         // Register as listener for ticker updates from the Service
-        FloatingWindowService.setTickerListener((symbol, price, changePercent) -> {
-            JSObject data = new JSObject();
-            data.put("symbol", symbol);
-            data.put("price", price);
-            data.put("changePercent", changePercent);
-            
-            // Notify JS listeners (must be on main thread for Capacitor)
-            getActivity().runOnUiThread(() -> {
-                notifyListeners("tickerUpdate", data);
-            });
-        });
+        FloatingWindowService.setTickerListener(this::enqueueTick);
+        FloatingWindowService.setAlertTriggerListener(this::emitAlertTriggered);
+
+        // No BIND_AUTO_CREATE: the binding connects whenever an Intent has started the service.
+        Context context = getContext().getApplicationContext();
+        context.bindService(new Intent(context, FloatingWindowService.class), serviceConnection, 0);
     }
     
     @Override
     protected void handleOnDestroy() {
         super.handleOnDestroy();
         FloatingWindowService.setTickerListener(null);
+        FloatingWindowService.setAlertTriggerListener(null);
+        batchHandler.removeCallbacks(flushBatch);
+        try {
+            getContext().getApplicationContext().unbindService(serviceConnection);
+        } catch (Exception ignored) {}
+        service = null;
+    }
+
+    // The bound service, or null when commands must go through an Intent (not running yet).
+    private FloatingWindowService.LocalBinder boundService() {
+        FloatingWindowService.LocalBinder b = service;
+        return b != null && b.isAlive() ? b : null;
+    }
+
+    private void sendCommand(Intent intent) {
+        Context context = getContext().getApplicationContext();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            context.startForegroundService(intent);
+        } else {
+            context.startService(intent);
+        }
+    }
+
+    private void enqueueTick(String symbol, double price, double changePercent, long version) {
+        synchronized (batchLock) {
+            double[] slot = latestTicks.get(symbol);
+            if (slot == null) {
+                slot = new double[3];
+                latestTicks.put(symbol, slot);
+            }
+            slot[0] = price;
+            slot[1] = changePercent;
+            slot[2] = version;
+            changedSymbols.add(symbol);
+            if (batchScheduled) return;
+            batchScheduled = true;
+        }
+        batchHandler.postDelayed(flushBatch, batchIntervalMs);
+    }
+
+    // Main thread: one bridge crossing per interval, only for symbols that changed.
+    private void flushTickerBatch() {
+        com.getcapacitor.JSArray ticks = new com.getcapacitor.JSArray();
+        synchronized (batchLock) {
+            batchScheduled = false;
+            if (changedSymbols.isEmpty()) return;
+            for (String symbol : changedSymbols) {
+                double[] slot = latestTicks.get(symbol);
+                if (slot == null) continue;
+                com.getcapacitor.JSArray tick = new com.getcapacitor.JSArray();
+                tick.put(symbol);
+                try {
+                    tick.put(slot[0]);
+                    tick.put(slot[1]);
+                    tick.put((long) slot[2]);
+                } catch (Exception ignored) {
+                    continue;
+                }
+                ticks.put(tick);
+            }
+            changedSymbols.clear();
+        }
+        JSObject data = new JSObject();
+        data.put("ticks", ticks); // [[symbol, price, changePercent, version], ...]
+        notifyListeners("tickerBatch", data);
+    }
+
+    // Alert dispatcher thread; triggers are rare, so each crosses the bridge on its own.
+    private void emitAlertTriggered(long seq, String alertId, String symbol, long timeMs,
+                                    double price, double target, String provider) {
+        JSObject data = new JSObject();
+        data.put("seq", seq);
+        data.put("alertId", alertId);
+        data.put("symbol", symbol);
+        data.put("time", timeMs);
+        data.put("price", price);
+        data.put("target", target);
+        data.put("provider", provider);
+        notifyListeners("alertTriggered", data);
+    }
+
+    @PluginMethod
+    public void getTriggers(PluginCall call) {
+        long since = call.getLong("since", 0L);
+        int limit = Math.max(1, Math.min(MAX_TRIGGER_PAGE, call.getInt("limit", DEFAULT_TRIGGER_PAGE)));
+        TriggerJournal journal = TriggerJournal.get(getContext());
+        if (journal == null) {
+            call.reject("Trigger journal unavailable");
+            return;
+        }
+        java.util.ArrayList<TriggerJournal.Record> records = new java.util.ArrayList<>();
+        long latest = journal.query(since, limit, records);
+
+        com.getcapacitor.JSArray triggers = new com.getcapacitor.JSArray();
+        for (TriggerJournal.Record r : records) {
+            JSObject item = new JSObject();
+            item.put("seq", r.seq);
+            item.put("alertId", r.alertId);
+            item.put("time", r.timeMs);
+            item.put("price", r.price);
+            item.put("target", r.target);
+            item.put("provider", r.providerName());
+            triggers.put(item);
+        }
+        JSObject ret = new JSObject();
+        ret.put("triggers", triggers);
+        // Pass "next" back as "since" for the following page; next == latest means caught up.
+        ret.put("next", records.isEmpty() ? Math.min(since, latest) : records.get(records.size() - 1).seq);
+        ret.put("latest", latest);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void setTickerBatchInterval(PluginCall call) {
+        Integer intervalMs = call.getInt("intervalMs");
+        if (intervalMs == null) {
+            call.reject("intervalMs is required");
+            return;
+        }
+        batchIntervalMs = Math.max(MIN_BATCH_INTERVAL_MS, Math.min(MAX_BATCH_INTERVAL_MS, intervalMs));
+        JSObject ret = new JSObject();
+        ret.put("intervalMs", batchIntervalMs);
+        call.resolve(ret);
     }
 
     @PluginMethod
@@ -73,21 +219,28 @@ public class FloatingWidgetPlugin extends Plugin {
     public void syncAlerts(PluginCall call) {
         com.getcapacitor.JSArray jsArray = call.getArray("alerts");
         String alertsJson = jsArray != null ? jsArray.toString() : "[]";
-        
+        String marketProvider = call.getString("marketProvider");
+
+        FloatingWindowService.LocalBinder svc = boundService();
+        if (svc != null) {
+            try {
+                JSObject ret = new JSObject();
+                ret.put("count", svc.syncAlerts(alertsJson, marketProvider));
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Alert sync failed: " + e.getMessage(), e);
+            }
+            return;
+        }
+
         Context context = getContext().getApplicationContext();
         Intent intent = new Intent(context, FloatingWindowService.class);
         intent.setAction(FloatingWindowService.ACTION_SYNC_ALERTS);
         intent.putExtra(FloatingWindowService.EXTRA_ALERTS_JSON, alertsJson);
-        String marketProvider = call.getString("marketProvider");
         if (marketProvider != null && !marketProvider.isEmpty()) {
             intent.putExtra(FloatingWindowService.EXTRA_MARKET_PROVIDER, marketProvider);
         }
-        
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            context.startForegroundService(intent);
-        } else {
-            context.startService(intent);
-        }
+        sendCommand(intent);
         call.resolve();
     }
 
@@ -132,20 +285,27 @@ public class FloatingWidgetPlugin extends Plugin {
             return;
         }
 
+        String marketProvider = call.getString("marketProvider");
+
+        FloatingWindowService.LocalBinder svc = boundService();
+        if (svc != null) {
+            try {
+                svc.setSymbols(symbols, marketProvider);
+                call.resolve();
+            } catch (Exception e) {
+                call.reject("Set symbols failed: " + e.getMessage(), e);
+            }
+            return;
+        }
+
         Context context = getContext().getApplicationContext();
         Intent intent = new Intent(context, FloatingWindowService.class);
         intent.setAction(FloatingWindowService.ACTION_SET_SYMBOLS);
         intent.putStringArrayListExtra(FloatingWindowService.EXTRA_SYMBOL_LIST, symbols);
-        String marketProvider = call.getString("marketProvider");
         if (marketProvider != null && !marketProvider.isEmpty()) {
             intent.putExtra(FloatingWindowService.EXTRA_MARKET_PROVIDER, marketProvider);
         }
-        
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            context.startForegroundService(intent);
-        } else {
-            context.startService(intent);
-        }
+        sendCommand(intent);
         call.resolve();
     }
 
@@ -154,17 +314,90 @@ public class FloatingWidgetPlugin extends Plugin {
 
     @PluginMethod
     public void requestTickerUpdate(PluginCall call) {
+        boolean replay = call.getBoolean("replay", true);
+
+        FloatingWindowService.LocalBinder svc = boundService();
+        if (svc != null) {
+            try {
+                svc.requestUpdate(replay);
+                call.resolve();
+            } catch (Exception e) {
+                call.reject("Ticker update failed: " + e.getMessage(), e);
+            }
+            return;
+        }
+
         Context context = getContext().getApplicationContext();
         Intent intent = new Intent(context, FloatingWindowService.class);
         intent.setAction(FloatingWindowService.ACTION_REQUEST_UPDATE);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            context.startForegroundService(intent);
-        } else {
-            context.startService(intent);
+        intent.putExtra(FloatingWindowService.EXTRA_REPLAY, replay);
+        sendCommand(intent);
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void setVisibleSymbols(PluginCall call) {
+        // symbols omitted => unscoped (forward everything); background => forward nothing
+        com.getcapacitor.JSArray jsArray = call.getArray("symbols");
+        java.util.ArrayList<String> symbols = null;
+        if (jsArray != null) {
+            symbols = new java.util.ArrayList<>();
+            try {
+                for (int i = 0; i < jsArray.length(); i++) {
+                    symbols.add(jsArray.getString(i));
+                }
+            } catch (Exception e) {
+                call.reject("Invalid symbol list");
+                return;
+            }
         }
+
+        boolean background = call.getBoolean("background", false);
+
+        // Only a hint for a running service. Never start one for it: this is called while the app goes
+        // to the background (where a foreground-service start can throw), and a freshly started
+        // service already forwards everything.
+        FloatingWindowService.LocalBinder svc = boundService();
+        if (svc != null) svc.setVisibleSymbols(symbols, background);
         call.resolve();
     }
 
+    @PluginMethod
+    public void getQuotes(PluginCall call) {
+        long sinceVersion = call.getLong("sinceVersion", 0L);
+        // JS numbers can't hold a full long exactly; the epoch travels as a string.
+        long epoch = parseEpoch(call.getString("epoch"));
+        java.util.ArrayList<FloatingWindowService.QuoteUpdate> updates = new java.util.ArrayList<>();
+        long[] epochOut = new long[1];
+        long version = FloatingWindowService.collectQuotesSince(epoch, sinceVersion, updates, epochOut);
+
+        com.getcapacitor.JSArray quotes = new com.getcapacitor.JSArray();
+        for (FloatingWindowService.QuoteUpdate q : updates) {
+            JSObject item = new JSObject();
+            item.put("symbol", q.symbol);
+            item.put("price", q.price);
+            item.put("changePercent", q.changePercent);
+            item.put("version", q.version);
+            item.put("updatedAt", q.updatedAtMs);
+            item.put("stale", q.stale);
+            quotes.put(item);
+        }
+        JSObject ret = new JSObject();
+        ret.put("running", version >= 0);
+        ret.put("version", version >= 0 ? version : sinceVersion);
+        ret.put("epoch", version >= 0 ? Long.toString(epochOut[0]) : call.getString("epoch", "0"));
+        ret.put("quotes", quotes);
+        call.resolve(ret);
+    }
+
+    private static long parseEpoch(String epoch) {
+        try {
+            return epoch != null ? Long.parseLong(epoch) : 0L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
     @PluginMethod
     public void updateConfig(PluginCall call) {
         float fontSize = call.getFloat("fontSize", 14f);
@@ -172,6 +405,18 @@ public class FloatingWidgetPlugin extends Plugin {
         boolean showSymbol = call.getBoolean("showSymbol", true);
         int itemsPerPage = call.getInt("itemsPerPage", 1);
         String marketProvider = call.getString("marketProvider");
+        Boolean standbyFailover = call.getBoolean("standbyFailover");
+
+        FloatingWindowService.LocalBinder svc = boundService();
+        if (svc != null) {
+            try {
+                svc.updateConfig(fontSize, opacity, showSymbol, itemsPerPage, marketProvider, standbyFailover);
+                call.resolve();
+            } catch (Exception e) {
+                call.reject("Config update failed: " + e.getMessage(), e);
+            }
+            return;
+        }
 
         Context context = getContext().getApplicationContext();
         Intent intent = new Intent(context, FloatingWindowService.class);
@@ -183,13 +428,10 @@ public class FloatingWidgetPlugin extends Plugin {
         if (marketProvider != null && !marketProvider.isEmpty()) {
             intent.putExtra(FloatingWindowService.EXTRA_MARKET_PROVIDER, marketProvider);
         }
-        
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            context.startForegroundService(intent);
-        } else {
-            context.startService(intent);
+        if (standbyFailover != null) {
+            intent.putExtra(FloatingWindowService.EXTRA_STANDBY_FAILOVER, standbyFailover.booleanValue());
         }
-        
+        sendCommand(intent);
         call.resolve();
     }
 
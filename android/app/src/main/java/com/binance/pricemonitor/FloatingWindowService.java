@@ -46,10 +46,36 @@ public class FloatingWindowService extends Service {
     
     // Data storage
     private java.util.List<String> symbolList = new java.util.ArrayList<>();
-    private java.util.Map<String, String[]> priceDataMap = new java.util.concurrent.ConcurrentHashMap<>();
-    private java.util.Map<String, double[]> rawPriceDataMap = new java.util.concurrent.ConcurrentHashMap<>();
+    // Latest quote per symbol id; versions come from one monotonic counter so JS can pull deltas.
+    private final QuoteTable quotes = new QuoteTable(SymbolRegistry.MAX_SYMBOLS);
+    private final QuoteTable.Snapshot uiQuote = new QuoteTable.Snapshot(); // main thread only
+    // Identifies this instance's version counter to bridge readers; set in onCreate, never 0.
+    private long quoteEpoch;
+
+    // Bridge scope: symbols the WebView currently displays (null = not scoped, forward all).
+    // Alerts and the overlay ignore this; it only gates tickerListener.
+    private volatile java.util.Set<String> bridgeVisibleSymbols = null;
+    private volatile boolean bridgeBackground = false;
     private int currentIndex = 0;
     private boolean hasPriceAlerts = false;
+
+    // Dense ids assigned when subscriptions are created; per-symbol / per-series state is indexed by them.
+    private final SymbolRegistry registry = new SymbolRegistry();
+    private final double[] lastTickerPriceById = new double[SymbolRegistry.MAX_SYMBOLS];
+    private final CloseHistory[] historyBySeries = new CloseHistory[SymbolRegistry.MAX_SERIES];
+    private final long[] lastCandleTimeBySeries = new long[SymbolRegistry.MAX_SERIES];
+    private final double[] lastLiveCloseBySeries = new double[SymbolRegistry.MAX_SERIES];
+    // Running high/low last reported by each stream (24h window / live candle), to spot new extremes.
+    private final double[] lastTickerHighById = new double[SymbolRegistry.MAX_SYMBOLS];
+    private final double[] lastTickerLowById = new double[SymbolRegistry.MAX_SYMBOLS];
+    private final long[] liveBarOpenBySeries = new long[SymbolRegistry.MAX_SERIES];
+    private final double[] liveBarHighBySeries = new double[SymbolRegistry.MAX_SERIES];
+    private final double[] liveBarLowBySeries = new double[SymbolRegistry.MAX_SERIES];
+    private static final long NO_CANDLE_TIME = Long.MIN_VALUE;
+
+    // Sparklines: one bounded primitive ring per watched symbol id; views are main-thread only.
+    private final Sparkline[] sparklineById = new Sparkline[SymbolRegistry.MAX_SYMBOLS];
+    private final java.util.Map<String, SparklineView> sparklineViews = new java.util.HashMap<>();
     
     // Config values
     private float fontSize = 14f;
@@ -60,16 +86,118 @@ public class FloatingWindowService extends Service {
     // WebSocket
     private okhttp3.WebSocket spotWebSocket;
     private okhttp3.WebSocket futuresWebSocket;
+    private volatile java.util.List<String> binanceTickerSymbols = new java.util.ArrayList<>();
     private okhttp3.OkHttpClient client = new okhttp3.OkHttpClient();
-    private com.google.gson.Gson gson = new com.google.gson.Gson();
+    // Spot streams race over several Binance endpoints; set up in onCreate from prefs.
+    private StreamRace spotRace;
+    private static final String PREF_STREAM_ENDPOINTS = "stream_endpoints";
+    private com.google.gson.Gson gson; // built on first alert sync, see gson()
 
     // Sound
     private android.media.ToneGenerator toneGenerator;
 
-    // Crossing detection state
-    private final java.util.Map<String, Double> lastTickerPriceBySymbol = new java.util.concurrent.ConcurrentHashMap<>();
-    private final java.util.Map<String, Double> lastLiveCloseByKlineKey = new java.util.concurrent.ConcurrentHashMap<>();
-    private final java.util.Map<String, Long> soundLoopTokens = new java.util.concurrent.ConcurrentHashMap<>();
+    // One thread owns alert audio: one-shots, loops and overlap arbitration
+    private final AlertSoundScheduler soundScheduler = new AlertSoundScheduler(new AlertSoundScheduler.Player() {
+        @Override
+        public int play(int soundId, long triggeredAtNs) {
+            return playTone(soundId, triggeredAtNs);
+        }
+
+        @Override
+        public boolean canMix() {
+            return audioEngine != null && audioEngine.isReady();
+        }
+    });
+    // Preloaded PCM per sound id; ToneGenerator is the fallback until (or if never) ready
+    private AlertAudioEngine audioEngine;
+    // Mapped trigger history shared with the plugin; null if the file couldn't be mapped
+    private volatile TriggerJournal triggerJournal;
+    private final StartupTrace startupTrace = new StartupTrace();
+
+    // Decouples socket threads from slow ticker consumers (UI, JS bridge)
+    private final TickerConflator tickerConflator = new TickerConflator(this::deliverLatestTicker);
+    // Pipeline: socket reader -> frame decode/normalize -> per-symbol state+alerts loops -> dispatcher.
+    // Socket callbacks only enqueue the frame text, so a slow stage never stalls socket reads.
+    private static final int FRAME_SPOT = 0;
+    private static final int FRAME_FUTURES = 1;
+    private static final int FRAME_KLINE = 2;
+    private static final int FRAME_HYPERLIQUID = 3;
+    private static final int FRAME_TRADE = 4;
+    private static final int FRAME_RING_CAPACITY = 8192;
+    private static final int DISPATCH_LANE_CAPACITY = 256;
+    // Every decoded ticker reaches checkPriceAlerts, which must see each crossing, so a full ring
+    // blocks the socket thread instead of shedding frames; display consumers are conflated later,
+    // after alert evaluation. Kline and Hyperliquid frames carry candle closes and block too.
+    private static final PipelineStage.Overflow TICKER_FRAME_OVERFLOW = PipelineStage.Overflow.BLOCK;
+    private static final PipelineStage.Overflow KLINE_FRAME_OVERFLOW = PipelineStage.Overflow.BLOCK;
+    private static final long PIPELINE_STATS_INTERVAL_MS = 60_000L;
+    private final PipelineStage<String> tickerFrames =
+            new PipelineStage<>("decode-ticker", FRAME_RING_CAPACITY, TICKER_FRAME_OVERFLOW, this::decodeFrame);
+    private final PipelineStage<String> klineFrames =
+            new PipelineStage<>("decode-kline", FRAME_RING_CAPACITY, KLINE_FRAME_OVERFLOW, this::decodeFrame);
+    // Alert actions (notification/sound/vibration) by priority lane; posting never blocks a symbol loop.
+    private final AlertDispatcher alertDispatcher = new AlertDispatcher(DISPATCH_LANE_CAPACITY, new AlertDispatcher.Sink() {
+        @Override
+        public void dispatch(AlertConfig alert, double currentPrice, double targetValue,
+                             long triggeredAtNs, long triggeredAtMs, long journalSeq) {
+            runAlertActions(alert, currentPrice, targetValue, triggeredAtNs);
+            AlertTriggerListener listener = alertTriggerListener;
+            if (listener != null) {
+                listener.onAlertTriggered(journalSeq, alert.id, alert.symbol, triggeredAtMs,
+                        currentPrice, targetValue, marketProvider);
+            }
+        }
+
+        @Override
+        public long onIdle() {
+            return notificationCoalescer.poll(android.os.SystemClock.elapsedRealtime());
+        }
+
+        @Override
+        public void onOverflow(int count) {
+            // Evicted triggers stay in the journal; the summary's "more" count keeps them visible.
+            notificationCoalescer.absorb(count, android.os.SystemClock.elapsedRealtime());
+        }
+    });
+    // Dispatcher thread only: first alert of a burst posts at once, the rest fold into a summary.
+    private final NotificationCoalescer notificationCoalescer = new NotificationCoalescer(new NotificationCoalescer.Poster() {
+        @Override
+        public void postSingle(int id, String title, String message) {
+            postAlertNotification(id, title, message);
+        }
+
+        @Override
+        public void postSummary(java.util.List<String> lines, int total) {
+            postAlertSummary(lines, total);
+        }
+    });
+    // Per-symbol single-writer loops: all alert/history state of a symbol is touched by one thread.
+    private final SymbolEventLoops eventLoops = new SymbolEventLoops(new SymbolEventLoops.Handler() {
+        @Override
+        public void onTicker(int symbolId, double price, double changePercent, double high, double low, long eventTimeMs) {
+            handleTickerEvent(symbolId, price, changePercent, high, low, eventTimeMs);
+        }
+
+        @Override
+        public void onKline(int seriesId, double close, double high, double low, boolean isClosed, long openTime) {
+            handleKlineFrame(seriesId, close, high, low, isClosed, openTime);
+        }
+
+        @Override
+        public void onTrade(int symbolId, double price, long tradeTimeMs) {
+            handleTradeEvent(symbolId, price, tradeTimeMs);
+        }
+
+        @Override
+        public void onTimer(Object payload, long handle) {
+            if (payload instanceof TradeCandleBuilder.BucketTimer) {
+                TradeCandleBuilder.BucketTimer t = (TradeCandleBuilder.BucketTimer) payload;
+                if (t.owner == tradeCandles) t.owner.onTimer(t); // else a replaced builder's timer
+            } else {
+                onDelayDeadline((String) payload, handle);
+            }
+        }
+    });
 
     // Market data provider (Binance vs Hyperliquid)
     private static final String PREFS_NAME = "market_data_prefs";
@@ -77,7 +205,8 @@ public class FloatingWindowService extends Service {
     private static final String PROVIDER_BINANCE = "binance";
     private static final String PROVIDER_HYPERLIQUID = "hyperliquid";
     private String marketProvider = PROVIDER_BINANCE;
-    private MarketDataProvider marketDataProvider = null;
+    private volatile MarketDataProvider marketDataProvider = null;
+    private static final String PREF_STANDBY_FAILOVER = "standby_failover";
 
     public static final String ACTION_CONFIG = "UPDATE_CONFIG";
     public static final String ACTION_SET_SYMBOLS = "SET_SYMBOLS";
@@ -87,6 +216,8 @@ public class FloatingWindowService extends Service {
     public static final String ACTION_HIDE_WINDOW = "HIDE_WINDOW";
     public static final String ACTION_REQUEST_UPDATE = "REQUEST_UPDATE"; // New action for immediate data
     public static final String ACTION_PREVIEW_SOUND = "PREVIEW_SOUND";
+    public static final String ACTION_SET_VISIBLE_SYMBOLS = "SET_VISIBLE_SYMBOLS";
+    static final String ACTION_LOW_POWER_POLL = "LOW_POWER_POLL"; // alarm: fetch just-closed candles
     
     public static final String EXTRA_FONT_SIZE = "FONT_SIZE";
     public static final String EXTRA_OPACITY = "OPACITY";
@@ -95,6 +226,9 @@ public class FloatingWindowService extends Service {
     public static final String EXTRA_ITEMS_PER_PAGE = "ITEMS_PER_PAGE";
     public static final String EXTRA_SOUND_ID = "SOUND_ID";
     public static final String EXTRA_MARKET_PROVIDER = "MARKET_PROVIDER";
+    public static final String EXTRA_STANDBY_FAILOVER = "STANDBY_FAILOVER";
+    public static final String EXTRA_REPLAY = "REPLAY";
+    public static final String EXTRA_BACKGROUND = "BACKGROUND";
 
     private boolean windowVisible = false;
     private static final String PERF_TAG = "[perf] FloatingWindowService";
@@ -110,7 +244,7 @@ public class FloatingWindowService extends Service {
 
         @Override
         public int hashCode() {
-            return (symbol + "_" + interval).hashCode();
+            return 31 * symbol.hashCode() + interval.hashCode();
         }
 
         @Override
@@ -127,29 +261,136 @@ public class FloatingWindowService extends Service {
         void stopTicker();
         void startKlines(java.util.Set<KlineSubscription> subs);
         void stopKlines();
+        void startTrades(java.util.Set<String> symbols);
+        void stopTrades();
         void requestImmediateUpdate();
         void shutdown();
     }
 
     @Override
     public IBinder onBind(Intent intent) {
-        return null;
+        return localBinder;
+    }
+
+    // ============================================
+    // LOCAL BINDER (plugin fast path)
+    // ============================================
+
+    private static final long BINDER_CALL_TIMEOUT_MS = 2_000L;
+    private final IBinder localBinder = new LocalBinder();
+
+    /**
+     * In-process command interface for FloatingWidgetPlugin once it is bound: typed calls that
+     * return when the command has been applied and throw what went wrong, instead of an Intent
+     * handled later by onStartCommand. Intents remain for starting the service.
+     */
+    public final class LocalBinder extends android.os.Binder {
+        /** False once the service is destroyed; callers then fall back to an Intent. */
+        public boolean isAlive() {
+            return runningInstance == FloatingWindowService.this;
+        }
+
+        public void setSymbols(java.util.List<String> symbols, String provider) throws Exception {
+            callOnMain(() -> {
+                applyProviderExtra(provider);
+                FloatingWindowService.this.setSymbols(symbols);
+                return null;
+            });
+        }
+
+        public void updateConfig(float fontSize, float opacity, boolean showSymbol, int itemsPerPage,
+                                 String provider, Boolean standbyFailover) throws Exception {
+            callOnMain(() -> {
+                if (provider != null && !provider.isEmpty()) applyMarketProvider(provider, true);
+                FloatingWindowService.this.updateConfig(fontSize, opacity, showSymbol, itemsPerPage, standbyFailover);
+                return null;
+            });
+        }
+
+        /** Returns the number of alerts now synced. */
+        public int syncAlerts(String alertsJson, String provider) throws Exception {
+            return callOnMain(() -> {
+                applyProviderExtra(provider);
+                return applyAlerts(alertsJson);
+            });
+        }
+
+        public void requestUpdate(boolean replay) throws Exception {
+            callOnMain(() -> {
+                FloatingWindowService.this.requestUpdate(replay);
+                return null;
+            });
+        }
+
+        public void setVisibleSymbols(java.util.List<String> symbols, boolean background) {
+            FloatingWindowService.this.setVisibleSymbols(symbols, background);
+        }
+    }
+
+    // Same as the provider extra on an Intent: switch provider without restarting feeds yet.
+    private void applyProviderExtra(String provider) {
+        if (provider != null && !provider.isEmpty()) applyMarketProvider(provider, false);
+    }
+
+    // Service state is main-thread confined: run there and hand back the result or the failure.
+    private <T> T callOnMain(java.util.concurrent.Callable<T> task) throws Exception {
+        if (android.os.Looper.myLooper() == android.os.Looper.getMainLooper()) return task.call();
+        java.util.concurrent.FutureTask<T> future = new java.util.concurrent.FutureTask<>(task);
+        mainHandler.post(future);
+        try {
+            future.get(BINDER_CALL_TIMEOUT_MS, java.util.concurrent.TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.TimeoutException e) {
+            // A rejected call must not apply later (a retry would run it twice, maybe out of order).
+            if (future.cancel(false)) {
+                mainHandler.removeCallbacks(future);
+                throw e;
+            }
+            // Already running on the main thread: wait and report how it actually ended.
+        } catch (java.util.concurrent.ExecutionException ignored) {
+            // Rethrown as its cause below.
+        }
+        try {
+            return future.get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
     }
 
     @Override
     public void onCreate() {
         super.onCreate();
         android.util.Log.d(PERF_TAG, "onCreate at " + System.currentTimeMillis());
+        resetIdState();
         startForegroundService();
+        startupTrace.mark("foreground");
+        quoteEpoch = new java.util.Random().nextLong() | 1L;
+        runningInstance = this;
+        tickerConflator.start();
+        eventLoops.start();
+        tickerFrames.start();
+        klineFrames.start();
+        alertDispatcher.start();
+        // Mapping (and on first run zeroing) the journal is file I/O nobody waits for at startup.
+        new Thread(() -> triggerJournal = TriggerJournal.get(this), "JournalOpen").start();
+        startupTrace.mark("pipeline");
+        mainHandler.postDelayed(pipelineStatsReporter, PIPELINE_STATS_INTERVAL_MS);
+        android.os.PowerManager pm = (android.os.PowerManager) getSystemService(POWER_SERVICE);
+        screenInteractive = pm == null || pm.isInteractive();
+        android.content.IntentFilter screenFilter = new android.content.IntentFilter(Intent.ACTION_SCREEN_OFF);
+        screenFilter.addAction(Intent.ACTION_SCREEN_ON);
+        registerReceiver(screenReceiver, screenFilter);
 
         // Load last chosen provider (default: Binance)
         marketProvider = readMarketProviderPref();
-        
-        // Prepare floating view but don't show yet
-        floatingView = LayoutInflater.from(this).inflate(R.layout.floating_widget, null);
-        container = floatingView.findViewById(R.id.floating_container);
-        itemsContainer = floatingView.findViewById(R.id.items_container);
+        feedOwner = marketProvider;
+        standbyEnabled = readStandbyPref();
+        spotRace = new StreamRace(client, readStreamEndpoints(this));
+        restoreQuotes();
+        startupTrace.mark("quotes-restored");
 
+        // The overlay is inflated on the first SHOW_WINDOW (ensureFloatingView), after the feed connects.
         params = new WindowManager.LayoutParams(
                 WindowManager.LayoutParams.WRAP_CONTENT,
                 WindowManager.LayoutParams.WRAP_CONTENT,
@@ -163,16 +404,77 @@ public class FloatingWindowService extends Service {
 
         windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
         // DO NOT add view here - wait for SHOW_WINDOW action
-        
-        // Setup ToneGenerator
+
+        // ToneGenerator is only a fallback for the audio engine; created on first use (playTone).
+        audioEngine = new AlertAudioEngine(this, this::getToneDurationMs);
+        new Thread(audioEngine::preload, "AlertAudioPreload").start();
+        soundScheduler.start();
+        startupTrace.mark("created");
+    }
+
+    private void setSymbols(java.util.List<String> received) {
+        String currentSymbol = (symbolList.size() > 0 && currentIndex < symbolList.size())
+            ? symbolList.get(currentIndex) : null;
+
+        symbolList = new java.util.ArrayList<>(received);
+        currentIndex = 0;
+        syncSparklines();
+
+        if (currentSymbol != null) {
+            int idx = symbolList.indexOf(currentSymbol);
+            if (idx >= 0) currentIndex = idx;
+        }
+        if (windowVisible) updateUI();
+        connectWebSockets();
+    }
+
+    // standbyFailover null leaves the current setting.
+    private void updateConfig(float fontSize, float opacity, boolean showSymbol, int itemsPerPage, Boolean standbyFailover) {
+        this.fontSize = fontSize;
+        this.opacity = opacity;
+        this.showSymbol = showSymbol;
+        this.itemsPerPage = itemsPerPage;
+        if (standbyFailover != null) applyStandbyFailover(standbyFailover);
+        applyConfig();
+        if (windowVisible) updateUI();
+    }
+
+    private void requestUpdate(boolean replay) {
+        android.util.Log.d(PERF_TAG, "requestUpdate at " + System.currentTimeMillis() +
+                " hasListener=" + (tickerListener != null) +
+                " symbolsCount=" + registry.symbolCount());
         try {
-            toneGenerator = new android.media.ToneGenerator(android.media.AudioManager.STREAM_ALARM, 100);
-        } catch (Exception e) {
-            e.printStackTrace();
+            getMarketDataProvider().requestImmediateUpdate();
+        } catch (Exception ignored) {}
+        // Callers that catch up via getQuotes() pass replay=false and only poke the provider.
+        if (replay && tickerListener != null) {
+            QuoteTable.Snapshot q = new QuoteTable.Snapshot();
+            for (int id = 0, n = registry.symbolCount(); id < n; id++) {
+                String symbol = registry.symbolName(id);
+                if (!shouldForwardToBridge(symbol) || !quotes.read(id, q)) continue;
+                tickerListener.onTickerUpdate(symbol, q.price, q.changePercent, q.version);
+            }
         }
+    }
+
+    // Any thread: both fields are volatile and only read by the delivery path.
+    private void setVisibleSymbols(java.util.List<String> symbols, boolean background) {
+        bridgeVisibleSymbols = symbols != null ? new java.util.HashSet<>(symbols) : null;
+        bridgeBackground = background;
+    }
 
-        // Setup touch listener for floating view
+    private void ensureFloatingView() {
+        if (floatingView != null) return;
+        floatingView = LayoutInflater.from(this).inflate(R.layout.floating_widget, null);
+        container = floatingView.findViewById(R.id.floating_container);
+        itemsContainer = floatingView.findViewById(R.id.items_container);
         setupTouchListener();
+        startupTrace.mark("overlay-inflated");
+    }
+
+    private com.google.gson.Gson gson() {
+        if (gson == null) gson = new com.google.gson.Gson();
+        return gson;
     }
 
     private String normalizeProvider(String v) {
@@ -198,16 +500,73 @@ public class FloatingWindowService extends Service {
         } catch (Exception ignored) {}
     }
 
+    private static String[] readStreamEndpoints(android.content.Context context) {
+        try {
+            String v = context.getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getString(PREF_STREAM_ENDPOINTS, null);
+            if (v != null && !v.trim().isEmpty()) return v.trim().split("\\s*,\\s*");
+        } catch (Exception ignored) {}
+        return StreamRace.DEFAULT_ENDPOINTS;
+    }
+
+    /** Endpoints the spot streams race over (empty restores the defaults); applies on the next service start. */
+    public static void saveStreamEndpoints(android.content.Context context, java.util.List<String> endpoints) {
+        StringBuilder sb = new StringBuilder();
+        for (String e : endpoints) {
+            if (e == null || !e.startsWith("wss://")) continue;
+            if (sb.length() > 0) sb.append(',');
+            sb.append(e.endsWith("/") ? e.substring(0, e.length() - 1) : e);
+        }
+        context.getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit().putString(PREF_STREAM_ENDPOINTS, sb.toString()).apply();
+    }
+
+    /** Per-endpoint race counters and latency histograms, or null when the service is not running. */
+    static java.util.List<StreamRace.Snapshot> streamRaceStats() {
+        FloatingWindowService svc = runningInstance;
+        return svc != null && svc.spotRace != null ? svc.spotRace.snapshot() : null;
+    }
+
+    private boolean readStandbyPref() {
+        try {
+            return getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getBoolean(PREF_STANDBY_FAILOVER, false);
+        } catch (Exception ignored) {
+            return false;
+        }
+    }
+
     private void resetMarketDataCaches() {
-        try { priceDataMap.clear(); } catch (Exception ignored) {}
-        try { rawPriceDataMap.clear(); } catch (Exception ignored) {}
-        try { lastTickerPriceBySymbol.clear(); } catch (Exception ignored) {}
-        try { lastLiveCloseByKlineKey.clear(); } catch (Exception ignored) {}
-        try { candleHistory.clear(); } catch (Exception ignored) {}
-        try { lastCandleTime.clear(); } catch (Exception ignored) {}
-        try { lastTriggeredAtMs.clear(); } catch (Exception ignored) {}
-        try { pendingDelayAlerts.clear(); } catch (Exception ignored) {}
+        quotes.clear();
+        tickerConflator.clear();
+        resetIdState();
+        for (AlertConfig a : alerts) {
+            if (a == null) continue;
+            // Timer handles and cooldowns belong to the symbol loop; reset them there.
+            eventLoops.execute(a.symbolId, () -> {
+                cancelDelayTimer(a);
+                a.lastTriggeredMs = 0L;
+            });
+        }
         try { candleDelayCounter.clear(); } catch (Exception ignored) {}
+        for (Sparkline sp : sparklineById) if (sp != null) sp.clear();
+        for (SparklineView v : sparklineViews.values()) v.invalidate();
+    }
+
+    // Ids stay assigned; only the state they index is reset.
+    private void resetIdState() {
+        java.util.Arrays.fill(lastTickerPriceById, Double.NaN);
+        java.util.Arrays.fill(lastTickerHighById, Double.NaN);
+        java.util.Arrays.fill(lastTickerLowById, Double.NaN);
+        java.util.Arrays.fill(lastCandleTimeBySeries, NO_CANDLE_TIME);
+        java.util.Arrays.fill(liveBarOpenBySeries, NO_CANDLE_TIME);
+        java.util.Arrays.fill(lastLiveCloseBySeries, Double.NaN);
+        for (CloseHistory h : historyBySeries) if (h != null) h.clear();
+    }
+
+    private int registerSeries(String symbol, String interval) {
+        int seriesId = registry.registerSeries(symbol, interval);
+        if (seriesId >= 0 && historyBySeries[seriesId] == null) {
+            historyBySeries[seriesId] = new CloseHistory();
+        }
+        return seriesId;
     }
 
     private MarketDataProvider getMarketDataProvider() {
@@ -227,7 +586,9 @@ public class FloatingWindowService extends Service {
     private void applyMarketProvider(String provider, boolean restartFeeds) {
         String next = normalizeProvider(provider);
         if (next.equals(marketProvider) && marketDataProvider != null) return;
+        stopStandby();
         marketProvider = next;
+        feedOwner = next;
         writeMarketProviderPref(marketProvider);
         if (marketDataProvider != null) {
             try { marketDataProvider.shutdown(); } catch (Exception ignored) {}
@@ -300,13 +661,13 @@ public class FloatingWindowService extends Service {
         android.util.Log.d(PERF_TAG, "onStartCommand at " + System.currentTimeMillis() +
                 " action=" + (intent != null ? intent.getAction() : "null"));
         if (intent == null) return START_STICKY;
-        
+        startupTrace.mark("start-intent");
+
         String action = intent.getAction();
-        String providerExtra = intent.getStringExtra(EXTRA_MARKET_PROVIDER);
-        if (providerExtra != null && !providerExtra.isEmpty() && !ACTION_CONFIG.equals(action)) {
+        if (!ACTION_CONFIG.equals(action)) {
             // Apply provider before handling action, but avoid auto-restarting feeds here since
             // some actions (START_DATA/SET_SYMBOLS) mutate the symbol list afterwards.
-            applyMarketProvider(providerExtra, false);
+            applyProviderExtra(intent.getStringExtra(EXTRA_MARKET_PROVIDER));
         }
         
         // Start data service (WebSocket) without showing window
@@ -314,6 +675,7 @@ public class FloatingWindowService extends Service {
             java.util.ArrayList<String> received = intent.getStringArrayListExtra(EXTRA_SYMBOL_LIST);
             if (received != null && !received.isEmpty()) {
                 symbolList = received;
+                syncSparklines();
                 connectWebSockets();
             }
             return START_STICKY;
@@ -322,12 +684,13 @@ public class FloatingWindowService extends Service {
         // Show floating window
         if (ACTION_SHOW_WINDOW.equals(action)) {
             if (!windowVisible && windowManager != null) {
-                windowManager.addView(floatingView, params);
-                windowVisible = true;
-                // Reconnect data feed if it was stopped while hidden
+                // Reconnect data feed if it was stopped while hidden; the handshake runs while we inflate.
                 if (spotWebSocket == null && futuresWebSocket == null) {
                     connectWebSockets();
                 }
+                ensureFloatingView();
+                windowManager.addView(floatingView, params);
+                windowVisible = true;
                 applyConfig();
                 updateUI();
             }
@@ -348,20 +711,7 @@ public class FloatingWindowService extends Service {
         
         if (ACTION_SET_SYMBOLS.equals(action)) {
             java.util.ArrayList<String> received = intent.getStringArrayListExtra(EXTRA_SYMBOL_LIST);
-            if (received != null) {
-                String currentSymbol = (symbolList.size() > 0 && currentIndex < symbolList.size()) 
-                    ? symbolList.get(currentIndex) : null;
-                
-                symbolList = received;
-                currentIndex = 0;
-                
-                if (currentSymbol != null) {
-                    int idx = symbolList.indexOf(currentSymbol);
-                    if (idx >= 0) currentIndex = idx;
-                }
-                if (windowVisible) updateUI();
-                connectWebSockets();
-            }
+            if (received != null) setSymbols(received);
             return START_STICKY;
         }
 
@@ -370,12 +720,10 @@ public class FloatingWindowService extends Service {
             if (provider != null && !provider.isEmpty()) {
                 applyMarketProvider(provider, true);
             }
-            fontSize = intent.getFloatExtra(EXTRA_FONT_SIZE, 14f);
-            opacity = intent.getFloatExtra(EXTRA_OPACITY, 0.85f);
-            showSymbol = intent.getBooleanExtra(EXTRA_SHOW_SYMBOL, true);
-            itemsPerPage = intent.getIntExtra(EXTRA_ITEMS_PER_PAGE, 1);
-            applyConfig();
-            if (windowVisible) updateUI();
+            Boolean standby = intent.hasExtra(EXTRA_STANDBY_FAILOVER)
+                    ? intent.getBooleanExtra(EXTRA_STANDBY_FAILOVER, false) : null;
+            updateConfig(intent.getFloatExtra(EXTRA_FONT_SIZE, 14f), intent.getFloatExtra(EXTRA_OPACITY, 0.85f),
+                    intent.getBooleanExtra(EXTRA_SHOW_SYMBOL, true), intent.getIntExtra(EXTRA_ITEMS_PER_PAGE, 1), standby);
             return START_STICKY;
         }
         
@@ -390,19 +738,17 @@ public class FloatingWindowService extends Service {
 
         // Request immediate update (replay last data)
         if (ACTION_REQUEST_UPDATE.equals(action)) {
-            android.util.Log.d(PERF_TAG, "ACTION_REQUEST_UPDATE at " + System.currentTimeMillis() +
-                    " hasListener=" + (tickerListener != null) +
-                    " symbolsCount=" + rawPriceDataMap.size());
-            try {
-                getMarketDataProvider().requestImmediateUpdate();
-            } catch (Exception ignored) {}
-            if (tickerListener != null && !rawPriceDataMap.isEmpty()) {
-                for (java.util.Map.Entry<String, double[]> entry : rawPriceDataMap.entrySet()) {
-                    String symbol = entry.getKey();
-                    double[] vals = entry.getValue();
-                    tickerListener.onTickerUpdate(symbol, vals[0], vals[1]);
-                }
-            }
+            requestUpdate(intent.getBooleanExtra(EXTRA_REPLAY, true));
+            return START_STICKY;
+        }
+
+        if (ACTION_SET_VISIBLE_SYMBOLS.equals(action)) {
+            setVisibleSymbols(intent.getStringArrayListExtra(EXTRA_SYMBOL_LIST), intent.getBooleanExtra(EXTRA_BACKGROUND, false));
+            return START_STICKY;
+        }
+
+        if (ACTION_LOW_POWER_POLL.equals(action)) {
+            runLowPowerPoll();
             return START_STICKY;
         }
 
@@ -417,9 +763,24 @@ public class FloatingWindowService extends Service {
     }
     
     private void connectWebSockets() {
+        startupTrace.mark("connect");
         getMarketDataProvider().startTicker(symbolList);
     }
 
+    // Registers watched symbols and keeps exactly one ring per watched id (rings survive list reorders).
+    private void syncSparklines() {
+        boolean[] watched = new boolean[SymbolRegistry.MAX_SYMBOLS];
+        for (String s : symbolList) {
+            int id = registry.registerSymbol(s);
+            if (id >= 0) watched[id] = true;
+        }
+        for (int id = 0; id < watched.length; id++) {
+            if (!watched[id]) sparklineById[id] = null;
+            else if (sparklineById[id] == null) sparklineById[id] = new Sparkline();
+        }
+        sparklineViews.keySet().retainAll(new java.util.HashSet<>(symbolList));
+    }
+
     private void stopWebSockets() {
         if (marketDataProvider != null) {
             marketDataProvider.stopTicker();
@@ -429,16 +790,18 @@ public class FloatingWindowService extends Service {
         }
     }
 
-    private void connectBinanceWebSocketsInternal() {
+    private void connectBinanceWebSocketsInternal(java.util.List<String> symbols) {
         // Close previous sockets
         if (spotWebSocket != null) { spotWebSocket.cancel(); spotWebSocket = null; }
         if (futuresWebSocket != null) { futuresWebSocket.cancel(); futuresWebSocket = null; }
 
-        if (symbolList.isEmpty()) return;
+        binanceTickerSymbols = symbols;
+        long seedGen = ++tickerSeedGen;
+        if (symbols.isEmpty()) return;
 
         java.util.List<String> spot = new java.util.ArrayList<>();
         java.util.List<String> futures = new java.util.ArrayList<>();
-        for (String s : symbolList) {
+        for (String s : symbols) {
             if (s == null) continue;
             if (s.toUpperCase().endsWith(".P")) futures.add(s);
             else spot.add(s);
@@ -450,19 +813,17 @@ public class FloatingWindowService extends Service {
                 streams.append(s.toLowerCase()).append("@miniTicker/");
             }
             if (streams.length() > 0) streams.setLength(streams.length() - 1);
-            String url = "wss://stream.binance.com:9443/stream?streams=" + streams.toString();
-
-            okhttp3.Request request = new okhttp3.Request.Builder().url(url).build();
-            spotWebSocket = client.newWebSocket(request, new okhttp3.WebSocketListener() {
+            spotWebSocket = spotRace.open("/stream?streams=" + streams.toString(), new okhttp3.WebSocketListener() {
                 @Override
                 public void onMessage(okhttp3.WebSocket webSocket, String text) {
-                    handleMessage(text, false);
+                    if (acceptFrame(PROVIDER_BINANCE)) tickerFrames.offer(text, FRAME_SPOT);
                 }
 
                 @Override
                 public void onFailure(okhttp3.WebSocket webSocket, Throwable t, okhttp3.Response response) {
+                    if (webSocket != spotWebSocket) return; // replaced or stopped
                     try { Thread.sleep(3000); } catch (InterruptedException ignored) {}
-                    connectWebSockets();
+                    if (webSocket == spotWebSocket) connectBinanceWebSocketsInternal(binanceTickerSymbols);
                 }
             });
         }
@@ -480,16 +841,194 @@ public class FloatingWindowService extends Service {
             futuresWebSocket = client.newWebSocket(request, new okhttp3.WebSocketListener() {
                 @Override
                 public void onMessage(okhttp3.WebSocket webSocket, String text) {
-                    handleMessage(text, true);
+                    if (acceptFrame(PROVIDER_BINANCE)) tickerFrames.offer(text, FRAME_FUTURES);
                 }
 
                 @Override
                 public void onFailure(okhttp3.WebSocket webSocket, Throwable t, okhttp3.Response response) {
+                    if (webSocket != futuresWebSocket) return; // replaced or stopped
                     try { Thread.sleep(3000); } catch (InterruptedException ignored) {}
-                    connectWebSockets();
+                    if (webSocket == futuresWebSocket) connectBinanceWebSocketsInternal(binanceTickerSymbols);
                 }
             });
         }
+
+        // The standby's sockets only prove it alive; it has no quotes to seed.
+        if (PROVIDER_BINANCE.equals(feedOwner)) seedBinanceQuotes(spot, futures, seedGen);
+    }
+
+    // ============================================
+    // REST SNAPSHOT RESEED
+    // ============================================
+
+    // Bumped on every (re)connect; a snapshot that comes back after a newer one started is dropped.
+    private volatile long tickerSeedGen = 0L;
+
+    // Guarded by seedLock: at most one seed is in flight; a (re)connect meanwhile parks its lists
+    // here and the in-flight seed runs them next, so a flapping socket can't stack requests.
+    private final Object seedLock = new Object();
+    private boolean seedInFlight = false;
+    private java.util.List<String> pendingSeedSpot;
+    private java.util.List<String> pendingSeedFutures;
+    private long pendingSeedGen;
+
+    private interface TickerRowsCallback {
+        /** rows is null if the request failed; code is the HTTP status, or 0 without a response. */
+        void onRows(int code, com.google.gson.JsonArray rows);
+    }
+
+    /**
+     * One batched 24h ticker request per market so every watched symbol shows a current price one
+     * round trip after a (re)connect, instead of whenever it next trades. Runs alongside the new
+     * sockets; the quote table keeps whichever of snapshot and frame is newer.
+     */
+    private void seedBinanceQuotes(java.util.List<String> spot, java.util.List<String> futures, long seedGen) {
+        synchronized (seedLock) {
+            if (seedInFlight) {
+                pendingSeedSpot = spot;
+                pendingSeedFutures = futures;
+                pendingSeedGen = seedGen;
+                return;
+            }
+            seedInFlight = true;
+        }
+        seedSpotQuotes(spot, futures, seedGen);
+    }
+
+    private void seedSpotQuotes(java.util.List<String> spot, java.util.List<String> futures, long seedGen) {
+        if (seedGen != tickerSeedGen) {
+            // Superseded by a newer (re)connect, which is waiting in the pending slot.
+            finishSeed();
+            return;
+        }
+        if (spot.isEmpty()) {
+            seedFuturesQuotes(futures, seedGen);
+            return;
+        }
+        java.util.Set<String> wanted = new java.util.HashSet<>();
+        StringBuilder names = new StringBuilder("[");
+        for (String s : spot) {
+            wanted.add(s.toUpperCase());
+            if (names.length() > 1) names.append(',');
+            names.append('"').append(s.toUpperCase()).append('"');
+        }
+        names.append(']');
+        String url;
+        try {
+            url = "https://api.binance.com/api/v3/ticker/24hr?type=MINI&symbols="
+                    + java.net.URLEncoder.encode(names.toString(), "UTF-8");
+        } catch (java.io.UnsupportedEncodingException e) {
+            seedFuturesQuotes(futures, seedGen);
+            return;
+        }
+        fetchTickerRows(url, (code, rows) -> {
+            if (code == java.net.HttpURLConnection.HTTP_BAD_REQUEST) {
+                // One delisted or mistyped symbol rejects the whole filtered request;
+                // take every spot ticker instead and keep only ours.
+                fetchTickerRows("https://api.binance.com/api/v3/ticker/24hr?type=MINI", (allCode, all) -> {
+                    try {
+                        if (all != null) applyTickerSnapshot(all, wanted, "", seedGen);
+                    } finally {
+                        seedFuturesQuotes(futures, seedGen);
+                    }
+                });
+                return;
+            }
+            try {
+                if (rows != null) applyTickerSnapshot(rows, null, "", seedGen);
+            } finally {
+                seedFuturesQuotes(futures, seedGen);
+            }
+        });
+    }
+
+    private void seedFuturesQuotes(java.util.List<String> futures, long seedGen) {
+        if (futures.isEmpty() || seedGen != tickerSeedGen) {
+            finishSeed();
+            return;
+        }
+        // No multi-symbol filter on futures: one unfiltered request beats one per symbol.
+        fetchTickerRows("https://fapi.binance.com/fapi/v1/ticker/24hr", (code, rows) -> {
+            try {
+                if (rows != null) applyTickerSnapshot(rows, new java.util.HashSet<>(futures), ".P", seedGen);
+            } finally {
+                finishSeed();
+            }
+        });
+    }
+
+    private void finishSeed() {
+        java.util.List<String> spot;
+        java.util.List<String> futures;
+        long seedGen;
+        synchronized (seedLock) {
+            spot = pendingSeedSpot;
+            futures = pendingSeedFutures;
+            seedGen = pendingSeedGen;
+            pendingSeedSpot = null;
+            pendingSeedFutures = null;
+            if (spot == null) {
+                seedInFlight = false;
+                return;
+            }
+        }
+        seedSpotQuotes(spot, futures, seedGen);
+    }
+
+    // Async on the shared client, so its connect/read timeouts bound every seed request.
+    private void fetchTickerRows(String url, TickerRowsCallback callback) {
+        client.newCall(new okhttp3.Request.Builder().url(url).build()).enqueue(new okhttp3.Callback() {
+            @Override
+            public void onFailure(okhttp3.Call call, java.io.IOException e) {
+                callback.onRows(0, null);
+            }
+
+            @Override
+            public void onResponse(okhttp3.Call call, okhttp3.Response response) {
+                int code = response.code();
+                com.google.gson.JsonArray rows = null;
+                try (okhttp3.Response r = response) {
+                    if (r.isSuccessful() && r.body() != null) {
+                        rows = com.google.gson.JsonParser.parseString(r.body().string()).getAsJsonArray();
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                callback.onRows(code, rows);
+            }
+        });
+    }
+
+    // Rows from an unfiltered request are filtered by wanted after appending suffix (futures
+    // rows are named without ".P"); a null wanted takes every row as named.
+    private void applyTickerSnapshot(com.google.gson.JsonArray rows, java.util.Set<String> wanted,
+                                     String suffix, long seedGen) {
+        for (com.google.gson.JsonElement el : rows) {
+            if (seedGen != tickerSeedGen || !PROVIDER_BINANCE.equals(feedOwner)) return;
+            com.google.gson.JsonObject o = el.getAsJsonObject();
+            String symbol = o.get("symbol").getAsString();
+            if (wanted != null) {
+                symbol = symbol + suffix;
+                if (!wanted.contains(symbol)) continue;
+            }
+            int symbolId = registry.findSymbol(symbol);
+            if (symbolId < 0) continue;
+            double price = o.get("lastPrice").getAsDouble();
+            double open = o.get("openPrice").getAsDouble();
+            double changePercent = open > 0 ? (price - open) / open * 100.0 : 0.0;
+            long version = quotes.seed(symbolId, price, changePercent, o.get("closeTime").getAsLong());
+            if (version > 0) publishQuote(symbol, price, changePercent, version);
+        }
+    }
+
+    private static com.google.gson.JsonArray fetchJsonArray(String urlStr) throws java.io.IOException {
+        java.net.URL url = new java.net.URL(urlStr);
+        StringBuilder sb = new StringBuilder();
+        try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.InputStreamReader(url.openStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) sb.append(line);
+        }
+        return com.google.gson.JsonParser.parseString(sb.toString()).getAsJsonArray();
     }
 
     private void stopBinanceWebSocketsInternal() {
@@ -510,6 +1049,7 @@ public class FloatingWindowService extends Service {
     private class BinanceMarketDataProvider implements MarketDataProvider {
         private String lastTickerKey = null;
         private String lastKlineKey = null;
+        private String lastTradeKey = null;
 
         @Override
         public String name() {
@@ -522,7 +1062,7 @@ public class FloatingWindowService extends Service {
             boolean shouldReconnect = (spotWebSocket == null && futuresWebSocket == null) || (lastTickerKey == null) || !lastTickerKey.equals(key);
             lastTickerKey = key;
             if (shouldReconnect) {
-                connectBinanceWebSocketsInternal();
+                connectBinanceWebSocketsInternal(symbols != null ? new java.util.ArrayList<>(symbols) : new java.util.ArrayList<>());
             }
         }
 
@@ -546,6 +1086,22 @@ public class FloatingWindowService extends Service {
             stopBinanceKlineInternal();
         }
 
+        @Override
+        public void startTrades(java.util.Set<String> symbols) {
+            String key = buildSymbolsKey(new java.util.ArrayList<>(symbols));
+            boolean shouldReconnect = (tradeWebSocket == null) || (lastTradeKey == null) || !lastTradeKey.equals(key);
+            lastTradeKey = key;
+            if (shouldReconnect) {
+                startBinanceTradesInternal(symbols);
+            }
+        }
+
+        @Override
+        public void stopTrades() {
+            lastTradeKey = null;
+            stopBinanceTradesInternal();
+        }
+
         @Override
         public void requestImmediateUpdate() {
             // No-op: ACTION_REQUEST_UPDATE already replays cached values.
@@ -555,6 +1111,7 @@ public class FloatingWindowService extends Service {
         public void shutdown() {
             stopTicker();
             stopKlines();
+            stopTrades();
         }
 
         private String buildSymbolsKey(java.util.List<String> symbols) {
@@ -576,6 +1133,42 @@ public class FloatingWindowService extends Service {
         }
     }
 
+    // Spot aggTrade streams feeding the trade-built candles; frames share the kline decode stage.
+    private void startBinanceTradesInternal(java.util.Set<String> symbols) {
+        stopBinanceTradesInternal();
+        java.util.List<String> streams = new java.util.ArrayList<>();
+        for (String symbol : symbols) {
+            if (symbol != null) streams.add(symbol.toLowerCase() + "@aggTrade");
+        }
+        if (streams.isEmpty()) return;
+
+        tradeWebSocket = spotRace.open("/stream?streams=" + String.join("/", streams), new okhttp3.WebSocketListener() {
+            @Override
+            public void onMessage(okhttp3.WebSocket webSocket, String text) {
+                tradeRetryAttempt = 0;
+                if (!acceptFrame(PROVIDER_BINANCE)) return;
+                lastKlineMessageMs = android.os.SystemClock.uptimeMillis();
+                klineFrames.offer(text, FRAME_TRADE);
+            }
+
+            @Override
+            public void onFailure(okhttp3.WebSocket webSocket, Throwable t, okhttp3.Response response) {
+                if (webSocket != tradeWebSocket) return;
+                tradeWebSocket = null;
+                long delay = (long) Math.min(30000, 5000 * Math.pow(2, Math.min(5, tradeRetryAttempt)));
+                tradeRetryAttempt++;
+                klineHandler.postDelayed(() -> connectKlineWebSocket(), delay);
+            }
+        });
+    }
+
+    private void stopBinanceTradesInternal() {
+        if (tradeWebSocket != null) {
+            try { tradeWebSocket.cancel(); } catch (Exception ignored) {}
+            tradeWebSocket = null;
+        }
+    }
+
     private void startBinanceKlinesInternal(java.util.Set<KlineSubscription> subs) {
         if (klineWebSocket != null) {
             try { klineWebSocket.cancel(); } catch (Exception ignored) {}
@@ -593,15 +1186,13 @@ public class FloatingWindowService extends Service {
         if (streams.isEmpty()) return;
 
         String streamPath = String.join("/", streams);
-        String url = "wss://stream.binance.com:9443/stream?streams=" + streamPath;
-
-        okhttp3.Request request = new okhttp3.Request.Builder().url(url).build();
-        klineWebSocket = client.newWebSocket(request, new okhttp3.WebSocketListener() {
+        klineWebSocket = spotRace.open("/stream?streams=" + streamPath, new okhttp3.WebSocketListener() {
             @Override
             public void onMessage(okhttp3.WebSocket webSocket, String text) {
-                lastKlineMessageMs = android.os.SystemClock.uptimeMillis();
                 klineRetryAttempt = 0;
-                handleKlineMessage(text);
+                if (!acceptFrame(PROVIDER_BINANCE)) return;
+                lastKlineMessageMs = android.os.SystemClock.uptimeMillis();
+                klineFrames.offer(text, FRAME_KLINE);
             }
 
             @Override
@@ -612,7 +1203,8 @@ public class FloatingWindowService extends Service {
             }
         });
 
-        fetchKlineHistory(streams);
+        // A standby taking over keeps the history built from the primary's candles.
+        if (PROVIDER_BINANCE.equals(marketProvider)) fetchKlineHistory(streams);
     }
 
     private class HyperliquidMarketDataProvider implements MarketDataProvider {
@@ -621,7 +1213,9 @@ public class FloatingWindowService extends Service {
         private final Object lock = new Object();
         private volatile boolean tickerRunning = false;
         private volatile boolean klineRunning = false;
+        private volatile boolean tradesRunning = false;
         private volatile java.util.List<String> symbols = new java.util.ArrayList<>();
+        private volatile java.util.Set<String> tradeSymbols = new java.util.HashSet<>();
         private volatile java.util.Set<KlineSubscription> subs = new java.util.HashSet<>();
         private volatile long serverTimeOffsetMs = 0L;
         private volatile long lastServerTimeSyncUptimeMs = 0L;
@@ -629,13 +1223,33 @@ public class FloatingWindowService extends Service {
         private okhttp3.WebSocket ws = null;
         private volatile boolean wsOpen = false;
         private int wsRetryAttempt = 0;
-        private final java.util.Map<String, java.util.List<String>> tickerEmitSymbolsByCoin = new java.util.concurrent.ConcurrentHashMap<>();
-        private final java.util.Map<String, java.util.List<String>> candleEmitSymbolsByCoinInterval = new java.util.concurrent.ConcurrentHashMap<>();
-        private final java.util.Map<String, Long> lastOpenTimeByCoinInterval = new java.util.concurrent.ConcurrentHashMap<>();
-        private final java.util.Map<String, Double> lastCloseByCoinInterval = new java.util.concurrent.ConcurrentHashMap<>();
-        private final java.util.Set<String> backfillInFlight = java.util.Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>());
+        // Coins get stable ids; (coin, interval) state lives at slot = coinId * MAX_INTERVALS + intervalIdx.
+        private static final int HL_MAX_COINS = 256;
+        private static final String HL_KEY_CHANNEL = "\"channel\":\"";
+        private static final String HL_KEY_COIN = "\"coin\":\"";
+        private static final String HL_KEY_PX = "\"px\":\"";
+        private static final String HL_KEY_TIME = "\"time\":";
+        private static final String HL_CHANNEL_CANDLE = "candle";
+        private static final String HL_CHANNEL_TRADES = "trades";
+        private static final String HL_CHANNEL_TICKER = "ticker";
+        private final SymbolRegistry.NameTable coinIds = new SymbolRegistry.NameTable();
+        private final String[] coinNames = new String[HL_MAX_COINS];
+        private int coinCount = 0;
+        private volatile int[][] tickerEmitIdsByCoin = new int[HL_MAX_COINS][];
+        private volatile int[][] candleEmitSeriesBySlot = new int[HL_MAX_COINS * SymbolRegistry.MAX_INTERVALS][];
+        private volatile int[][] tradeEmitIdsByCoin = new int[HL_MAX_COINS][];
+        private final long[] lastOpenTimeBySlot = new long[HL_MAX_COINS * SymbolRegistry.MAX_INTERVALS];
+        private final double[] lastCloseBySlot = new double[HL_MAX_COINS * SymbolRegistry.MAX_INTERVALS];
+        private final long[] intervalMsByIdx = new long[SymbolRegistry.MAX_INTERVALS];
+        private final java.util.Set<Integer> backfillInFlight = java.util.Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>());
+
+        HyperliquidMarketDataProvider() {
+            java.util.Arrays.fill(lastOpenTimeBySlot, NO_CANDLE_TIME);
+            java.util.Arrays.fill(lastCloseBySlot, Double.NaN);
+        }
         private String lastTickerKey = null;
         private String lastKlineKey = null;
+        private String lastTradeKey = null;
 
         @Override
         public String name() {
@@ -662,7 +1276,7 @@ public class FloatingWindowService extends Service {
         public void stopTicker() {
             synchronized (lock) {
                 tickerRunning = false;
-                if (!klineRunning) {
+                if (!klineRunning && !tradesRunning) {
                     closeWebSocket("stopTicker");
                 } else {
                     restartWebSocket();
@@ -698,8 +1312,9 @@ public class FloatingWindowService extends Service {
         @Override
         public void stopKlines() {
             synchronized (lock) {
+                if (!klineRunning) return;
                 klineRunning = false;
-                if (!tickerRunning) {
+                if (!tickerRunning && !tradesRunning) {
                     closeWebSocket("stopKlines");
                 } else {
                     restartWebSocket();
@@ -707,6 +1322,36 @@ public class FloatingWindowService extends Service {
             }
         }
 
+        @Override
+        public void startTrades(java.util.Set<String> symbols) {
+            synchronized (lock) {
+                this.tradeSymbols = symbols != null ? new java.util.HashSet<>(symbols) : new java.util.HashSet<>();
+                tradesRunning = true;
+                String key = buildSymbolsKey(new java.util.ArrayList<>(this.tradeSymbols));
+                boolean changed = lastTradeKey == null || !lastTradeKey.equals(key);
+                lastTradeKey = key;
+                if (changed) {
+                    restartWebSocket();
+                } else {
+                    ensureWebSocket();
+                }
+            }
+        }
+
+        @Override
+        public void stopTrades() {
+            synchronized (lock) {
+                if (!tradesRunning) return;
+                tradesRunning = false;
+                lastTradeKey = null;
+                if (!tickerRunning && !klineRunning) {
+                    closeWebSocket("stopTrades");
+                } else {
+                    restartWebSocket();
+                }
+            }
+        }
+
         @Override
         public void requestImmediateUpdate() {
             ensureWebSocket();
@@ -728,11 +1373,12 @@ public class FloatingWindowService extends Service {
         public void shutdown() {
             stopTicker();
             stopKlines();
+            stopTrades();
         }
 
         private void ensureWebSocket() {
             synchronized (lock) {
-                if (!tickerRunning && !klineRunning) return;
+                if (!tickerRunning && !klineRunning && !tradesRunning) return;
                 if (ws != null && wsOpen) return;
                 restartWebSocket();
             }
@@ -768,27 +1414,7 @@ public class FloatingWindowService extends Service {
 
                 @Override
                 public void onMessage(okhttp3.WebSocket webSocket, String text) {
-                    try {
-                        com.google.gson.JsonObject msg = com.google.gson.JsonParser.parseString(text).getAsJsonObject();
-                        if (!msg.has("channel")) return;
-                        String channel = msg.get("channel").getAsString();
-                        if ("subscriptionResponse".equals(channel)) return;
-                        if (!msg.has("data")) return;
-                        com.google.gson.JsonElement dataEl = msg.get("data");
-                        if ("candle".equals(channel) && dataEl.isJsonObject()) {
-                            handleCandleWs(dataEl.getAsJsonObject());
-                        } else if ("ticker".equals(channel)) {
-                            if (dataEl.isJsonObject()) {
-                                handleTickerWs(dataEl.getAsJsonObject());
-                            } else if (dataEl.isJsonArray()) {
-                                com.google.gson.JsonArray arr = dataEl.getAsJsonArray();
-                                for (int i = 0; i < arr.size(); i++) {
-                                    com.google.gson.JsonElement el = arr.get(i);
-                                    if (el != null && el.isJsonObject()) handleTickerWs(el.getAsJsonObject());
-                                }
-                            }
-                        }
-                    } catch (Exception ignored) {}
+                    if (acceptFrame(PROVIDER_HYPERLIQUID)) klineFrames.offer(text, FRAME_HYPERLIQUID);
                 }
 
                 @Override
@@ -800,17 +1426,87 @@ public class FloatingWindowService extends Service {
                 @Override
                 public void onClosed(okhttp3.WebSocket webSocket, int code, String reason) {
                     wsOpen = false;
-                    if (tickerRunning || klineRunning) scheduleReconnect();
+                    if (tickerRunning || klineRunning || tradesRunning) scheduleReconnect();
                 }
             });
         }
 
-        private void scheduleReconnect() {
-            if (!tickerRunning && !klineRunning) return;
-            long delay = (long) Math.min(30000, 1000 * Math.pow(2, Math.min(6, wsRetryAttempt)));
+        // Runs on the decode stage. Candle and trade frames are read in place like Binance frames
+        // (coin/interval resolve through region lookups); only the loosely shaped ticker channel
+        // still goes through a Gson tree.
+        void handleFrame(String text) {
+            try {
+                int chStart = BinanceFrameDecoder.valueStart(text, HL_KEY_CHANNEL, 0);
+                if (chStart < 0) return;
+                int data = text.indexOf(BinanceFrameDecoder.KEY_DATA, chStart);
+                if (data < 0) return;
+                if (BinanceFrameDecoder.stringEquals(text, chStart, HL_CHANNEL_CANDLE)) {
+                    decodeCandle(text, data);
+                } else if (BinanceFrameDecoder.stringEquals(text, chStart, HL_CHANNEL_TRADES)) {
+                    decodeTrades(text, data);
+                } else if (BinanceFrameDecoder.stringEquals(text, chStart, HL_CHANNEL_TICKER)) {
+                    com.google.gson.JsonElement dataEl = com.google.gson.JsonParser.parseString(text).getAsJsonObject().get("data");
+                    if (dataEl == null) return;
+                    if (dataEl.isJsonObject()) {
+                        handleTickerWs(dataEl.getAsJsonObject());
+                    } else if (dataEl.isJsonArray()) {
+                        com.google.gson.JsonArray arr = dataEl.getAsJsonArray();
+                        for (int i = 0; i < arr.size(); i++) {
+                            com.google.gson.JsonElement el = arr.get(i);
+                            if (el != null && el.isJsonObject()) handleTickerWs(el.getAsJsonObject());
+                        }
+                    }
+                }
+            } catch (Exception ignored) {}
+        }
+
+        // {"s":"BTC","i":"1m","t":<open>,"c":"..","h":"..","l":"..",...}
+        private void decodeCandle(String text, int data) {
+            int coinStart = BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_SYMBOL, data);
+            int coinEnd = BinanceFrameDecoder.stringEnd(text, coinStart);
+            int ivStart = BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_INTERVAL, data);
+            int ivEnd = BinanceFrameDecoder.stringEnd(text, ivStart);
+            if (coinEnd < 0 || ivEnd < 0) return;
+            int intervalIdx = registry.findInterval(text, ivStart, ivEnd);
+            int slot = slotOf(coinIds.find(text, coinStart, coinEnd), intervalIdx);
+            if (slot < 0) return;
+            long openTime = BinanceFrameDecoder.parseLong(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_OPEN_TIME, data));
+            if (openTime == Long.MIN_VALUE) return;
+            double close = BinanceFrameDecoder.parseDecimal(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_CLOSE, data));
+            if (Double.isNaN(close)) return;
+            double high = BinanceFrameDecoder.parseDecimal(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_HIGH, data));
+            double low = BinanceFrameDecoder.parseDecimal(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_LOW, data));
+            onCandle(slot, intervalIdx, openTime, close, high, low);
+        }
+
+        // [{"coin":"BTC","side":"B","px":"..","sz":"..","hash":"..","time":<ms>,...},...]
+        private void decodeTrades(String text, int data) {
+            int coinStart = BinanceFrameDecoder.valueStart(text, HL_KEY_COIN, data);
+            while (coinStart >= 0) {
+                int coinEnd = BinanceFrameDecoder.stringEnd(text, coinStart);
+                if (coinEnd < 0) return;
+                // Each trade's fields are read only up to the next trade's coin.
+                int next = BinanceFrameDecoder.valueStart(text, HL_KEY_COIN, coinEnd);
+                int limit = next < 0 ? text.length() : next;
+                int pxStart = BinanceFrameDecoder.valueStart(text, HL_KEY_PX, coinEnd);
+                int timeStart = BinanceFrameDecoder.valueStart(text, HL_KEY_TIME, coinEnd);
+                if (pxStart >= 0 && pxStart < limit && timeStart >= 0 && timeStart < limit) {
+                    double price = BinanceFrameDecoder.parseDecimal(text, pxStart);
+                    long tradeTimeMs = BinanceFrameDecoder.parseLong(text, timeStart);
+                    if (!Double.isNaN(price) && price > 0 && tradeTimeMs != Long.MIN_VALUE) {
+                        onTrade(coinIds.find(text, coinStart, coinEnd), price, tradeTimeMs);
+                    }
+                }
+                coinStart = next;
+            }
+        }
+
+        private void scheduleReconnect() {
+            if (!tickerRunning && !klineRunning && !tradesRunning) return;
+            long delay = (long) Math.min(30000, 1000 * Math.pow(2, Math.min(6, wsRetryAttempt)));
             wsRetryAttempt++;
             mainHandler.postDelayed(() -> {
-                if (!tickerRunning && !klineRunning) return;
+                if (!tickerRunning && !klineRunning && !tradesRunning) return;
                 restartWebSocket();
             }, delay);
         }
@@ -825,18 +1521,43 @@ public class FloatingWindowService extends Service {
             wsOpen = false;
         }
 
+        private int coinId(String coin) {
+            synchronized (coinNames) {
+                int id = coinIds.find(coin, 0, coin.length());
+                if (id >= 0 || coinCount >= HL_MAX_COINS) return id;
+                id = coinCount++;
+                coinNames[id] = coin;
+                coinIds.put(coin, id);
+                return id;
+            }
+        }
+
+        private int slotOf(int coinId, int intervalIdx) {
+            if (coinId < 0 || intervalIdx < 0) return -1;
+            return coinId * SymbolRegistry.MAX_INTERVALS + intervalIdx;
+        }
+
+        private int[] appendId(int[] ids, int id) {
+            if (ids == null) return new int[] { id };
+            for (int v : ids) if (v == id) return ids;
+            int[] next = java.util.Arrays.copyOf(ids, ids.length + 1);
+            next[ids.length] = id;
+            return next;
+        }
+
         private void buildEmitMaps() {
-            tickerEmitSymbolsByCoin.clear();
-            candleEmitSymbolsByCoinInterval.clear();
+            int[][] tickerIds = new int[HL_MAX_COINS][];
+            int[][] candleIds = new int[HL_MAX_COINS * SymbolRegistry.MAX_INTERVALS][];
+            int[][] tradeIds = new int[HL_MAX_COINS][];
 
             if (tickerRunning) {
                 for (String sym : symbols) {
                     String coin = mapToHlCoin(sym);
                     if (coin == null) continue;
-                    java.util.List<String> list = tickerEmitSymbolsByCoin.get(coin);
-                    if (list == null) list = new java.util.ArrayList<>();
-                    list.add(sym);
-                    tickerEmitSymbolsByCoin.put(coin, list);
+                    int coinId = coinId(coin);
+                    int symbolId = registry.registerSymbol(sym);
+                    if (coinId < 0 || symbolId < 0) continue;
+                    tickerIds[coinId] = appendId(tickerIds[coinId], symbolId);
                 }
             }
             if (klineRunning) {
@@ -844,34 +1565,57 @@ public class FloatingWindowService extends Service {
                     if (sub == null || sub.symbol == null || sub.interval == null) continue;
                     String coin = mapToHlCoin(sub.symbol);
                     if (coin == null) continue;
-                    String key = coin + "_" + sub.interval;
-                    java.util.List<String> list = candleEmitSymbolsByCoinInterval.get(key);
-                    if (list == null) list = new java.util.ArrayList<>();
-                    list.add(sub.symbol);
-                    candleEmitSymbolsByCoinInterval.put(key, list);
+                    int seriesId = registerSeries(sub.symbol, sub.interval);
+                    int slot = slotOf(coinId(coin), registry.seriesInterval(seriesId));
+                    if (seriesId < 0 || slot < 0) continue;
+                    candleIds[slot] = appendId(candleIds[slot], seriesId);
+                }
+            }
+            if (tradesRunning) {
+                for (String sym : tradeSymbols) {
+                    String coin = mapToHlCoin(sym);
+                    if (coin == null) continue;
+                    int coinId = coinId(coin);
+                    int symbolId = registry.registerSymbol(sym);
+                    if (coinId < 0 || symbolId < 0) continue;
+                    tradeIds[coinId] = appendId(tradeIds[coinId], symbolId);
                 }
             }
+            tickerEmitIdsByCoin = tickerIds;
+            candleEmitSeriesBySlot = candleIds;
+            tradeEmitIdsByCoin = tradeIds;
         }
 
         private void sendSubscriptions() {
             if (ws == null) return;
             try {
                 if (tickerRunning) {
-                    for (String coin : tickerEmitSymbolsByCoin.keySet()) {
+                    int[][] tickerIds = tickerEmitIdsByCoin;
+                    for (int coinId = 0; coinId < tickerIds.length; coinId++) {
+                        if (tickerIds[coinId] == null) continue;
+                        String coin = coinNames[coinId];
                         String payload = "{\"method\":\"subscribe\",\"subscription\":{\"type\":\"ticker\",\"coin\":\"" + coin + "\"}}";
                         ws.send(payload);
                     }
                 }
                 if (klineRunning) {
-                    for (String key : candleEmitSymbolsByCoinInterval.keySet()) {
-                        String[] parts = key.split("_", 2);
-                        if (parts.length != 2) continue;
-                        String coin = parts[0];
-                        String interval = parts[1];
+                    int[][] candleIds = candleEmitSeriesBySlot;
+                    for (int slot = 0; slot < candleIds.length; slot++) {
+                        if (candleIds[slot] == null) continue;
+                        String coin = coinNames[slot / SymbolRegistry.MAX_INTERVALS];
+                        String interval = registry.intervalName(slot % SymbolRegistry.MAX_INTERVALS);
                         String payload = "{\"method\":\"subscribe\",\"subscription\":{\"type\":\"candle\",\"coin\":\"" + coin + "\",\"interval\":\"" + interval + "\"}}";
                         ws.send(payload);
                     }
                 }
+                if (tradesRunning) {
+                    int[][] tradeIds = tradeEmitIdsByCoin;
+                    for (int coinId = 0; coinId < tradeIds.length; coinId++) {
+                        if (tradeIds[coinId] == null) continue;
+                        String payload = "{\"method\":\"subscribe\",\"subscription\":{\"type\":\"trades\",\"coin\":\"" + coinNames[coinId] + "\"}}";
+                        ws.send(payload);
+                    }
+                }
             } catch (Exception ignored) {}
         }
 
@@ -956,62 +1700,68 @@ public class FloatingWindowService extends Service {
                 if (!Double.isNaN(open) && open > 0) changePercent = ((price - open) / open) * 100.0;
             }
             if (Double.isNaN(changePercent)) changePercent = 0.0;
+            long eventTimeMs = System.currentTimeMillis();
 
-            java.util.List<String> emit = tickerEmitSymbolsByCoin.get(coin);
+            int coinId = coinIds.find(coin, 0, coin.length());
+            if (coinId < 0) return;
+            int[] emit = tickerEmitIdsByCoin[coinId];
             if (emit == null) return;
-            for (String sym : emit) {
-                handleTickerEvent(sym, price, changePercent);
+            for (int symbolId : emit) {
+                eventLoops.postTicker(symbolId, price, changePercent, Double.NaN, Double.NaN, eventTimeMs);
             }
         }
 
-        private void handleCandleWs(com.google.gson.JsonObject data) {
-            if (!data.has("s") || !data.has("i") || !data.has("t")) return;
-            String coin = data.get("s").getAsString();
-            String interval = data.get("i").getAsString();
-            long openTime = data.get("t").getAsLong();
-            double close = data.has("c") ? parseDoubleSafe(data.get("c")) : Double.NaN;
-            if (Double.isNaN(close)) return;
+        private void onTrade(int coinId, double price, long tradeTimeMs) {
+            if (coinId < 0) return;
+            int[] emit = tradeEmitIdsByCoin[coinId];
+            if (emit == null) return;
+            for (int symbolId : emit) {
+                eventLoops.postTrade(symbolId, price, tradeTimeMs);
+            }
+        }
 
-            String key = coin + "_" + interval;
-            java.util.List<String> emit = candleEmitSymbolsByCoinInterval.get(key);
-            if (emit == null || emit.isEmpty()) return;
+        private void onCandle(int slot, int intervalIdx, long openTime, double close, double high, double low) {
+            int[] emit = candleEmitSeriesBySlot[slot];
+            if (emit == null) return;
 
-            long intervalMs = intervalToMs(interval);
-            Long lastOpen = lastOpenTimeByCoinInterval.get(key);
-            Double lastClose = lastCloseByCoinInterval.get(key);
+            String interval = registry.intervalName(intervalIdx);
+            long intervalMs = intervalMsByIdx[intervalIdx];
+            if (intervalMs == 0L) intervalMsByIdx[intervalIdx] = intervalMs = intervalToMs(interval);
+            long lastOpen = lastOpenTimeBySlot[slot];
+            double lastClose = lastCloseBySlot[slot];
 
-            if (lastOpen != null && openTime > lastOpen) {
+            if (lastOpen != NO_CANDLE_TIME && openTime > lastOpen) {
                 // If we skipped more than one candle, backfill the gap.
                 if (openTime - lastOpen > intervalMs * 2L) {
-                    backfillGapCandles(coin, interval, lastOpen, openTime);
-                } else if (lastClose != null && !Double.isNaN(lastClose)) {
+                    backfillGapCandles(slot, interval, lastOpen, openTime);
+                } else if (!Double.isNaN(lastClose)) {
                     // Finalize previous candle close at boundary.
-                    for (String sym : emit) {
-                        handleKlineEvent(sym, interval, lastClose, true, lastOpen);
+                    for (int seriesId : emit) {
+                        postKlineEvent(seriesId, lastClose, true, lastOpen);
                     }
                 }
             }
 
-            lastOpenTimeByCoinInterval.put(key, openTime);
-            lastCloseByCoinInterval.put(key, close);
+            lastOpenTimeBySlot[slot] = openTime;
+            lastCloseBySlot[slot] = close;
             // Live update for current candle (not closed).
-            for (String sym : emit) {
-                handleKlineEvent(sym, interval, close, false, openTime);
+            for (int seriesId : emit) {
+                postKlineEvent(seriesId, close, high, low, false, openTime);
             }
         }
 
-        private void backfillGapCandles(String coin, String interval, long lastOpenTime, long newOpenTime) {
-            String key = coin + "_" + interval;
-            if (!backfillInFlight.add(key)) return;
+        private void backfillGapCandles(int slot, String interval, long lastOpenTime, long newOpenTime) {
+            if (!backfillInFlight.add(slot)) return;
             new Thread(() -> {
                 try {
                     try { syncServerTimeIfNeeded(false); } catch (Exception ignored) {}
                     long start = lastOpenTime + intervalToMs(interval);
                     long end = newOpenTime + 1000L;
                     // We need a representative original symbol to map coin for HTTP snapshot.
-                    java.util.List<String> emitSyms = candleEmitSymbolsByCoinInterval.get(key);
-                    if (emitSyms == null || emitSyms.isEmpty()) return;
-                    String rep = emitSyms.get(0);
+                    int[] emitIds = candleEmitSeriesBySlot[slot];
+                    if (emitIds == null) return;
+                    String rep = registry.symbolName(registry.seriesSymbol(emitIds[0]));
+                    if (rep == null) return;
                     java.util.List<Candle> candles = fetchCandleSnapshot(rep, interval, start, end);
                     if (candles == null || candles.isEmpty()) return;
                     candles.sort((a, b) -> Long.compare(a.openTimeMs, b.openTimeMs));
@@ -1022,16 +1772,16 @@ public class FloatingWindowService extends Service {
                         if (cd.openTimeMs >= newOpenTime) break;
                         // only treat as closed if the server time is beyond its close bound
                         if (now >= cd.closeTimeMs) {
-                            java.util.List<String> emit = candleEmitSymbolsByCoinInterval.get(key);
+                            int[] emit = candleEmitSeriesBySlot[slot];
                             if (emit == null) break;
-                            for (String sym : emit) {
-                                handleKlineEvent(sym, interval, cd.close, true, cd.openTimeMs);
+                            for (int seriesId : emit) {
+                                postKlineEvent(seriesId, cd.close, true, cd.openTimeMs);
                             }
                         }
                     }
                 } catch (Exception ignored) {
                 } finally {
-                    backfillInFlight.remove(key);
+                    backfillInFlight.remove(slot);
                 }
             }, "HL-BackfillGap").start();
         }
@@ -1042,11 +1792,13 @@ public class FloatingWindowService extends Service {
                 try { syncServerTimeIfNeeded(false); } catch (Exception ignored) {}
                 String coin = mapToHlCoin(sub.symbol);
                 if (coin == null) return;
-                String key = coin + "_" + sub.interval;
+                int seriesId = registerSeries(sub.symbol, sub.interval);
+                if (seriesId < 0) return;
+                int slot = slotOf(coinIds.find(coin, 0, coin.length()), registry.seriesInterval(seriesId));
                 long intervalMs = intervalToMs(sub.interval);
-                Long lastOpen = lastOpenTimeByCoinInterval.get(key);
+                long lastOpen = slot >= 0 ? lastOpenTimeBySlot[slot] : NO_CANDLE_TIME;
                 long now = serverNowMs();
-                long start = (lastOpen != null ? lastOpen : now - intervalMs * 5L) - intervalMs * 2L;
+                long start = (lastOpen != NO_CANDLE_TIME ? lastOpen : now - intervalMs * 5L) - intervalMs * 2L;
                 long end = now + 1000L;
                 java.util.List<Candle> candles = fetchCandleSnapshot(sub.symbol, sub.interval, start, end);
                 if (candles == null || candles.isEmpty()) return;
@@ -1054,15 +1806,15 @@ public class FloatingWindowService extends Service {
                 for (Candle cd : candles) {
                     if (cd == null) continue;
                     if (now >= cd.closeTimeMs) {
-                        handleKlineEvent(sub.symbol, sub.interval, cd.close, true, cd.openTimeMs);
+                        postKlineEvent(seriesId, cd.close, true, cd.openTimeMs);
                     }
                 }
             } catch (Exception ignored) {}
         }
 
         private void ensureHistoryInitialized(KlineSubscription sub) {
-            String key = sub.symbol + "_" + sub.interval;
-            if (candleHistory.containsKey(key) && candleHistory.get(key) != null && !candleHistory.get(key).isEmpty()) return;
+            int seriesId = registerSeries(sub.symbol, sub.interval);
+            if (seriesId < 0 || !historyBySeries[seriesId].isEmpty()) return;
             try {
                 try { syncServerTimeIfNeeded(false); } catch (Exception ignored) {}
                 long intervalMs = intervalToMs(sub.interval);
@@ -1071,20 +1823,17 @@ public class FloatingWindowService extends Service {
                 java.util.List<Candle> candles = fetchCandleSnapshot(sub.symbol, sub.interval, start, end);
                 if (candles == null || candles.isEmpty()) return;
                 long now = serverNowMs();
-                java.util.List<Double> closes = new java.util.ArrayList<>();
+                double[] closes = new double[candles.size()];
+                int n = 0;
                 long lastClosedOpen = -1L;
                 for (Candle cd : candles) {
                     if (cd == null) continue;
                     if (now >= cd.closeTimeMs) {
-                        closes.add(cd.close);
+                        closes[n++] = cd.close;
                         lastClosedOpen = cd.openTimeMs;
                     }
                 }
-                if (!closes.isEmpty()) {
-                    if (closes.size() > 100) closes = closes.subList(closes.size() - 100, closes.size());
-                    candleHistory.put(key, new java.util.ArrayList<>(closes));
-                    if (lastClosedOpen > 0) lastCandleTime.put(key, lastClosedOpen);
-                }
+                if (n > 0) postHistory(seriesId, closes, 0, n, lastClosedOpen);
             } catch (Exception ignored) {}
         }
 
@@ -1150,53 +1899,233 @@ public class FloatingWindowService extends Service {
     
     // Static listener for ticker updates (used by Plugin)
     public interface TickerUpdateListener {
-        void onTickerUpdate(String symbol, double price, double changePercent);
+        void onTickerUpdate(String symbol, double price, double changePercent, long version);
     }
     
     private static TickerUpdateListener tickerListener;
+    private static volatile FloatingWindowService runningInstance;
     
     public static void setTickerListener(TickerUpdateListener listener) {
         tickerListener = listener;
     }
+
+    // Static listener for alert triggers (used by Plugin); called on the alert dispatcher thread
+    public interface AlertTriggerListener {
+        void onAlertTriggered(long seq, String alertId, String symbol, long timeMs, double price, double target, String provider);
+    }
+
+    private static volatile AlertTriggerListener alertTriggerListener;
+
+    public static void setAlertTriggerListener(AlertTriggerListener listener) {
+        alertTriggerListener = listener;
+    }
+
+    public static class QuoteUpdate {
+        public final String symbol;
+        public final double price;
+        public final double changePercent;
+        public final long version;
+        public final long updatedAtMs;
+        public final boolean stale;
+
+        QuoteUpdate(String symbol, double price, double changePercent, long version, long updatedAtMs, boolean stale) {
+            this.symbol = symbol;
+            this.price = price;
+            this.changePercent = changePercent;
+            this.version = version;
+            this.updatedAtMs = updatedAtMs;
+            this.stale = stale;
+        }
+    }
+
+    /**
+     * Collects quotes whose version is newer than sinceVersion into out and returns the current
+     * version (pass it back next time, with the epoch stored in epochOut[0]). Returns -1 when the
+     * service is not running. Versions only compare within one service instance: an epoch other
+     * than this instance's (service restarted) yields a full snapshot.
+     */
+    public static long collectQuotesSince(long epoch, long sinceVersion, java.util.List<QuoteUpdate> out, long[] epochOut) {
+        FloatingWindowService svc = runningInstance;
+        if (svc == null) return -1L;
+        long current = svc.quotes.currentVersion();
+        long since = epoch != svc.quoteEpoch || sinceVersion > current ? 0L : sinceVersion;
+        epochOut[0] = svc.quoteEpoch;
+        QuoteTable.Snapshot q = new QuoteTable.Snapshot();
+        for (int id = 0, n = svc.registry.symbolCount(); id < n; id++) {
+            if (!svc.quotes.read(id, q) || q.version <= since) continue;
+            out.add(new QuoteUpdate(svc.registry.symbolName(id), q.price, q.changePercent, q.version, q.eventTimeMs, q.stale));
+        }
+        return current;
+    }
     
+    // Decode stage: frame text -> ids + numbers, posted to the owning symbol loop.
+    private void decodeFrame(String text, int source) {
+        switch (source) {
+            case FRAME_SPOT:
+                handleMessage(text, false);
+                break;
+            case FRAME_FUTURES:
+                handleMessage(text, true);
+                break;
+            case FRAME_KLINE:
+                handleKlineMessage(text);
+                break;
+            case FRAME_TRADE:
+                handleTradeMessage(text);
+                break;
+            case FRAME_HYPERLIQUID: {
+                // Frames from a provider that has since been swapped out are dropped here.
+                MarketDataProvider p = PROVIDER_HYPERLIQUID.equals(marketProvider) ? marketDataProvider : standbyProvider;
+                if (p instanceof HyperliquidMarketDataProvider) ((HyperliquidMarketDataProvider) p).handleFrame(text);
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    // ============================================
+    // QUOTE CHECKPOINT (main thread)
+    // ============================================
+
+    private static final long QUOTE_CHECKPOINT_INTERVAL_MS = 10_000L;
+    private QuoteCheckpoint quoteCheckpoint;
+    // Quote table version at the last save; nothing new since means nothing to write.
+    private long checkpointedVersion = 0L;
+
+    // Fills the quote table with the last run's values (read as stale) before any socket opens.
+    private void restoreQuotes() {
+        quoteCheckpoint = QuoteCheckpoint.open(this);
+        if (quoteCheckpoint == null) return;
+        for (QuoteCheckpoint.Row r : quoteCheckpoint.load(TriggerJournal.providerCode(marketProvider))) {
+            quotes.restore(registry.registerSymbol(r.symbol), r.price, r.changePercent, r.eventTimeMs);
+        }
+        checkpointedVersion = quotes.currentVersion();
+        mainHandler.postDelayed(quoteCheckpointer, QUOTE_CHECKPOINT_INTERVAL_MS);
+    }
+
+    private void checkpointQuotes() {
+        long version = quotes.currentVersion();
+        // An empty list is a service that hasn't been told its symbols yet, not one with none.
+        if (quoteCheckpoint == null || version == checkpointedVersion || symbolList.isEmpty()) return;
+        java.util.List<QuoteCheckpoint.Row> rows = new java.util.ArrayList<>();
+        QuoteTable.Snapshot q = new QuoteTable.Snapshot();
+        for (String symbol : symbolList) {
+            if (!quotes.read(registry.findSymbol(symbol), q)) continue;
+            QuoteCheckpoint.Row r = new QuoteCheckpoint.Row();
+            r.symbol = symbol;
+            r.price = q.price;
+            r.changePercent = q.changePercent;
+            r.eventTimeMs = q.eventTimeMs;
+            rows.add(r);
+        }
+        quoteCheckpoint.save(TriggerJournal.providerCode(marketProvider), rows);
+        checkpointedVersion = version;
+    }
+
+    private final Runnable quoteCheckpointer = new Runnable() {
+        @Override
+        public void run() {
+            checkpointQuotes();
+            mainHandler.postDelayed(this, QUOTE_CHECKPOINT_INTERVAL_MS);
+        }
+    };
+
+    private final Runnable pipelineStatsReporter = new Runnable() {
+        @Override
+        public void run() {
+            android.util.Log.d(PERF_TAG, "pipeline\n" + describePipeline());
+            mainHandler.postDelayed(this, PIPELINE_STATS_INTERVAL_MS);
+        }
+    };
+
+    private String describePipeline() {
+        return tickerFrames.describe() + "\n" + klineFrames.describe() + "\n"
+                + eventLoops.describe() + "\n" + alertDispatcher.describe()
+                + (spotRace != null ? "\n" + spotRace.describe() : "")
+                + (audioEngine != null ? "\n" + audioEngine.describe() : "");
+    }
+
+    /** Per-stage depth/latency counters, or null when the service is not running. */
+    public static String pipelineStats() {
+        FloatingWindowService svc = runningInstance;
+        return svc != null ? svc.describePipeline() : null;
+    }
+
+    // miniTicker frame: the symbol id is resolved straight from the frame text (no ".P" concat, no Gson tree).
     private void handleMessage(String text, boolean isFutures) {
         try {
-            com.google.gson.JsonObject json = com.google.gson.JsonParser.parseString(text).getAsJsonObject();
-            if (json.has("data")) {
-                com.google.gson.JsonObject data = json.getAsJsonObject("data");
-                String symbolRaw = data.get("s").getAsString();
-                String symbol = isFutures ? symbolRaw + ".P" : symbolRaw;
-                String close = data.get("c").getAsString();
-                
-                // Calculate change percent
-                double closePrice = Double.parseDouble(close);
-                double openPrice = Double.parseDouble(data.get("o").getAsString());
-                double changePercent = ((closePrice - openPrice) / openPrice) * 100;
-                handleTickerEvent(symbol, closePrice, changePercent);
-            }
+            int data = text.indexOf(BinanceFrameDecoder.KEY_DATA);
+            if (data < 0) return;
+            int symStart = BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_SYMBOL, data);
+            int symEnd = BinanceFrameDecoder.stringEnd(text, symStart);
+            if (symEnd < 0) return;
+            int symbolId = registry.findSymbol(isFutures ? SymbolRegistry.MARKET_FUTURES : SymbolRegistry.MARKET_SPOT, text, symStart, symEnd);
+            if (symbolId < 0) return;
+
+            // Calculate change percent
+            double closePrice = BinanceFrameDecoder.parseDecimal(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_CLOSE, data));
+            double openPrice = BinanceFrameDecoder.parseDecimal(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_OPEN, data));
+            if (Double.isNaN(closePrice) || Double.isNaN(openPrice)) return;
+            double changePercent = ((closePrice - openPrice) / openPrice) * 100;
+            long eventTimeMs = BinanceFrameDecoder.parseLong(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_EVENT_TIME, data));
+            if (eventTimeMs == Long.MIN_VALUE) eventTimeMs = System.currentTimeMillis();
+            double high = BinanceFrameDecoder.parseDecimal(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_HIGH, data));
+            double low = BinanceFrameDecoder.parseDecimal(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_LOW, data));
+            eventLoops.postTicker(symbolId, closePrice, changePercent, high, low, eventTimeMs);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private void handleTickerEvent(String symbol, double closePrice, double changePercent) {
-        priceDataMap.put(symbol, new String[]{
-                formatPrice(closePrice),
-                String.format(java.util.Locale.US, "%.2f", changePercent)
-        });
+    // Runs on the symbol's event loop: only work that must see every tick stays here.
+    private void handleTickerEvent(int symbolId, double closePrice, double changePercent, double high, double low, long eventTimeMs) {
+        // Check simple price alerts (every crossing, never conflated)
+        double prevPrice = lastTickerPriceById[symbolId];
+        lastTickerPriceById[symbolId] = closePrice;
+        // The 24h window only loses old trades as it slides, so a higher high (lower low) than the
+        // last frame's was traded since that frame, even if the price has come back.
+        double reachHigh = closePrice;
+        double reachLow = closePrice;
+        if (high > lastTickerHighById[symbolId]) reachHigh = Math.max(reachHigh, high);
+        if (low < lastTickerLowById[symbolId]) reachLow = Math.min(reachLow, low);
+        lastTickerHighById[symbolId] = high;
+        lastTickerLowById[symbolId] = low;
+        checkPriceAlerts(symbolId, closePrice, prevPrice, reachHigh, reachLow);
+
+        // Sparkline: cheap in-place ring update. A completed bucket forces a redraw; the live
+        // point otherwise follows the overlay's throttled refreshes.
+        Sparkline sparkline = sparklineById[symbolId];
+        if (sparkline != null && sparkline.add(closePrice, System.currentTimeMillis()) && windowVisible) {
+            mainHandler.post(() -> {
+                SparklineView v = sparklineViews.get(registry.symbolName(symbolId));
+                if (v != null) v.invalidate();
+            });
+        }
 
-        // Store raw data for replay
-        rawPriceDataMap.put(symbol, new double[]{closePrice, changePercent});
+        // Formatting, caches, JS bridge and UI only need the newest value.
+        tickerConflator.publish(symbolId, closePrice, changePercent, eventTimeMs);
+    }
 
-        // Notify static listener (Plugin) about ticker update
-        if (tickerListener != null) {
-            tickerListener.onTickerUpdate(symbol, closePrice, changePercent);
-        }
+    // Runs on the conflator drain thread with the latest value per symbol.
+    private void deliverLatestTicker(int symbolId, double closePrice, double changePercent, long eventTimeMs) {
+        String symbol = registry.symbolName(symbolId);
+        if (symbol == null) return;
+        // One row write serves the overlay, the bridge and replay; formatting happens at render time.
+        long version = quotes.write(symbolId, closePrice, changePercent, eventTimeMs);
+        if (version < 0) return; // a newer REST snapshot already landed
+        publishQuote(symbol, closePrice, changePercent, version);
+    }
 
-        // Check simple price alerts
-        Double prev = lastTickerPriceBySymbol.put(symbol, closePrice);
-        double prevPrice = prev != null ? prev : Double.NaN;
-        checkPriceAlerts(symbol, closePrice, prevPrice);
+    // After a quote row changed: forward it to the bridge and refresh the overlay.
+    private void publishQuote(String symbol, double closePrice, double changePercent, long version) {
+        startupTrace.mark("first-quote");
+        // With the overlay hidden nothing renders; the bridge delivery is where startup ends.
+        if (!windowVisible) startupTrace.report(this, "first-quote");
+        // Notify static listener (Plugin) about ticker update, limited to what the WebView shows
+        if (tickerListener != null && shouldForwardToBridge(symbol)) {
+            tickerListener.onTickerUpdate(symbol, closePrice, changePercent, version);
+        }
 
         // Update UI on main thread
         if (windowVisible) {
@@ -1212,6 +2141,22 @@ public class FloatingWindowService extends Service {
         }
     }
     
+    // {price, change%, stale ("1") or null} for the overlay, or null before the first value.
+    private String[] formatQuote(String symbol) {
+        if (!quotes.read(registry.findSymbol(symbol), uiQuote)) return null;
+        return new String[]{
+                formatPrice(uiQuote.price),
+                String.format(java.util.Locale.US, "%.2f", uiQuote.changePercent),
+                uiQuote.stale ? "1" : null
+        };
+    }
+
+    private boolean shouldForwardToBridge(String symbol) {
+        if (bridgeBackground) return false;
+        java.util.Set<String> visible = bridgeVisibleSymbols;
+        return visible == null || visible.contains(symbol);
+    }
+
     // Smart formatting to satisfy "0.01% of price" precision
     private String formatPrice(double price) {
         if (price == 0) return "0.00";
@@ -1258,13 +2203,18 @@ public class FloatingWindowService extends Service {
         for (int i = 0; i < itemsPerPage; i++) {
             int idx = (currentIndex + i) % symbolList.size();
             String symbol = symbolList.get(idx);
-            String[] data = priceDataMap.get(symbol);
-            addTickerView(symbol, data);
+            String[] quote = formatQuote(symbol);
+            addTickerView(symbol, quote);
+            if (quote == null) continue;
+            if (quote[2] != null) startupTrace.mark("stale-render");
+            else startupTrace.report(this, "first-render");
             
             if (i >= symbolList.size() - 1) break; 
         }
     }
     
+    private static final int STALE_TEXT_COLOR = 0xFF888888;
+
     private void addLoadingView() {
         TextView tv = new TextView(this);
         tv.setText("Waiting...");
@@ -1276,20 +2226,27 @@ public class FloatingWindowService extends Service {
     private void addTickerView(String symbol, String[] data) {
         String price = (data != null) ? data[0] : "--";
         String change = (data != null) ? data[1] : null;
+        // Last run's value until the feed delivers: shown dimmed.
+        boolean stale = data != null && data[2] != null;
 
         LinearLayout row = new LinearLayout(this);
-        row.setOrientation(LinearLayout.VERTICAL);
+        row.setOrientation(LinearLayout.HORIZONTAL);
+        row.setGravity(Gravity.CENTER_VERTICAL);
         row.setPadding(0, 0, 0, 10);
 
+        LinearLayout textColumn = new LinearLayout(this);
+        textColumn.setOrientation(LinearLayout.VERTICAL);
+        row.addView(textColumn);
+
         TextView priceTv = new TextView(this);
         String displayText = showSymbol ? 
             (symbol != null ? symbol + ": $" : "$") + (price != null ? price : "--") :
             "$" + (price != null ? price : "--");
         priceTv.setText(displayText);
-        priceTv.setTextColor(Color.WHITE);
+        priceTv.setTextColor(stale ? STALE_TEXT_COLOR : Color.WHITE);
         priceTv.setTextSize(TypedValue.COMPLEX_UNIT_SP, fontSize);
         priceTv.setTypeface(null, android.graphics.Typeface.BOLD);
-        row.addView(priceTv);
+        textColumn.addView(priceTv);
 
         TextView changeTv = new TextView(this);
         if (change == null) {
@@ -1307,7 +2264,7 @@ public class FloatingWindowService extends Service {
                  
                 double changeVal = Double.parseDouble(change); // "1.23" -> 1.23
                 changeTv.setText(change + "%"); // "1.23%"
-                int color = changeVal < 0 ? 0xFFFF4444 : 0xFF00CC88;
+                int color = stale ? STALE_TEXT_COLOR : changeVal < 0 ? 0xFFFF4444 : 0xFF00CC88;
                 changeTv.setTextColor(color);
                 
             } catch (NumberFormatException e) {
@@ -1316,10 +2273,37 @@ public class FloatingWindowService extends Service {
             }
         }
         changeTv.setTextSize(TypedValue.COMPLEX_UNIT_SP, fontSize - 2);
-        row.addView(changeTv);
+        textColumn.addView(changeTv);
+
+        int symbolId = registry.findSymbol(symbol);
+        Sparkline sparkline = symbolId >= 0 ? sparklineById[symbolId] : null;
+        if (sparkline != null) {
+            row.addView(getSparklineView(symbol, sparkline));
+        }
 
         itemsContainer.addView(row);
     }
+
+    // Sparkline views are reused across updateUI() rebuilds so their cached Path survives.
+    private SparklineView getSparklineView(String symbol, Sparkline sparkline) {
+        SparklineView v = sparklineViews.get(symbol);
+        if (v == null) {
+            v = new SparklineView(this, sparkline);
+            sparklineViews.put(symbol, v);
+        } else {
+            v.setSparkline(sparkline);
+            if (v.getParent() instanceof android.view.ViewGroup) {
+                ((android.view.ViewGroup) v.getParent()).removeView(v);
+            }
+        }
+        android.util.DisplayMetrics dm = getResources().getDisplayMetrics();
+        int w = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, Sparkline.POINTS, dm);
+        int h = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, fontSize * 2f, dm);
+        LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(w, h);
+        lp.leftMargin = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 8, dm);
+        v.setLayoutParams(lp);
+        return v;
+    }
     
     private void applyConfig() {
         if (container != null) {
@@ -1344,13 +2328,13 @@ public class FloatingWindowService extends Service {
     public static final String EXTRA_ALERTS_JSON = "ALERTS_JSON";
     
     private okhttp3.WebSocket klineWebSocket;
-    private java.util.List<AlertConfig> alerts = new java.util.ArrayList<>();
-    private java.util.Map<String, java.util.List<Double>> candleHistory = new java.util.concurrent.ConcurrentHashMap<>();
-    private java.util.Map<String, Long> lastCandleTime = new java.util.concurrent.ConcurrentHashMap<>();
+    private volatile okhttp3.WebSocket tradeWebSocket;
+    private int tradeRetryAttempt = 0;
+    // Replaced wholesale on the main thread, read by the symbol loops.
+    private volatile java.util.List<AlertConfig> alerts = new java.util.ArrayList<>();
     private java.util.Set<String> triggeredAlerts = java.util.Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>());
-    private java.util.Map<String, Long> lastTriggeredAtMs = new java.util.concurrent.ConcurrentHashMap<>();
-    // Map to track start time of delayed alerts: <AlertID, StartTimestampMS>
-    private java.util.Map<String, Long> pendingDelayAlerts = new java.util.concurrent.ConcurrentHashMap<>();
+    // Current alerts by id, for timer callbacks that outlive an alert sync
+    private volatile java.util.Map<String, AlertConfig> alertsById = new java.util.HashMap<>();
     // Map to track consecutive candle hits: <AlertID, Count>
     private java.util.Map<String, Integer> candleDelayCounter = new java.util.concurrent.ConcurrentHashMap<>();
     
@@ -1398,6 +2382,15 @@ public class FloatingWindowService extends Service {
         public double cachedT_Start;
         public double cachedT_End;
         public java.util.List<Double> cachedOffsets;
+        // Registry ids resolved in syncAlerts (not part of the JSON payload)
+        public transient int symbolId = -1;
+        public transient int seriesId = -1;
+        // Pending time_delay deadline in the symbol loop's timer wheel
+        public transient long delayTimer = TimerWheel.NONE;
+        // Last trigger time for repeat cooldowns (0 = never); written only by the symbol loop
+        public transient long lastTriggeredMs = 0L;
+        // id pre-encoded for TriggerJournal records
+        public transient byte[] journalId = new byte[0];
         // ---------------------------------------------
         
         public boolean active;
@@ -1415,90 +2408,143 @@ public class FloatingWindowService extends Service {
     
     public void syncAlerts(String alertsJson) {
         try {
-            com.google.gson.reflect.TypeToken<java.util.List<AlertConfig>> typeToken = 
-                new com.google.gson.reflect.TypeToken<java.util.List<AlertConfig>>() {};
-            alerts = gson.fromJson(alertsJson, typeToken.getType());
-            hasPriceAlerts = false;
-            
-            // PRE-PARSE / CACHE PARAMETERS to avoid Map lookup in hot loop
-            for (AlertConfig a : alerts) {
-                try {
-                    if (a.confirmation == null || a.confirmation.isEmpty()) a.confirmation = "immediate";
-                    if (a.repeatMode == null || a.repeatMode.isEmpty()) a.repeatMode = "once";
-                    if (a.repeatIntervalSec < 0) a.repeatIntervalSec = 0;
-                    if (a.actions == null) a.actions = new AlertConfig.Actions();
-                    if (a.actions.vibration == null || a.actions.vibration.isEmpty()) a.actions.vibration = "once";
-                    if (a.active && "price".equals(a.targetType)) hasPriceAlerts = true;
-
-                    // Cache Indicator Params
-                    if ("indicator".equals(a.targetType) && a.targetValue != null) {
-                        a.cachedIndType = a.targetValue.replaceAll("[0-9]", "").toLowerCase();
-                         try {
-                            a.cachedPeriod = Integer.parseInt(a.targetValue.replaceAll("[a-zA-Z]", ""));
-                        } catch (Exception e) { a.cachedPeriod = 14; }
-                    }
-                    
-                    // Cache Drawing Params
-                    if (a.params != null) {
-                         java.util.Map<String, Object> p = a.params;
-                         if (p.containsKey("t0")) a.cachedT0 = ((Number)p.get("t0")).doubleValue();
-                         if (p.containsKey("p0")) a.cachedP0 = ((Number)p.get("p0")).doubleValue();
-                         if (p.containsKey("slope")) a.cachedSlope = ((Number)p.get("slope")).doubleValue();
-                         if (p.containsKey("pHigh")) a.cachedP_High = ((Number)p.get("pHigh")).doubleValue();
-                         if (p.containsKey("pLow")) a.cachedP_Low = ((Number)p.get("pLow")).doubleValue();
-                         if (p.containsKey("tStart")) a.cachedT_Start = ((Number)p.get("tStart")).doubleValue();
-                         if (p.containsKey("tEnd")) a.cachedT_End = ((Number)p.get("tEnd")).doubleValue();
-                         
-                         if (p.containsKey("offsets")) {
-                              a.cachedOffsets = new java.util.ArrayList<>();
-                              Object offsetsObj = p.get("offsets");
-                              if (offsetsObj instanceof java.util.List) {
-                                  for (Object o : (java.util.List)offsetsObj) {
-                                      if (o instanceof Number) a.cachedOffsets.add(((Number)o).doubleValue());
-                                  }
-                              }
-                         }
-                    }
-                } catch (Exception e) { e.printStackTrace(); }
-            }
-
-            // Prune state for removed alerts (keep "once" triggers + repeat cooldown across syncs)
-            java.util.Set<String> ids = new java.util.HashSet<>();
-            for (AlertConfig a : alerts) { if (a != null && a.id != null) ids.add(a.id); }
-            triggeredAlerts.retainAll(ids);
-            for (String k : new java.util.HashSet<>(lastTriggeredAtMs.keySet())) {
-                if (!ids.contains(k)) lastTriggeredAtMs.remove(k);
-            }
-            for (String k : new java.util.HashSet<>(pendingDelayAlerts.keySet())) {
-                if (!ids.contains(k)) pendingDelayAlerts.remove(k);
-            }
-            for (String k : new java.util.HashSet<>(candleDelayCounter.keySet())) {
-                if (!ids.contains(k)) candleDelayCounter.remove(k);
-            }
-            
-            // Keep ticker WS alive for price alerts even when window hidden
-            if (hasPriceAlerts && !symbolList.isEmpty()) {
-                connectWebSockets();
-            }
-            
-            // Connect to K-line streams if needed
-            connectKlineWebSocket();
+            applyAlerts(alertsJson);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
+
+    // Replaces the alert set; throws on JSON that doesn't parse. Returns the number of alerts.
+    private int applyAlerts(String alertsJson) {
+        com.google.gson.reflect.TypeToken<java.util.List<AlertConfig>> typeToken = 
+            new com.google.gson.reflect.TypeToken<java.util.List<AlertConfig>>() {};
+        java.util.List<AlertConfig> parsed = gson().fromJson(alertsJson, typeToken.getType());
+        if (parsed == null) throw new IllegalArgumentException("alerts must be a JSON array");
+        java.util.Map<String, AlertConfig> previousById = alertsById;
+        hasPriceAlerts = false;
+        
+        // PRE-PARSE / CACHE PARAMETERS to avoid Map lookup in hot loop
+        for (AlertConfig a : parsed) {
+            try {
+                if (a.confirmation == null || a.confirmation.isEmpty()) a.confirmation = "immediate";
+                if (a.repeatMode == null || a.repeatMode.isEmpty()) a.repeatMode = "once";
+                if (a.repeatIntervalSec < 0) a.repeatIntervalSec = 0;
+                if (a.actions == null) a.actions = new AlertConfig.Actions();
+                if (a.actions.vibration == null || a.actions.vibration.isEmpty()) a.actions.vibration = "once";
+                if (a.active && "price".equals(a.targetType)) hasPriceAlerts = true;
+                a.symbolId = registry.registerSymbol(a.symbol);
+                a.journalId = TriggerJournal.encodeId(a.id);
+                a.seriesId = registerSeries(a.symbol, a.interval != null ? a.interval : "1m");
+                // Repeat cooldown carries across syncs; handOverAlertState re-reads it on the loop.
+                AlertConfig previous = a.id != null ? previousById.get(a.id) : null;
+                if (previous != null) a.lastTriggeredMs = previous.lastTriggeredMs;
+
+                // Cache Indicator Params
+                if ("indicator".equals(a.targetType) && a.targetValue != null) {
+                    a.cachedIndType = a.targetValue.replaceAll("[0-9]", "").toLowerCase();
+                     try {
+                        a.cachedPeriod = Integer.parseInt(a.targetValue.replaceAll("[a-zA-Z]", ""));
+                    } catch (Exception e) { a.cachedPeriod = 14; }
+                }
+                
+                // Cache Drawing Params
+                if (a.params != null) {
+                     java.util.Map<String, Object> p = a.params;
+                     if (p.containsKey("t0")) a.cachedT0 = ((Number)p.get("t0")).doubleValue();
+                     if (p.containsKey("p0")) a.cachedP0 = ((Number)p.get("p0")).doubleValue();
+                     if (p.containsKey("slope")) a.cachedSlope = ((Number)p.get("slope")).doubleValue();
+                     if (p.containsKey("pHigh")) a.cachedP_High = ((Number)p.get("pHigh")).doubleValue();
+                     if (p.containsKey("pLow")) a.cachedP_Low = ((Number)p.get("pLow")).doubleValue();
+                     if (p.containsKey("tStart")) a.cachedT_Start = ((Number)p.get("tStart")).doubleValue();
+                     if (p.containsKey("tEnd")) a.cachedT_End = ((Number)p.get("tEnd")).doubleValue();
+                     
+                     if (p.containsKey("offsets")) {
+                          a.cachedOffsets = new java.util.ArrayList<>();
+                          Object offsetsObj = p.get("offsets");
+                          if (offsetsObj instanceof java.util.List) {
+                              for (Object o : (java.util.List)offsetsObj) {
+                                  if (o instanceof Number) a.cachedOffsets.add(((Number)o).doubleValue());
+                              }
+                          }
+                     }
+                }
+            } catch (Exception e) { e.printStackTrace(); }
+        }
+
+        java.util.Map<String, AlertConfig> byId = new java.util.HashMap<>();
+        for (AlertConfig a : parsed) { if (a != null && a.id != null) byId.put(a.id, a); }
+        alertsById = byId;
+        alerts = parsed;
+        handOverAlertState(previousById, byId);
+
+        // Prune state for removed alerts (keep "once" triggers + repeat cooldown across syncs)
+        java.util.Set<String> ids = byId.keySet();
+        for (String k : previousById.keySet()) {
+            if (!ids.contains(k)) soundScheduler.cancel(k);
+        }
+        triggeredAlerts.retainAll(ids);
+        for (String k : new java.util.HashSet<>(candleDelayCounter.keySet())) {
+            if (!ids.contains(k)) candleDelayCounter.remove(k);
+        }
+        
+        // Keep ticker WS alive for price alerts even when window hidden
+        if (hasPriceAlerts && !symbolList.isEmpty()) {
+            connectWebSockets();
+        }
+        
+        // Connect to K-line streams if needed
+        connectKlineWebSocket();
+        return parsed.size();
+    }
     
+    /**
+     * Moves loop-owned state from replaced alert configs to their successors, on the owning loop:
+     * a running time_delay countdown carries over when the symbol is unchanged, and every other
+     * old deadline is cancelled. Posted after the new set is published, so the loop may already
+     * have armed a deadline for the new config; the older one wins so the countdown isn't reset.
+     */
+    private void handOverAlertState(java.util.Map<String, AlertConfig> previousById, java.util.Map<String, AlertConfig> byId) {
+        for (AlertConfig previous : previousById.values()) {
+            AlertConfig next = byId.get(previous.id);
+            if (next == null || next.symbolId != previous.symbolId) {
+                eventLoops.execute(previous.symbolId, () -> cancelDelayTimer(previous));
+                continue;
+            }
+            eventLoops.execute(next.symbolId, () -> {
+                next.lastTriggeredMs = Math.max(next.lastTriggeredMs, previous.lastTriggeredMs);
+                if (eventLoops.isTimerPending(previous.symbolId, previous.delayTimer)) {
+                    cancelDelayTimer(next);
+                    next.delayTimer = previous.delayTimer;
+                }
+                previous.delayTimer = TimerWheel.NONE;
+            });
+        }
+    }
+
     private void connectKlineWebSocket() {
+        // Screen off and nothing needs intrabar data: poll closed candles on alarms instead of streaming.
+        if (!screenInteractive && lowPowerEligible()) {
+            enterLowPowerMode();
+            return;
+        }
+        if (lowPowerMode) exitLowPowerMode();
+
         // Collect all needed kline subscriptions from alerts
         java.util.Set<KlineSubscription> subs = new java.util.HashSet<>();
         for (AlertConfig alert : alerts) {
             if (alert.active && (alert.targetType.equals("indicator") || alert.targetType.equals("drawing") || "candle_close".equals(alert.confirmation))) {
                 String interval = alert.interval != null ? alert.interval : "1m";
                 subs.add(new KlineSubscription(alert.symbol, interval));
+                registerSeries(alert.symbol, interval);
             }
         }
+        java.util.Set<KlineSubscription> tradeBuilt = planTradeCandles(subs);
+        subs.removeAll(tradeBuilt);
+        subs = planKlineRollup(subs);
+        streamedKlineSubs = subs;
+        syncStandby();
         
-        if (subs.isEmpty()) {
+        if (subs.isEmpty() && tradeBuilt.isEmpty()) {
             // Release WakeLock if no active alerts
             if (wakeLock != null && wakeLock.isHeld()) {
                 wakeLock.release();
@@ -1532,9 +2578,686 @@ public class FloatingWindowService extends Service {
         } else {
              if (wakeLock != null && wakeLock.isHeld()) wakeLock.release();
         }
-        getMarketDataProvider().startKlines(subs);
+        if (subs.isEmpty()) {
+            getMarketDataProvider().stopKlines();
+        } else {
+            getMarketDataProvider().startKlines(subs);
+        }
     }
     
+    // ============================================
+    // MULTI-TIMEFRAME ROLLUP
+    // ============================================
+
+    private static final int KLINE_HISTORY_LIMIT = 100;
+    private static final int KLINE_FETCH_MAX = 1000; // Binance klines page limit
+    // Base series id -> series built locally from it; replaced whole by planKlineRollup.
+    private volatile int[][] klineRollup = new int[SymbolRegistry.MAX_SERIES][];
+
+    /**
+     * Per symbol, keeps only the finest required interval as a stream; every coarser interval it
+     * tiles exactly is rolled up from it. Returns the subscriptions to actually stream. Binance
+     * only: other providers stream what they were asked for.
+     */
+    private java.util.Set<KlineSubscription> planKlineRollup(java.util.Set<KlineSubscription> wanted) {
+        int[][] plan = new int[SymbolRegistry.MAX_SERIES][];
+        if (!PROVIDER_BINANCE.equals(marketProvider)) {
+            klineRollup = plan;
+            return wanted;
+        }
+        java.util.Map<String, java.util.List<String>> intervalsBySymbol = new java.util.HashMap<>();
+        for (KlineSubscription sub : wanted) {
+            java.util.List<String> list = intervalsBySymbol.get(sub.symbol);
+            if (list == null) {
+                list = new java.util.ArrayList<>();
+                intervalsBySymbol.put(sub.symbol, list);
+            }
+            list.add(sub.interval);
+        }
+        java.util.Set<KlineSubscription> streamed = new java.util.HashSet<>();
+        for (java.util.Map.Entry<String, java.util.List<String>> e : intervalsBySymbol.entrySet()) {
+            String symbol = e.getKey();
+            java.util.List<String> intervals = e.getValue();
+            java.util.Collections.sort(intervals, (a, b) -> Long.compare(CandleClock.sortLengthMs(a), CandleClock.sortLengthMs(b)));
+            String base = intervals.get(0);
+            int baseSeries = registry.findSeries(symbol, base);
+            java.util.List<Integer> derived = new java.util.ArrayList<>();
+            streamed.add(new KlineSubscription(symbol, base));
+            for (int i = 1; i < intervals.size(); i++) {
+                String interval = intervals.get(i);
+                if (baseSeries >= 0 && CandleClock.canRollUp(base, interval)) {
+                    int seriesId = registry.findSeries(symbol, interval);
+                    if (seriesId >= 0) {
+                        derived.add(seriesId);
+                        continue;
+                    }
+                }
+                streamed.add(new KlineSubscription(symbol, interval));
+            }
+            if (!derived.isEmpty()) {
+                int[] ids = new int[derived.size()];
+                for (int i = 0; i < ids.length; i++) ids[i] = derived.get(i);
+                plan[baseSeries] = ids;
+            }
+        }
+        klineRollup = plan;
+        return streamed;
+    }
+
+    // Symbol loop of the base series (derived series share its symbol, hence its loop).
+    private void rollUpKline(int baseSeries, double close, double reachHigh, double reachLow, boolean isClosed, long openTime) {
+        int[] derived = klineRollup[baseSeries];
+        if (derived == null) return;
+        long baseEnd = CandleClock.nextBoundaryMs(registry.intervalName(registry.seriesInterval(baseSeries)), openTime);
+        for (int seriesId : derived) {
+            String interval = registry.intervalName(registry.seriesInterval(seriesId));
+            long bucketStart = CandleClock.bucketStartMs(interval, openTime);
+            // The derived candle closes with the base candle that ends on its boundary.
+            boolean closesBucket = isClosed && baseEnd >= CandleClock.nextBoundaryMs(interval, bucketStart);
+            handleKlineEvent(seriesId, close, reachHigh, reachLow, closesBucket, bucketStart);
+        }
+    }
+
+    /**
+     * Closes of the derived candles tiled by base candles (oldest first). A leading bucket whose
+     * start precedes the data is skipped, and so is a trailing one that hadn't ended by nowMs (the
+     * stream delivers its close). lastOpenOut[0] receives the newest returned bucket's open time.
+     */
+    private static double[] rollUpCloses(long[] openTimes, double[] closes, int n, String interval,
+                                         long nowMs, long[] lastOpenOut) {
+        double[] out = new double[n];
+        long[] opens = new long[n];
+        int count = 0;
+        long bucket = Long.MIN_VALUE;
+        boolean covered = false;
+        for (int i = 0; i < n; i++) {
+            long start = CandleClock.bucketStartMs(interval, openTimes[i]);
+            if (start != bucket) {
+                bucket = start;
+                covered = openTimes[i] == start;
+                if (covered) opens[count++] = start;
+            }
+            if (covered) out[count - 1] = closes[i];
+        }
+        if (count > 0 && CandleClock.nextBoundaryMs(interval, opens[count - 1]) > nowMs) count--; // still forming
+        lastOpenOut[0] = count > 0 ? opens[count - 1] : NO_CANDLE_TIME;
+        return java.util.Arrays.copyOf(out, count);
+    }
+
+    // Closes needed before a series' alerts can evaluate (indicator period + 1, else a previous close).
+    private int requiredHistory(int seriesId) {
+        int need = 2;
+        for (AlertConfig a : alerts) {
+            if (!a.active || a.seriesId != seriesId) continue;
+            if ("indicator".equals(a.targetType)) need = Math.max(need, a.cachedPeriod + 1);
+        }
+        return Math.min(need, KLINE_HISTORY_LIMIT);
+    }
+
+    // REST klines, oldest first: copies candles closed by nowMs into openTimes/closes, returns the count.
+    private static int readClosedCandles(com.google.gson.JsonArray arr, long nowMs, long[] openTimes, double[] closes) {
+        int n = 0;
+        for (int i = 0; i < arr.size(); i++) {
+            com.google.gson.JsonArray k = arr.get(i).getAsJsonArray();
+            if (k.get(6).getAsLong() >= nowMs) continue;
+            openTimes[n] = k.get(0).getAsLong();
+            closes[n] = k.get(4).getAsDouble();
+            n++;
+        }
+        return n;
+    }
+
+    private static com.google.gson.JsonArray fetchBinanceKlines(String symbol, String interval, int limit) throws java.io.IOException {
+        return fetchJsonArray("https://api.binance.com/api/v3/klines?symbol=" + symbol + "&interval=" + interval + "&limit=" + limit);
+    }
+
+    /**
+     * Hands fetched closes closes[from, to) (oldest first, the newest opening at lastOpen) to the
+     * series' symbol loop; history and lastCandleTime are only ever written there.
+     */
+    private void postHistory(int seriesId, double[] closes, int from, int to, long lastOpen) {
+        if (to <= from) return;
+        double[] copy = java.util.Arrays.copyOfRange(closes, from, to);
+        eventLoops.execute(registry.seriesSymbol(seriesId), () -> applyHistory(seriesId, copy, lastOpen));
+    }
+
+    // Runs on the series' symbol loop. Closes the loop appended after the fetch was taken are kept.
+    private void applyHistory(int seriesId, double[] closes, long lastOpen) {
+        CloseHistory history = historyBySeries[seriesId];
+        if (history == null) return;
+        long lastTime = lastCandleTimeBySeries[seriesId];
+        if (lastTime == NO_CANDLE_TIME || lastTime <= lastOpen) {
+            history.replaceWith(closes, closes.length);
+            lastCandleTimeBySeries[seriesId] = lastOpen;
+            return;
+        }
+        // Count the loop's closes newer than the fetch: candles opening in (lastOpen, lastTime].
+        String interval = registry.intervalName(registry.seriesInterval(seriesId));
+        int newer = 0;
+        for (long b = lastOpen; newer < history.size(); newer++) {
+            long next = CandleClock.nextBoundaryMs(interval, b);
+            if (next <= b || next > lastTime) break;
+            b = next;
+        }
+        double[] merged = java.util.Arrays.copyOf(closes, closes.length + newer);
+        for (int i = 0; i < newer; i++) merged[closes.length + i] = history.get(history.size() - newer + i);
+        history.replaceWith(merged, merged.length);
+    }
+
+    // ============================================
+    // HOT-STANDBY FAILOVER (main thread)
+    // ============================================
+
+    // Primary silent this long while the standby flows: the standby takes over the feed.
+    private static final long FAILOVER_STALE_MS = 10_000L;
+    // The recovered primary must flow this long before it gets the feed back.
+    private static final long FAILBACK_STABLE_MS = 15_000L;
+    private static final long FEED_CHECK_MS = 2_000L;
+    // While failed over, restart the primary's streams this often until it recovers.
+    private static final long PRIMARY_RESTART_MS = 30_000L;
+
+    // Provider whose frames drive quotes, candles and alerts; the other one's frames only prove it alive.
+    private volatile String feedOwner = PROVIDER_BINANCE;
+    private volatile long binanceFrameMs = 0L;
+    private volatile long hyperliquidFrameMs = 0L;
+    private boolean standbyEnabled = false;
+    private volatile MarketDataProvider standbyProvider = null;
+    private boolean failedOver = false;
+    private long standbyStartedMs = 0L;
+    private long primaryFreshSinceMs = 0L;
+    private long primaryRestartMs = 0L;
+    private java.util.Set<KlineSubscription> streamedKlineSubs = new java.util.HashSet<>();
+
+    private final Runnable feedMonitor = new Runnable() {
+        @Override
+        public void run() {
+            if (standbyProvider == null) return;
+            checkFeedHealth();
+            klineHandler.postDelayed(this, FEED_CHECK_MS);
+        }
+    };
+
+    // Socket threads: stamps the provider as alive and says whether its frames should be decoded.
+    private volatile boolean firstFrameSeen = false;
+
+    private boolean acceptFrame(String provider) {
+        if (!firstFrameSeen) {
+            firstFrameSeen = true;
+            startupTrace.mark("first-frame");
+        }
+        long now = android.os.SystemClock.uptimeMillis();
+        if (PROVIDER_HYPERLIQUID.equals(provider)) hyperliquidFrameMs = now;
+        else binanceFrameMs = now;
+        return provider.equals(feedOwner);
+    }
+
+    private long frameAgeMs(String provider, long now) {
+        long last = PROVIDER_HYPERLIQUID.equals(provider) ? hyperliquidFrameMs : binanceFrameMs;
+        // Nobody is judged stale before it had a chance to connect.
+        return now - Math.max(last, standbyStartedMs);
+    }
+
+    private void applyStandbyFailover(boolean enabled) {
+        if (enabled == standbyEnabled) return;
+        standbyEnabled = enabled;
+        try {
+            getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit().putBoolean(PREF_STANDBY_FAILOVER, enabled).apply();
+        } catch (Exception ignored) {}
+        if (enabled) {
+            connectKlineWebSocket();
+        } else {
+            stopStandby();
+            rearmKlineWatchdog();
+        }
+    }
+
+    /**
+     * Keeps the other provider warm on a minimal subscription (tickers of the alerted symbols)
+     * while any alert is active; once failed over, refreshes the standby's full feed instead.
+     */
+    private void syncStandby() {
+        boolean wanted = false;
+        for (AlertConfig a : alerts) { if (a.active) { wanted = true; break; } }
+        if (!standbyEnabled || !wanted) {
+            stopStandby();
+            return;
+        }
+        if (standbyProvider == null) {
+            standbyProvider = PROVIDER_HYPERLIQUID.equals(marketProvider)
+                    ? new BinanceMarketDataProvider() : new HyperliquidMarketDataProvider();
+            standbyStartedMs = android.os.SystemClock.uptimeMillis();
+            klineHandler.removeCallbacks(feedMonitor);
+            klineHandler.postDelayed(feedMonitor, FEED_CHECK_MS);
+        }
+        if (failedOver) {
+            startStandbyFeed(standbyProvider);
+        } else {
+            standbyProvider.startTicker(standbyTickerSymbols(false));
+        }
+    }
+
+    private void stopStandby() {
+        klineHandler.removeCallbacks(feedMonitor);
+        MarketDataProvider standby = standbyProvider;
+        if (standby == null) return;
+        standbyProvider = null;
+        if (failedOver) {
+            failedOver = false;
+            feedOwner = marketProvider;
+            resetCrossingState();
+        }
+        try { standby.shutdown(); } catch (Exception ignored) {}
+    }
+
+    private void checkFeedHealth() {
+        MarketDataProvider standby = standbyProvider;
+        long now = android.os.SystemClock.uptimeMillis();
+        boolean primaryFresh = frameAgeMs(marketProvider, now) < FAILOVER_STALE_MS;
+        if (!failedOver) {
+            if (!primaryFresh && frameAgeMs(standby.name(), now) < FAILOVER_STALE_MS) failOver(standby, now);
+            return;
+        }
+        if (!primaryFresh) {
+            primaryFreshSinceMs = 0L;
+            if (now - primaryRestartMs >= PRIMARY_RESTART_MS) restartPrimary(now);
+            return;
+        }
+        if (primaryFreshSinceMs == 0L) primaryFreshSinceMs = now;
+        if (now - primaryFreshSinceMs >= FAILBACK_STABLE_MS) failBack(standby);
+    }
+
+    private void failOver(MarketDataProvider standby, long now) {
+        failedOver = true;
+        primaryFreshSinceMs = 0L;
+        primaryRestartMs = now;
+        feedOwner = standby.name();
+        resetCrossingState();
+        startStandbyFeed(standby);
+        DiagnosticsLog.append(this, "[native] feed failover " + marketProvider + " -> " + standby.name()
+                + " (primary silent " + frameAgeMs(marketProvider, now) / 1000 + "s)");
+    }
+
+    private void failBack(MarketDataProvider standby) {
+        failedOver = false;
+        feedOwner = marketProvider;
+        resetCrossingState();
+        try {
+            standby.stopTrades();
+            standby.stopKlines();
+            standby.startTicker(standbyTickerSymbols(false));
+        } catch (Exception ignored) {}
+        rearmKlineWatchdog();
+        DiagnosticsLog.append(this, "[native] feed back to " + marketProvider);
+    }
+
+    // Stopping a Binance standby's kline socket also drops the shared watchdog.
+    private void rearmKlineWatchdog() {
+        if (lowPowerMode || streamedKlineSubs.isEmpty()) return;
+        klineHandler.removeCallbacks(klineWatchdog);
+        klineHandler.postDelayed(klineWatchdog, 15000);
+    }
+
+    // The primary may be stalled without its sockets failing; reconnect it from scratch.
+    private void restartPrimary(long now) {
+        primaryRestartMs = now;
+        if (marketDataProvider != null) {
+            try { marketDataProvider.shutdown(); } catch (Exception ignored) {}
+        }
+        if (!symbolList.isEmpty() && (windowVisible || hasPriceAlerts)) connectWebSockets();
+        connectKlineWebSocket();
+    }
+
+    // Full feed on the standby: tickers, the primary's streamed klines it also serves, trades.
+    private void startStandbyFeed(MarketDataProvider standby) {
+        boolean hyperliquid = PROVIDER_HYPERLIQUID.equals(standby.name());
+        java.util.Set<KlineSubscription> subs = new java.util.HashSet<>();
+        for (KlineSubscription sub : streamedKlineSubs) {
+            if (CandleClock.isExchangeInterval(sub.interval, hyperliquid)) subs.add(sub);
+        }
+        try {
+            standby.startTicker(standbyTickerSymbols(true));
+            if (subs.isEmpty()) standby.stopKlines();
+            else standby.startKlines(subs);
+            if (tradeCandleSymbols.isEmpty()) standby.stopTrades();
+            else standby.startTrades(tradeCandleSymbols);
+        } catch (Exception ignored) {}
+    }
+
+    private java.util.List<String> standbyTickerSymbols(boolean full) {
+        java.util.Set<String> set = new java.util.LinkedHashSet<>();
+        if (full && (windowVisible || hasPriceAlerts)) set.addAll(symbolList);
+        for (AlertConfig a : alerts) {
+            if (a.active && a.symbol != null) set.add(a.symbol);
+        }
+        return new java.util.ArrayList<>(set);
+    }
+
+    /**
+     * On a feed switch, forgets the last price/candle extremes seen per stream so the first frame
+     * from the other venue only seeds them: a basis gap between venues must not read as a cross.
+     * Closed-candle history, cooldowns and triggered flags carry over, so nothing fires twice.
+     *
+     * The state is loop-confined, so each symbol's reset runs on its loop, queued behind the old
+     * venue's frames already posted; call this right after feedOwner changes.
+     */
+    private void resetCrossingState() {
+        int symbols = registry.symbolCount();
+        int series = registry.seriesCount();
+        for (int id = 0; id < symbols; id++) {
+            final int symbolId = id;
+            eventLoops.execute(symbolId, () -> {
+                lastTickerPriceById[symbolId] = Double.NaN;
+                lastTickerHighById[symbolId] = Double.NaN;
+                lastTickerLowById[symbolId] = Double.NaN;
+                for (int s = 0; s < series; s++) {
+                    if (registry.seriesSymbol(s) != symbolId) continue;
+                    liveBarOpenBySeries[s] = NO_CANDLE_TIME;
+                    lastLiveCloseBySeries[s] = Double.NaN;
+                }
+            });
+        }
+    }
+
+    // ============================================
+    // TRADE-BUILT CANDLES
+    // ============================================
+
+    // Current builder; replaced whole when the set of trade-built series changes.
+    private volatile TradeCandleBuilder tradeCandles;
+    // Symbol id -> trade-built series of that symbol.
+    private volatile int[][] tradeSeriesBySymbol = new int[SymbolRegistry.MAX_SYMBOLS][];
+    private String tradeCandleKey = "";
+    private java.util.Set<String> tradeCandleSymbols = java.util.Collections.emptySet();
+    private final TradeCandleBuilder.Timers tradeCandleTimers = new TradeCandleBuilder.Timers() {
+        @Override
+        public long schedule(int seriesId, long delayMs, Object payload) {
+            return eventLoops.scheduleTimer(registry.seriesSymbol(seriesId), delayMs, payload);
+        }
+
+        @Override
+        public void cancel(int seriesId, long handle) {
+            eventLoops.cancelTimer(registry.seriesSymbol(seriesId), handle);
+        }
+    };
+
+    /**
+     * Picks the subscriptions whose interval the exchange doesn't stream (e.g. 5s, 3h); those are
+     * built locally from the symbol's trade stream. Starts or stops the trade streams to match and
+     * returns the picked subscriptions.
+     */
+    private java.util.Set<KlineSubscription> planTradeCandles(java.util.Set<KlineSubscription> wanted) {
+        boolean hyperliquid = PROVIDER_HYPERLIQUID.equals(marketProvider);
+        java.util.Set<KlineSubscription> picked = new java.util.HashSet<>();
+        java.util.List<String> keys = new java.util.ArrayList<>();
+        for (KlineSubscription sub : wanted) {
+            if (CandleClock.isExchangeInterval(sub.interval, hyperliquid) || CandleClock.intervalMs(sub.interval) <= 0) continue;
+            picked.add(sub);
+            keys.add(sub.symbol + "@" + sub.interval);
+        }
+        java.util.Collections.sort(keys);
+        String key = marketProvider + "|" + String.join(",", keys);
+        if (picked.isEmpty()) {
+            tradeCandleSymbols = java.util.Collections.emptySet();
+            tradeCandleKey = key;
+            tradeCandles = null;
+            tradeSeriesBySymbol = new int[SymbolRegistry.MAX_SYMBOLS][];
+            if (marketDataProvider != null) {
+                try { marketDataProvider.stopTrades(); } catch (Exception ignored) {}
+            }
+            return picked;
+        }
+
+        java.util.Set<String> symbols = new java.util.HashSet<>();
+        for (KlineSubscription sub : picked) symbols.add(sub.symbol);
+        tradeCandleSymbols = symbols;
+        if (!key.equals(tradeCandleKey) || tradeCandles == null) {
+            tradeCandleKey = key;
+            // Keep open buckets across unrelated alert syncs; rebuild only when the set changes.
+            TradeCandleBuilder builder = new TradeCandleBuilder(SymbolRegistry.MAX_SERIES,
+                    (seriesId, close, isClosed, openTime) -> handleKlineEvent(seriesId, close, close, close, isClosed, openTime),
+                    tradeCandleTimers);
+            int[][] bySymbol = new int[SymbolRegistry.MAX_SYMBOLS][];
+            for (KlineSubscription sub : picked) {
+                int seriesId = registerSeries(sub.symbol, sub.interval);
+                if (seriesId < 0) continue;
+                builder.add(seriesId, CandleClock.intervalMs(sub.interval));
+                int symbolId = registry.seriesSymbol(seriesId);
+                int[] ids = bySymbol[symbolId];
+                ids = ids == null ? new int[1] : java.util.Arrays.copyOf(ids, ids.length + 1);
+                ids[ids.length - 1] = seriesId;
+                bySymbol[symbolId] = ids;
+            }
+            tradeSeriesBySymbol = bySymbol;
+            tradeCandles = builder;
+            if (!hyperliquid) backfillTradeCandles(picked);
+        }
+        getMarketDataProvider().startTrades(symbols);
+        return picked;
+    }
+
+    // Symbol loop: one trade feeds every trade-built series of its symbol.
+    private void handleTradeEvent(int symbolId, double price, long tradeTimeMs) {
+        TradeCandleBuilder builder = tradeCandles;
+        int[] series = tradeSeriesBySymbol[symbolId];
+        if (builder == null || series == null) return;
+        for (int seriesId : series) builder.onTrade(seriesId, price, tradeTimeMs);
+    }
+
+    // aggTrade frame; symbol resolves in place, and the trade time (not arrival) picks the bucket.
+    private void handleTradeMessage(String text) {
+        try {
+            int data = text.indexOf(BinanceFrameDecoder.KEY_DATA);
+            if (data < 0) return;
+            if (!BinanceFrameDecoder.stringEquals(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_EVENT, data), BinanceFrameDecoder.EVENT_AGG_TRADE)) return;
+            int symStart = BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_SYMBOL, data);
+            int symEnd = BinanceFrameDecoder.stringEnd(text, symStart);
+            if (symEnd < 0) return;
+            int symbolId = registry.findSymbol(SymbolRegistry.MARKET_SPOT, text, symStart, symEnd);
+            if (symbolId < 0) return;
+            double price = BinanceFrameDecoder.parseDecimal(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_PRICE, data));
+            long tradeTimeMs = BinanceFrameDecoder.parseLong(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_TRADE_TIME, data));
+            if (Double.isNaN(price) || tradeTimeMs == Long.MIN_VALUE) return;
+            eventLoops.postTrade(symbolId, price, tradeTimeMs);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Seeds trade-built series from the coarsest exchange interval that tiles them (1s, 1h, ...).
+    // One fetch thread for the batch; each result is applied on its series' symbol loop.
+    private void backfillTradeCandles(java.util.Set<KlineSubscription> subs) {
+        java.util.List<KlineSubscription> todo = new java.util.ArrayList<>(subs);
+        new Thread(() -> {
+            long[] lastOpen = new long[1];
+            for (KlineSubscription sub : todo) {
+                String source = CandleClock.exchangeSourceFor(sub.interval, false);
+                int seriesId = registry.findSeries(sub.symbol, sub.interval);
+                if (source == null || seriesId < 0) continue;
+                try {
+                    long ratio = CandleClock.intervalMs(sub.interval) / CandleClock.intervalMs(source);
+                    int limit = (int) Math.min(KLINE_FETCH_MAX, (requiredHistory(seriesId) + 1) * ratio);
+                    com.google.gson.JsonArray arr = fetchBinanceKlines(sub.symbol, source, limit);
+                    long now = System.currentTimeMillis();
+                    long[] openTimes = new long[arr.size()];
+                    double[] closes = new double[arr.size()];
+                    int n = readClosedCandles(arr, now, openTimes, closes);
+                    double[] rolled = rollUpCloses(openTimes, closes, n, sub.interval, now, lastOpen);
+                    // lastOpen becomes the series' lastCandleTime, so trade-built closes the loop
+                    // emitted meanwhile are kept and older flat fills aren't appended again.
+                    postHistory(seriesId, rolled, Math.max(0, rolled.length - KLINE_HISTORY_LIMIT), rolled.length, lastOpen[0]);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "TradeCandleBackfill").start();
+    }
+
+    // ============================================
+    // SCREEN-OFF LOW-POWER MODE (main thread)
+    // ============================================
+
+    // Binance finalizes a kline shortly after its boundary; poll a little later.
+    private static final long LOW_POWER_POLL_GRACE_MS = 2_000L;
+    private static final long LOW_POWER_POLL_WAKE_MS = 30_000L;
+    private static final int LOW_POWER_FETCH_LIMIT = 3;
+    private boolean screenInteractive = true;
+    private boolean lowPowerMode = false;
+    // Next close (wall ms) each polled series is waiting for; 0 = not polled
+    private final long[] lowPowerDueBySeries = new long[SymbolRegistry.MAX_SERIES];
+    private android.os.PowerManager.WakeLock pollWakeLock;
+
+    private final android.content.BroadcastReceiver screenReceiver = new android.content.BroadcastReceiver() {
+        @Override
+        public void onReceive(android.content.Context context, Intent intent) {
+            boolean on = Intent.ACTION_SCREEN_ON.equals(intent.getAction());
+            if (on == screenInteractive) return;
+            screenInteractive = on;
+            if (on ? lowPowerMode : lowPowerEligible()) connectKlineWebSocket();
+        }
+    };
+
+    // Only closed-candle confirmations; price alerts and intrabar modes need the live streams.
+    private boolean lowPowerEligible() {
+        if (!PROVIDER_BINANCE.equals(marketProvider)) return false; // REST poll is Binance-only
+        boolean any = false;
+        for (AlertConfig a : alerts) {
+            if (!a.active) continue;
+            if ("price".equals(a.targetType)) return false;
+            // Trade-built candles have no REST klines to poll.
+            if (!CandleClock.isExchangeInterval(a.interval != null ? a.interval : "1m", false)) return false;
+            boolean closedOnly = "candle_close".equals(a.confirmation)
+                    || ("candle_delay".equals(a.confirmation) && a.delayCandles > 0);
+            if (!closedOnly) return false;
+            any = true;
+        }
+        return any;
+    }
+
+    private void enterLowPowerMode() {
+        if (!lowPowerMode) {
+            lowPowerMode = true;
+            stopStandby();
+            android.util.Log.d(PERF_TAG, "low-power mode on");
+            DiagnosticsLog.append(this, "[native] low-power mode on (screen off, closed-candle alerts only)");
+            klineHandler.removeCallbacks(klineWatchdog);
+            if (marketDataProvider != null) {
+                try { marketDataProvider.stopKlines(); } catch (Exception ignored) {}
+                try { marketDataProvider.stopTrades(); } catch (Exception ignored) {}
+            } else {
+                stopBinanceKlineInternal();
+            }
+            stopWebSockets();
+            if (wakeLock != null && wakeLock.isHeld()) wakeLock.release();
+        }
+        // Alerts may have changed: recompute which series are polled and when.
+        java.util.Arrays.fill(lowPowerDueBySeries, 0L);
+        long now = System.currentTimeMillis();
+        for (AlertConfig a : alerts) {
+            if (!a.active || a.seriesId < 0) continue;
+            lowPowerDueBySeries[a.seriesId] = CandleClock.nextBoundaryMs(registry.intervalName(registry.seriesInterval(a.seriesId)), now);
+        }
+        scheduleLowPowerPoll();
+    }
+
+    private void exitLowPowerMode() {
+        lowPowerMode = false;
+        cancelLowPowerPoll();
+        java.util.Arrays.fill(lowPowerDueBySeries, 0L);
+        android.util.Log.d(PERF_TAG, "low-power mode off");
+        DiagnosticsLog.append(this, "[native] low-power mode off");
+        // Restarted kline streams backfill history through the provider; tickers resume as before.
+        if (!symbolList.isEmpty() && (windowVisible || hasPriceAlerts)) connectWebSockets();
+    }
+
+    private android.app.PendingIntent lowPowerPollIntent() {
+        Intent intent = new Intent(this, FloatingWindowService.class).setAction(ACTION_LOW_POWER_POLL);
+        return android.app.PendingIntent.getService(this, 0, intent,
+                android.app.PendingIntent.FLAG_UPDATE_CURRENT | android.app.PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private void scheduleLowPowerPoll() {
+        long next = Long.MAX_VALUE;
+        for (long due : lowPowerDueBySeries) if (due > 0 && due < next) next = due;
+        android.app.AlarmManager am = (android.app.AlarmManager) getSystemService(ALARM_SERVICE);
+        if (next == Long.MAX_VALUE || am == null) return;
+        long at = next + LOW_POWER_POLL_GRACE_MS;
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || am.canScheduleExactAlarms()) {
+            am.setExactAndAllowWhileIdle(android.app.AlarmManager.RTC_WAKEUP, at, lowPowerPollIntent());
+        } else {
+            am.setAndAllowWhileIdle(android.app.AlarmManager.RTC_WAKEUP, at, lowPowerPollIntent());
+        }
+    }
+
+    private void cancelLowPowerPoll() {
+        android.app.AlarmManager am = (android.app.AlarmManager) getSystemService(ALARM_SERVICE);
+        if (am != null) am.cancel(lowPowerPollIntent());
+    }
+
+    // Alarm fired: fetch every series whose candle has closed in one concurrent batch, then re-arm.
+    private void runLowPowerPoll() {
+        if (!lowPowerMode) return;
+        long now = System.currentTimeMillis();
+        java.util.List<Integer> due = new java.util.ArrayList<>();
+        for (int seriesId = 0; seriesId < lowPowerDueBySeries.length; seriesId++) {
+            long d = lowPowerDueBySeries[seriesId];
+            if (d <= 0 || d > now) continue;
+            due.add(seriesId);
+            lowPowerDueBySeries[seriesId] = CandleClock.nextBoundaryMs(registry.intervalName(registry.seriesInterval(seriesId)), now);
+        }
+        scheduleLowPowerPoll();
+        if (due.isEmpty()) return;
+
+        if (pollWakeLock == null) {
+            android.os.PowerManager pm = (android.os.PowerManager) getSystemService(POWER_SERVICE);
+            pollWakeLock = pm.newWakeLock(android.os.PowerManager.PARTIAL_WAKE_LOCK, "AmazeMonitor::CandlePoll");
+            pollWakeLock.setReferenceCounted(false);
+        }
+        pollWakeLock.acquire(LOW_POWER_POLL_WAKE_MS);
+        final java.util.concurrent.CountDownLatch pending = new java.util.concurrent.CountDownLatch(due.size());
+        for (int seriesId : due) {
+            String symbol = registry.symbolName(registry.seriesSymbol(seriesId));
+            String interval = registry.intervalName(registry.seriesInterval(seriesId));
+            String url = "https://api.binance.com/api/v3/klines?symbol=" + symbol + "&interval=" + interval
+                    + "&limit=" + LOW_POWER_FETCH_LIMIT;
+            client.newCall(new okhttp3.Request.Builder().url(url).build()).enqueue(new okhttp3.Callback() {
+                @Override
+                public void onFailure(okhttp3.Call call, java.io.IOException e) {
+                    finishLowPowerFetch(pending);
+                }
+
+                @Override
+                public void onResponse(okhttp3.Call call, okhttp3.Response response) {
+                    try (okhttp3.Response r = response) {
+                        if (r.isSuccessful() && r.body() != null) postClosedCandles(seriesId, r.body().string());
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    } finally {
+                        finishLowPowerFetch(pending);
+                    }
+                }
+            });
+        }
+    }
+
+    private void finishLowPowerFetch(java.util.concurrent.CountDownLatch pending) {
+        pending.countDown();
+        if (pending.getCount() == 0 && pollWakeLock != null && pollWakeLock.isHeld()) pollWakeLock.release();
+    }
+
+    // REST klines: [[openTime, open, high, low, close, volume, closeTime, ...], ...], oldest first.
+    private void postClosedCandles(int seriesId, String body) {
+        com.google.gson.JsonArray arr = com.google.gson.JsonParser.parseString(body).getAsJsonArray();
+        long now = System.currentTimeMillis();
+        long lastOpen = lastCandleTimeBySeries[seriesId];
+        for (int i = 0; i < arr.size(); i++) {
+            com.google.gson.JsonArray k = arr.get(i).getAsJsonArray();
+            long openTime = k.get(0).getAsLong();
+            long closeTime = k.get(6).getAsLong();
+            if (closeTime >= now || (lastOpen != NO_CANDLE_TIME && openTime <= lastOpen)) continue;
+            postKlineEvent(seriesId, k.get(4).getAsDouble(), true, openTime);
+        }
+    }
+
     private void fetchKlineHistory(java.util.Set<String> streams) {
         for (String stream : streams) {
             // stream format: btcusdt@kline_1m
@@ -1542,24 +3265,47 @@ public class FloatingWindowService extends Service {
             if (parts.length != 2) continue;
             String symbol = parts[0].toUpperCase();
             String interval = parts[1];
-            String key = symbol + "_" + interval;
+            int seriesId = registry.findSeries(symbol, interval);
+            if (seriesId < 0) continue;
             
+            final int[] derived = klineRollup[seriesId];
             new Thread(() -> {
                 try {
-                    String urlStr = "https://api.binance.com/api/v3/klines?symbol=" + symbol + "&interval=" + interval + "&limit=100";
-                    java.net.URL url = new java.net.URL(urlStr);
-                    java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.InputStreamReader(url.openStream()));
-                    StringBuilder sb = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) sb.append(line);
-                    reader.close();
-                    
-                    com.google.gson.JsonArray arr = com.google.gson.JsonParser.parseString(sb.toString()).getAsJsonArray();
-                    java.util.List<Double> closes = new java.util.ArrayList<>();
-                    for (int i = 0; i < arr.size(); i++) {
-                        closes.add(arr.get(i).getAsJsonArray().get(4).getAsDouble()); // Close price
+                    // One longer base fetch also backfills the rolled-up series, as far as it reaches.
+                    int limit = KLINE_HISTORY_LIMIT;
+                    long baseLen = CandleClock.intervalMs(interval);
+                    if (derived != null) {
+                        for (int d : derived) {
+                            String dInterval = registry.intervalName(registry.seriesInterval(d));
+                            long ratio = CandleClock.sortLengthMs(dInterval) / baseLen;
+                            limit = (int) Math.max(limit, Math.min(KLINE_FETCH_MAX, (KLINE_HISTORY_LIMIT + 1) * ratio));
+                        }
+                    }
+                    com.google.gson.JsonArray arr = fetchBinanceKlines(symbol, interval, limit);
+                    long now = System.currentTimeMillis();
+                    long[] openTimes = new long[arr.size()];
+                    double[] closes = new double[arr.size()];
+                    // The last REST candle is usually still forming; the stream delivers its close.
+                    int n = readClosedCandles(arr, now, openTimes, closes);
+                    if (n > 0) postHistory(seriesId, closes, Math.max(0, n - KLINE_HISTORY_LIMIT), n, openTimes[n - 1]);
+                    if (derived == null) return;
+                    long[] lastOpen = new long[1];
+                    for (int d : derived) {
+                        String dInterval = registry.intervalName(registry.seriesInterval(d));
+                        double[] rolled = rollUpCloses(openTimes, closes, n, dInterval, now, lastOpen);
+                        if (rolled.length < requiredHistory(d)) {
+                            // Too coarse to cover from base candles; fetch this one directly.
+                            com.google.gson.JsonArray direct = fetchBinanceKlines(symbol, dInterval, KLINE_HISTORY_LIMIT);
+                            long[] directOpens = new long[direct.size()];
+                            rolled = new double[direct.size()];
+                            int m = readClosedCandles(direct, System.currentTimeMillis(), directOpens, rolled);
+                            rolled = java.util.Arrays.copyOf(rolled, m);
+                            lastOpen[0] = m > 0 ? directOpens[m - 1] : NO_CANDLE_TIME;
+                        }
+                        if (rolled.length > 0) {
+                            postHistory(d, rolled, Math.max(0, rolled.length - KLINE_HISTORY_LIMIT), rolled.length, lastOpen[0]);
+                        }
                     }
-                    candleHistory.put(key, closes);
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -1567,54 +3313,100 @@ public class FloatingWindowService extends Service {
         }
     }
     
+    // Spot kline frame (see startBinanceKlinesInternal); symbol and interval resolve to a series id in place.
     private void handleKlineMessage(String text) {
         try {
-            com.google.gson.JsonObject json = com.google.gson.JsonParser.parseString(text).getAsJsonObject();
-            if (!json.has("data")) return;
-            
-            com.google.gson.JsonObject data = json.getAsJsonObject("data");
-            if (!data.has("e") || !data.get("e").getAsString().equals("kline")) return;
-            
-            String symbol = data.get("s").getAsString();
-            com.google.gson.JsonObject k = data.getAsJsonObject("k");
-            String interval = k.get("i").getAsString();
-            double close = k.get("c").getAsDouble();
-            boolean isClosed = k.get("x").getAsBoolean();
-            long openTime = k.get("t").getAsLong();
-            handleKlineEvent(symbol, interval, close, isClosed, openTime);
+            int data = text.indexOf(BinanceFrameDecoder.KEY_DATA);
+            if (data < 0) return;
+            if (!BinanceFrameDecoder.stringEquals(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_EVENT, data), BinanceFrameDecoder.EVENT_KLINE)) return;
+
+            int symStart = BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_SYMBOL, data);
+            int symEnd = BinanceFrameDecoder.stringEnd(text, symStart);
+            int k = text.indexOf(BinanceFrameDecoder.KEY_KLINE, data);
+            if (symEnd < 0 || k < 0) return;
+            int itvStart = BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_INTERVAL, k);
+            int itvEnd = BinanceFrameDecoder.stringEnd(text, itvStart);
+            if (itvEnd < 0) return;
+            int seriesId = registry.findSeries(
+                    registry.findSymbol(SymbolRegistry.MARKET_SPOT, text, symStart, symEnd),
+                    registry.findInterval(text, itvStart, itvEnd));
+            if (seriesId < 0) return;
+
+            double close = BinanceFrameDecoder.parseDecimal(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_CLOSE, k));
+            boolean isClosed = BinanceFrameDecoder.parseBoolean(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_IS_CLOSED, k));
+            long openTime = BinanceFrameDecoder.parseLong(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_OPEN_TIME, k));
+            if (Double.isNaN(close) || openTime == Long.MIN_VALUE) return;
+            double high = BinanceFrameDecoder.parseDecimal(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_HIGH, k));
+            double low = BinanceFrameDecoder.parseDecimal(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_LOW, k));
+            postKlineEvent(seriesId, close, high, low, isClosed, openTime);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private void handleKlineEvent(String symbol, String interval, double close, boolean isClosed, long openTime) {
+    private void postKlineEvent(int seriesId, double close, boolean isClosed, long openTime) {
+        postKlineEvent(seriesId, close, Double.NaN, Double.NaN, isClosed, openTime);
+    }
+
+    private void postKlineEvent(int seriesId, double close, double high, double low, boolean isClosed, long openTime) {
+        eventLoops.postKline(registry.seriesSymbol(seriesId), seriesId, close, high, low, isClosed, openTime);
+    }
+
+    /**
+     * Symbol loop: turns the candle's running high/low into the extremes traded since the
+     * previous frame (a new high/low within the same candle, or a new candle's own range), so a
+     * wick between two frames still reaches touch-style alerts. The first frame after a reset
+     * only records the range, which may predate the alerts.
+     */
+    private void handleKlineFrame(int seriesId, double close, double high, double low, boolean isClosed, long openTime) {
+        double reachHigh = close;
+        double reachLow = close;
+        long barOpen = liveBarOpenBySeries[seriesId];
+        if (barOpen != NO_CANDLE_TIME) {
+            boolean sameBar = barOpen == openTime;
+            if (high > close && (!sameBar || high > liveBarHighBySeries[seriesId])) reachHigh = high;
+            if (low < close && (!sameBar || low < liveBarLowBySeries[seriesId])) reachLow = low;
+        }
+        if (!Double.isNaN(high) && !Double.isNaN(low) && openTime >= barOpen) {
+            liveBarOpenBySeries[seriesId] = openTime;
+            liveBarHighBySeries[seriesId] = high;
+            liveBarLowBySeries[seriesId] = low;
+        }
+        handleKlineEvent(seriesId, close, reachHigh, reachLow, isClosed, openTime);
+        rollUpKline(seriesId, close, reachHigh, reachLow, isClosed, openTime);
+    }
+
+    /**
+     * Runs on the series' symbol event loop, ordered with that symbol's ticker events. reachHigh
+     * and reachLow bound the prices traded since the previous frame (just close if unknown).
+     */
+    private void handleKlineEvent(int seriesId, double close, double reachHigh, double reachLow, boolean isClosed, long openTime) {
         lastKlineMessageMs = android.os.SystemClock.uptimeMillis();
-        String key = symbol + "_" + interval;
-        Double prevLiveClose = lastLiveCloseByKlineKey.get(key);
+        double prevLiveClose = lastLiveCloseBySeries[seriesId];
 
         // Update candle history
-        java.util.List<Double> history = candleHistory.get(key);
+        CloseHistory history = historyBySeries[seriesId];
         if (history == null) {
-            history = new java.util.ArrayList<>();
-            candleHistory.put(key, history);
+            history = new CloseHistory();
+            historyBySeries[seriesId] = history;
         }
 
-        Long lastTime = lastCandleTime.get(key);
-        if (isClosed && (lastTime == null || lastTime != openTime)) {
+        long lastTime = lastCandleTimeBySeries[seriesId];
+        // Only newer closes extend history: replays and the other venue's overlap after a feed switch don't.
+        if (isClosed && openTime > lastTime) {
             history.add(close);
-            if (history.size() > 100) history.remove(0);
-            lastCandleTime.put(key, openTime);
+            lastCandleTimeBySeries[seriesId] = openTime;
 
             // Update live-close cache
-            lastLiveCloseByKlineKey.put(key, close);
+            lastLiveCloseBySeries[seriesId] = close;
 
             // Check alerts on candle close
-            checkAlertsForKline(symbol, interval, close, history, true, prevLiveClose != null ? prevLiveClose : Double.NaN);
+            checkAlertsForKline(seriesId, close, reachHigh, reachLow, history, true, prevLiveClose);
         } else if (!isClosed) {
             // Update live-close cache
-            lastLiveCloseByKlineKey.put(key, close);
+            lastLiveCloseBySeries[seriesId] = close;
             // Live update for immediate alerts
-            checkAlertsForKline(symbol, interval, close, history, false, prevLiveClose != null ? prevLiveClose : Double.NaN);
+            checkAlertsForKline(seriesId, close, reachHigh, reachLow, history, false, prevLiveClose);
         }
     }
     
@@ -1630,36 +3422,15 @@ public class FloatingWindowService extends Service {
         return alert != null && "repeat".equals(alert.repeatMode) && alert.repeatIntervalSec > 0;
     }
 
-    private void checkAlertsForKline(String symbol, String interval, double close, java.util.List<Double> history, boolean isClosed, double prevLiveClose) {
+    private void checkAlertsForKline(int seriesId, double close, double reachHigh, double reachLow,
+                                     CloseHistory history, boolean isClosed, double prevLiveClose) {
         for (AlertConfig alert : alerts) {
-            if (!alert.active || !alert.symbol.equals(symbol)) continue;
+            if (!alert.active || alert.seriesId != seriesId) continue;
             if (!isRepeatEnabled(alert) && triggeredAlerts.contains(alert.id)) continue;
             if (alert.confirmation == null || alert.confirmation.isEmpty()) alert.confirmation = "immediate";
             
-            String alertInterval = alert.interval != null ? alert.interval : "1m";
-            if (!alertInterval.equals(interval)) continue;
-            
             // Determine target(s)
-            java.util.List<Double> potentialTargets = new java.util.ArrayList<>();
-            
-            if (alert.targetType.equals("indicator")) {
-                double val = Double.NaN;
-                if (alert.targetValue != null && alert.targetValue.startsWith("fib")) {
-                    val = calculateFibLevel(alert.targetValue);
-                } else {
-                    val = calculateIndicator(alert, history); // Pass 'alert' object instead of 'alert.targetValue'
-                }
-                if (!Double.isNaN(val)) potentialTargets.add(val);
-            } else if (alert.targetType.equals("drawing") && alert.algo != null) {
-                // Dynamic drawing calculation
-                String key = symbol + "_" + interval;
-                Long t = lastCandleTime.get(key);
-                long calcTime = (isClosed && t != null) ? t : System.currentTimeMillis();
-                potentialTargets = calculateDrawingTargets(alert, calcTime);
-            } else {
-                potentialTargets.add(alert.target);
-            }
-            
+            java.util.List<Double> potentialTargets = collectTargets(alert, seriesId, history, isClosed);
             if (potentialTargets.isEmpty()) continue;
             
             // Check confirmation mode
@@ -1685,6 +3456,10 @@ public class FloatingWindowService extends Service {
             // Check condition against ALL potential targets (e.g. channel lines)
             final boolean allowUp = hasCondition(alert, "crossing_up");
             final boolean allowDown = hasCondition(alert, "crossing_down");
+            // Immediate alerts fire on a touch, so intrabar wicks count; confirmed modes judge closes.
+            final boolean touch = "immediate".equals(alert.confirmation);
+            final double upTo = touch ? reachHigh : close;
+            final double downTo = touch ? reachLow : close;
             boolean crossingMet = false;
             boolean beyondMet = false; // price stays beyond target (for delay modes)
             double triggerTarget = 0;
@@ -1692,13 +3467,13 @@ public class FloatingWindowService extends Service {
             if ("rect_zone".equals(alert.algo) && potentialTargets.size() >= 2) {
                 double high = java.util.Collections.max(potentialTargets);
                 double low = java.util.Collections.min(potentialTargets);
-                if (allowUp && crossedUp(prevClose, close, high)) {
+                if (allowUp && crossedUp(prevClose, upTo, high)) {
                     crossingMet = true;
                     triggerTarget = high;
                 } else if (allowUp && close >= high) {
                     beyondMet = true;
                     triggerTarget = high;
-                } else if (allowDown && crossedDown(prevClose, close, low)) {
+                } else if (allowDown && crossedDown(prevClose, downTo, low)) {
                     crossingMet = true;
                     triggerTarget = low;
                 } else if (allowDown && close <= low) {
@@ -1707,8 +3482,8 @@ public class FloatingWindowService extends Service {
                 }
             } else {
                 for (double tVal : potentialTargets) {
-                    boolean crossUp = allowUp && crossedUp(prevClose, close, tVal);
-                    boolean crossDown = allowDown && crossedDown(prevClose, close, tVal);
+                    boolean crossUp = allowUp && crossedUp(prevClose, upTo, tVal);
+                    boolean crossDown = allowDown && crossedDown(prevClose, downTo, tVal);
                     boolean beyondUp = allowUp && close >= tVal;
                     boolean beyondDown = allowDown && close <= tVal;
                     if (crossUp || crossDown) {
@@ -1739,21 +3514,15 @@ public class FloatingWindowService extends Service {
                 } else {
                     candleDelayCounter.put(alert.id, 0);
                 }
-                pendingDelayAlerts.remove(alert.id);
+                cancelDelayTimer(alert);
             } else if (isTimeDelay) {
                 if (beyondMet || crossingMet) {
-                    long now = System.currentTimeMillis();
-                    if (!pendingDelayAlerts.containsKey(alert.id)) {
-                        pendingDelayAlerts.put(alert.id, now);
-                    } else {
-                        long startTime = pendingDelayAlerts.get(alert.id);
-                        if (now - startTime >= alert.delaySeconds * 1000L) {
-                            triggerAlert(alert, close, triggerTarget);
-                            pendingDelayAlerts.remove(alert.id);
-                        }
+                    // The deadline fires from the symbol loop's timer wheel even if no further kline arrives.
+                    if (!eventLoops.isTimerPending(alert.symbolId, alert.delayTimer)) {
+                        alert.delayTimer = eventLoops.scheduleTimer(alert.symbolId, alert.delaySeconds * 1000L, alert.id);
                     }
                 } else {
-                    pendingDelayAlerts.remove(alert.id);
+                    cancelDelayTimer(alert);
                 }
                 candleDelayCounter.put(alert.id, 0);
             } else {
@@ -1761,12 +3530,72 @@ public class FloatingWindowService extends Service {
                 if (crossingMet) {
                     triggerAlert(alert, close, triggerTarget);
                 } else {
-                    pendingDelayAlerts.remove(alert.id);
+                    cancelDelayTimer(alert);
                     if (isClosed) candleDelayCounter.put(alert.id, 0);
                 }
             }
         }
     }
+
+    private java.util.List<Double> collectTargets(AlertConfig alert, int seriesId, CloseHistory history, boolean isClosed) {
+        java.util.List<Double> potentialTargets = new java.util.ArrayList<>();
+        if (alert.targetType.equals("indicator")) {
+            double val = Double.NaN;
+            if (alert.targetValue != null && alert.targetValue.startsWith("fib")) {
+                val = calculateFibLevel(alert.targetValue);
+            } else {
+                val = calculateIndicator(alert, history); // Pass 'alert' object instead of 'alert.targetValue'
+            }
+            if (!Double.isNaN(val)) potentialTargets.add(val);
+        } else if (alert.targetType.equals("drawing") && alert.algo != null) {
+            // Dynamic drawing calculation
+            long t = lastCandleTimeBySeries[seriesId];
+            long calcTime = (isClosed && t != NO_CANDLE_TIME) ? t : System.currentTimeMillis();
+            potentialTargets = calculateDrawingTargets(alert, calcTime);
+        } else {
+            potentialTargets.add(alert.target);
+        }
+        return potentialTargets;
+    }
+
+    // Target the price is currently beyond on an allowed side, or NaN.
+    private double beyondTarget(AlertConfig alert, java.util.List<Double> targets, double price) {
+        if (targets.isEmpty()) return Double.NaN;
+        final boolean allowUp = hasCondition(alert, "crossing_up");
+        final boolean allowDown = hasCondition(alert, "crossing_down");
+        if ("rect_zone".equals(alert.algo) && targets.size() >= 2) {
+            double high = java.util.Collections.max(targets);
+            double low = java.util.Collections.min(targets);
+            if (allowUp && price >= high) return high;
+            if (allowDown && price <= low) return low;
+            return Double.NaN;
+        }
+        for (double tVal : targets) {
+            if ((allowUp && price >= tVal) || (allowDown && price <= tVal)) return tVal;
+        }
+        return Double.NaN;
+    }
+
+    private void cancelDelayTimer(AlertConfig alert) {
+        if (alert.delayTimer == TimerWheel.NONE) return;
+        eventLoops.cancelTimer(alert.symbolId, alert.delayTimer);
+        alert.delayTimer = TimerWheel.NONE;
+    }
+
+    // Runs on the alert's symbol loop at its time_delay deadline: confirm against the latest quote.
+    private void onDelayDeadline(String alertId, long handle) {
+        AlertConfig alert = alertId != null ? alertsById.get(alertId) : null;
+        if (alert == null || alert.delayTimer != handle) return;
+        alert.delayTimer = TimerWheel.NONE;
+        if (!alert.active || alert.seriesId < 0) return;
+        if (!isRepeatEnabled(alert) && triggeredAlerts.contains(alert.id)) return;
+
+        double price = lastLiveCloseBySeries[alert.seriesId];
+        if (Double.isNaN(price) && alert.symbolId >= 0) price = lastTickerPriceById[alert.symbolId];
+        if (Double.isNaN(price)) return;
+        double target = beyondTarget(alert, collectTargets(alert, alert.seriesId, historyBySeries[alert.seriesId], false), price);
+        if (!Double.isNaN(target)) triggerAlert(alert, price, target);
+    }
     
     private java.util.List<Double> calculateDrawingTargets(AlertConfig alert, long timestampMs) {
         java.util.List<Double> results = new java.util.ArrayList<>();
@@ -1803,37 +3632,37 @@ public class FloatingWindowService extends Service {
         return results;
     }
     
-    private double calculateIndicator(AlertConfig alert, java.util.List<Double> history) {
+    private double calculateIndicator(AlertConfig alert, CloseHistory history) {
         if (history == null || history.isEmpty()) return Double.NaN;
         
         String type = alert.cachedIndType;
         if (type == null) return Double.NaN;
         int period = alert.cachedPeriod;
+        int size = history.size();
+        if (period <= 0) return Double.NaN;
         
         if (type.equals("sma") || type.equals("ma")) {
-            if (history.size() < period) return Double.NaN;
-            java.util.List<Double> values = history.subList(history.size() - period, history.size());
+            if (size < period) return Double.NaN;
             double sum = 0;
-            for (double v : values) sum += v;
+            for (int i = size - period; i < size; i++) sum += history.get(i);
             return sum / period;
         } else if (type.equals("ema")) {
-            if (history.size() < period) return Double.NaN;
-            java.util.List<Double> values = history.subList(history.size() - period, history.size());
+            if (size < period) return Double.NaN;
             double multiplier = 2.0 / (period + 1);
-            double ema = values.get(0);
-            for (int i = 1; i < values.size(); i++) {
-                ema = (values.get(i) - ema) * multiplier + ema;
+            double ema = history.get(size - period);
+            for (int i = size - period + 1; i < size; i++) {
+                ema = (history.get(i) - ema) * multiplier + ema;
             }
             return ema;
         } else if (type.equals("rsi")) {
             // RSI calculation requires period + 1 prices for changes
-            if (history.size() < period + 1) return Double.NaN;
+            if (size < period + 1) return Double.NaN;
             
             double avgGain = 0;
             double avgLoss = 0;
             
             // Calculate initial average gain/loss
-            for (int i = history.size() - period; i < history.size(); i++) {
+            for (int i = size - period; i < size; i++) {
                 double change = history.get(i) - history.get(i - 1);
                 if (change > 0) avgGain += change;
                 else avgLoss += Math.abs(change);
@@ -1865,10 +3694,11 @@ public class FloatingWindowService extends Service {
     }
     
     // Also check simple price alerts from ticker data
-    public void checkPriceAlerts(String symbol, double price, double prevPrice) {
+    // reachHigh/reachLow: extremes traded since the previous sample (at least price itself).
+    public void checkPriceAlerts(int symbolId, double price, double prevPrice, double reachHigh, double reachLow) {
         if (Double.isNaN(prevPrice)) return;
         for (AlertConfig alert : alerts) {
-            if (!alert.active || !alert.symbol.equals(symbol)) continue;
+            if (!alert.active || alert.symbolId != symbolId) continue;
             if (!isRepeatEnabled(alert) && triggeredAlerts.contains(alert.id)) continue;
             if (!alert.targetType.equals("price")) continue;
             if (alert.confirmation == null || alert.confirmation.isEmpty()) alert.confirmation = "immediate";
@@ -1876,9 +3706,9 @@ public class FloatingWindowService extends Service {
             final boolean allowUp = hasCondition(alert, "crossing_up");
             final boolean allowDown = hasCondition(alert, "crossing_down");
             boolean conditionMet = false;
-            if (allowUp && crossedUp(prevPrice, price, alert.target)) {
+            if (allowUp && crossedUp(prevPrice, reachHigh, alert.target)) {
                 conditionMet = true;
-            } else if (allowDown && crossedDown(prevPrice, price, alert.target)) {
+            } else if (allowDown && crossedDown(prevPrice, reachLow, alert.target)) {
                 conditionMet = true;
             }
             
@@ -1889,39 +3719,50 @@ public class FloatingWindowService extends Service {
     }
     
     private void triggerAlert(AlertConfig alert, double currentPrice, double targetValue) {
+        long triggeredAtNs = System.nanoTime();
         long now = System.currentTimeMillis();
 
         if (isRepeatEnabled(alert)) {
-            Long last = lastTriggeredAtMs.get(alert.id);
-            if (last != null && now - last < alert.repeatIntervalSec * 1000L) {
+            if (alert.lastTriggeredMs != 0L && now - alert.lastTriggeredMs < alert.repeatIntervalSec * 1000L) {
                 return;
             }
-            lastTriggeredAtMs.put(alert.id, now);
+            alert.lastTriggeredMs = now;
         } else {
             triggeredAlerts.add(alert.id);
         }
-        
-        final boolean allowUp = hasCondition(alert, "crossing_up");
-        final boolean allowDown = hasCondition(alert, "crossing_down");
-        String direction = allowUp && allowDown ? "↕ 穿越" : (allowUp ? "↑ 突破" : "↓ 跌破");
-        String targetStr;
-        if ("indicator".equals(alert.targetType)) {
-            targetStr = alert.targetValue != null ? alert.targetValue.toUpperCase() : String.format("%.4f", targetValue);
-        } else if ("drawing".equals(alert.targetType) || alert.targetType == null) {
-            targetStr = String.format("%.4f", targetValue);
-        } else {
-            targetStr = String.format("$%.2f", targetValue);
-        }
-        String message = alert.symbol + " " + direction + " " + targetStr + "\n当前: $" + String.format("%.2f", currentPrice);
-        
+
+        TriggerJournal journal = triggerJournal;
+        long journalSeq = journal != null
+                ? journal.append(alert.journalId, now, currentPrice, targetValue, TriggerJournal.providerCode(marketProvider))
+                : 0L;
+
+        // Only the raw values travel; formatting and all system-service work happen on the dispatcher,
+        // which also emits the live alertTriggered event to the plugin.
+        alertDispatcher.post(alertLane(alert), alert, currentPrice, targetValue, triggeredAtNs, now, journalSeq);
+    }
+
+    // Looping sound or continuous vibration marks an alert the user wants to be interrupted by.
+    private static int alertLane(AlertConfig alert) {
+        boolean urgent = "loop".equals(alert.soundRepeat)
+                || (alert.actions != null && "continuous".equals(alert.actions.vibration));
+        return urgent ? AlertDispatcher.LANE_CRITICAL : AlertDispatcher.LANE_NORMAL;
+    }
+
+    private static final long[] CONTINUOUS_VIBRATION = new long[]{0, 1000, 200, 1000, 200, 1000};
+    private static final long ONCE_VIBRATION_MS = 500L;
+
+    // Dispatcher thread: the only place alert actions touch system services.
+    private void runAlertActions(AlertConfig alert, double currentPrice, double targetValue, long triggeredAtNs) {
         // Send notification
         if (alert.actions == null || alert.actions.notification) {
-            sendNotification(alert.symbol + " 预警触发", message, alert.id.hashCode());
+            String message = formatAlertMessage(alert, currentPrice, targetValue);
+            notificationCoalescer.offer(alert.id.hashCode(), alert.symbol + " 预警触发", message,
+                    message.replace('\n', ' '), android.os.SystemClock.elapsedRealtime());
         }
         
         // Play Sound
         if (alert.soundId > 0) {
-            playAlertSoundWithRepeat(alert);
+            playAlertSoundWithRepeat(alert, triggeredAtNs);
         }
 
         // Vibrate
@@ -1929,30 +3770,40 @@ public class FloatingWindowService extends Service {
         if (vib == null) vib = "once";
         if (!"none".equals(vib)) {
             try {
-                android.os.Vibrator v = (android.os.Vibrator) getSystemService(android.content.Context.VIBRATOR_SERVICE);
+                if (vibrator == null) vibrator = (android.os.Vibrator) getSystemService(android.content.Context.VIBRATOR_SERVICE);
+                android.os.Vibrator v = vibrator;
                 if (v != null) {
                     if ("continuous".equals(vib)) {
-                        long[] pattern = new long[]{0, 1000, 200, 1000, 200, 1000};
                         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
-                            v.vibrate(android.os.VibrationEffect.createWaveform(pattern, -1));
+                            v.vibrate(android.os.VibrationEffect.createWaveform(CONTINUOUS_VIBRATION, -1));
                         } else {
-                            v.vibrate(pattern, -1);
+                            v.vibrate(CONTINUOUS_VIBRATION, -1);
                         }
                     } else {
                         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
-                            v.vibrate(android.os.VibrationEffect.createOneShot(500, android.os.VibrationEffect.DEFAULT_AMPLITUDE));
+                            v.vibrate(android.os.VibrationEffect.createOneShot(ONCE_VIBRATION_MS, android.os.VibrationEffect.DEFAULT_AMPLITUDE));
                         } else {
-                            v.vibrate(500);
+                            v.vibrate(ONCE_VIBRATION_MS);
                         }
                     }
                 }
             } catch (Exception ignored) {}
         }
-        
-        // Notify plugin to update JS (mark as inactive)
-        if (tickerListener != null) {
-            // Could add a separate listener for alert triggers
+    }
+
+    private String formatAlertMessage(AlertConfig alert, double currentPrice, double targetValue) {
+        final boolean allowUp = hasCondition(alert, "crossing_up");
+        final boolean allowDown = hasCondition(alert, "crossing_down");
+        String direction = allowUp && allowDown ? "↕ 穿越" : (allowUp ? "↑ 突破" : "↓ 跌破");
+        String targetStr;
+        if ("indicator".equals(alert.targetType)) {
+            targetStr = alert.targetValue != null ? alert.targetValue.toUpperCase() : String.format("%.4f", targetValue);
+        } else if ("drawing".equals(alert.targetType) || alert.targetType == null) {
+            targetStr = String.format("%.4f", targetValue);
+        } else {
+            targetStr = String.format("$%.2f", targetValue);
         }
+        return alert.symbol + " " + direction + " " + targetStr + "\n当前: $" + String.format("%.2f", currentPrice);
     }
 
     private int getToneType(int soundId) {
@@ -1987,73 +3838,84 @@ public class FloatingWindowService extends Service {
         }
     }
 
+    // Runs on the sound scheduler thread.
+    private int playTone(int soundId, long triggeredAtNs) {
+        if (audioEngine != null) {
+            int ms = audioEngine.play(soundId, triggeredAtNs);
+            if (ms >= 0) return ms;
+        }
+        if (toneGenerator == null) {
+            try {
+                toneGenerator = new android.media.ToneGenerator(android.media.AudioManager.STREAM_ALARM, 100);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        if (toneGenerator == null) return 0;
+        int durationMs = getToneDurationMs(soundId);
+        toneGenerator.startTone(getToneType(soundId), durationMs);
+        return durationMs;
+    }
+
     private void playAlertSoundOnce(int soundId) {
-        if (toneGenerator == null) return;
-        toneGenerator.startTone(getToneType(soundId), getToneDurationMs(soundId));
+        soundScheduler.playOnce(soundId, AlertSoundScheduler.PRIORITY_PREVIEW, System.nanoTime());
     }
 
-    private void playAlertSoundWithRepeat(AlertConfig alert) {
+    private void playAlertSoundWithRepeat(AlertConfig alert, long triggeredAtNs) {
         if (alert == null || alert.soundId <= 0) return;
         if (!"loop".equals(alert.soundRepeat)) {
-            playAlertSoundOnce(alert.soundId);
+            soundScheduler.playOnce(alert.soundId, AlertSoundScheduler.PRIORITY_ONCE, triggeredAtNs);
             return;
         }
 
-        final long token = System.currentTimeMillis();
-        soundLoopTokens.put(alert.id, token);
-
-        final int soundId = alert.soundId;
-        final int toneDurationMs = getToneDurationMs(soundId);
         final long pauseMs = Math.max(0, alert.loopPause) * 1000L;
         final long totalMs = Math.max(5, alert.soundDuration) * 1000L;
-        final long endAt = System.currentTimeMillis() + totalMs;
-
-        new Thread(() -> {
-            try {
-                while (System.currentTimeMillis() < endAt) {
-                    Long currentToken = soundLoopTokens.get(alert.id);
-                    if (currentToken == null || currentToken != token) return;
-                    playAlertSoundOnce(soundId);
-                    Thread.sleep(toneDurationMs + pauseMs);
-                }
-            } catch (InterruptedException ignored) {
-            }
-        }, "AlertSoundLoop-" + alert.id).start();
+        soundScheduler.startLoop(alert.id, alert.soundId, AlertSoundScheduler.PRIORITY_LOOP, pauseMs, totalMs, triggeredAtNs);
     }
     
-    private void sendNotification(String title, String message, int id) {
-        String channelId = "alert_channel_v2";
-        
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+    private static final String ALERT_CHANNEL_ID = "alert_channel_v2";
+    private static final String ALERT_GROUP_KEY = "price_alerts";
+    private static final int ALERT_SUMMARY_NOTIFICATION_ID = 2; // 1 is the foreground notification
+    // Created once on the dispatcher thread and reused; only that thread touches them.
+    private NotificationManager alertNotificationManager;
+    private NotificationCompat.Builder alertNotificationBuilder;
+    private NotificationCompat.BigTextStyle alertNotificationStyle;
+    private NotificationCompat.Builder alertSummaryBuilder;
+    private android.os.Vibrator vibrator;
+
+    private void ensureAlertNotifications() {
+        if (alertNotificationBuilder != null) return;
+        alertNotificationManager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && alertNotificationManager != null) {
             NotificationChannel channel = new NotificationChannel(
-                channelId, "价格预警", NotificationManager.IMPORTANCE_HIGH
+                ALERT_CHANNEL_ID, "价格预警", NotificationManager.IMPORTANCE_HIGH
             );
             channel.setDescription("价格预警通知");
             channel.enableVibration(false);
             channel.setSound(null, null);
             channel.setLockscreenVisibility(Notification.VISIBILITY_PUBLIC);
-            getSystemService(NotificationManager.class).createNotificationChannel(channel);
+            alertNotificationManager.createNotificationChannel(channel);
         }
         
-        // Create intent to open app when notification is clicked
+        // Every alert opens the app the same way, so one PendingIntent serves them all
         Intent openIntent = getPackageManager().getLaunchIntentForPackage(getPackageName());
         android.app.PendingIntent pendingIntent = null;
         if (openIntent != null) {
             openIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
             pendingIntent = android.app.PendingIntent.getActivity(
-                this, id, openIntent, 
+                this, 0, openIntent, 
                 android.app.PendingIntent.FLAG_UPDATE_CURRENT | android.app.PendingIntent.FLAG_IMMUTABLE
             );
         }
         
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, channelId)
-            .setContentTitle(title)
-            .setContentText(message)
-            .setStyle(new NotificationCompat.BigTextStyle().bigText(message))
+        alertNotificationStyle = new NotificationCompat.BigTextStyle();
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, ALERT_CHANNEL_ID)
+            .setStyle(alertNotificationStyle)
             .setSmallIcon(android.R.drawable.ic_dialog_alert)
             .setPriority(NotificationCompat.PRIORITY_HIGH)
             .setCategory(NotificationCompat.CATEGORY_MESSAGE)
             .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+            .setGroup(ALERT_GROUP_KEY)
             .setDefaults(0)
             .setAutoCancel(true);
         
@@ -2061,14 +3923,67 @@ public class FloatingWindowService extends Service {
             builder.setContentIntent(pendingIntent);
             builder.setFullScreenIntent(pendingIntent, true); // Heads-up style
         }
-        
-        NotificationManager nm = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
-        if (nm != null) nm.notify(id, builder.build());
+        alertNotificationBuilder = builder;
+
+        // Storm summary: grouped, no full-screen intent, updates don't re-alert.
+        alertSummaryBuilder = new NotificationCompat.Builder(this, ALERT_CHANNEL_ID)
+            .setSmallIcon(android.R.drawable.ic_dialog_alert)
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setCategory(NotificationCompat.CATEGORY_MESSAGE)
+            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+            .setGroup(ALERT_GROUP_KEY)
+            .setGroupSummary(true)
+            .setOnlyAlertOnce(true)
+            .setDefaults(0)
+            .setAutoCancel(true);
+        if (pendingIntent != null) alertSummaryBuilder.setContentIntent(pendingIntent);
+    }
+
+    // Dispatcher thread only (via notificationCoalescer).
+    private void postAlertNotification(int id, String title, String message) {
+        ensureAlertNotifications();
+        if (alertNotificationManager == null) return;
+        alertNotificationStyle.bigText(message);
+        alertNotificationBuilder
+            .setWhen(System.currentTimeMillis())
+            .setContentTitle(title)
+            .setContentText(message);
+        alertNotificationManager.notify(id, alertNotificationBuilder.build());
+    }
+
+    private void postAlertSummary(java.util.List<String> lines, int total) {
+        ensureAlertNotifications();
+        if (alertNotificationManager == null) return;
+        String title = "价格预警 ×" + total;
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle().setBigContentTitle(title);
+        for (String line : lines) style.addLine(line);
+        if (total > lines.size()) style.setSummaryText("另有 " + (total - lines.size()) + " 条");
+        alertSummaryBuilder
+            .setWhen(System.currentTimeMillis())
+            .setContentTitle(title)
+            .setContentText(lines.isEmpty() ? "" : lines.get(lines.size() - 1))
+            .setStyle(style);
+        alertNotificationManager.notify(ALERT_SUMMARY_NOTIFICATION_ID, alertSummaryBuilder.build());
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
+        if (runningInstance == this) runningInstance = null;
+        tickerConflator.stop();
+        eventLoops.stop();
+        tickerFrames.stop();
+        klineFrames.stop();
+        alertDispatcher.stop();
+        soundScheduler.stop();
+        if (audioEngine != null) audioEngine.release();
+        mainHandler.removeCallbacks(pipelineStatsReporter);
+        mainHandler.removeCallbacks(quoteCheckpointer);
+        checkpointQuotes();
+        try { unregisterReceiver(screenReceiver); } catch (Exception ignored) {}
+        cancelLowPowerPoll();
+        stopStandby();
+        if (spotRace != null) spotRace.shutdown();
         if (marketDataProvider != null) {
             try { marketDataProvider.shutdown(); } catch (Exception ignored) {}
         } else {
@@ -0,0 +1,89 @@
+package com.binance.pricemonitor;
+
+/**
+ * Folds alert storms into one grouped summary. The first alert after a quiet period is posted
+ * on its own right away; alerts arriving inside the following window are collected and posted
+ * together as a summary when the window closes, which then opens the next window. The storm
+ * ends when a window closes with nothing new.
+ *
+ * Every post spends a token from a {@link #MAX_PER_SECOND} bucket, keeping us under the
+ * platform's per-app notification rate limit. Single-threaded (the alert dispatcher).
+ */
+final class NotificationCoalescer {
+
+    interface Poster {
+        void postSingle(int id, String title, String message);
+
+        /** lines holds the storm's newest {@link #MAX_LINES} entries, oldest first; total counts all of it. */
+        void postSummary(java.util.List<String> lines, int total);
+    }
+
+    static final long WINDOW_MS = 1500L;
+    static final int MAX_PER_SECOND = 4;
+    static final int MAX_LINES = 20;
+
+    private final Poster poster;
+    private final java.util.ArrayList<String> lines = new java.util.ArrayList<>(MAX_LINES);
+    private int stormTotal = 0;
+    private int pending = 0;
+    private long windowEndMs = Long.MIN_VALUE;
+    private double tokens = MAX_PER_SECOND;
+    private long tokensAtMs = Long.MIN_VALUE;
+
+    NotificationCoalescer(Poster poster) {
+        this.poster = poster;
+    }
+
+    void offer(int id, String title, String message, String line, long nowMs) {
+        refill(nowMs);
+        if (pending == 0 && nowMs >= windowEndMs && tokens >= 1) {
+            tokens -= 1;
+            lines.clear();
+            lines.add(line);
+            stormTotal = 1;
+            windowEndMs = nowMs + WINDOW_MS;
+            poster.postSingle(id, title, message);
+            return;
+        }
+        stormTotal++;
+        pending++;
+        // Keep the newest lines; the summary shows the last one as its collapsed text.
+        if (lines.size() == MAX_LINES) lines.remove(0);
+        lines.add(line);
+    }
+
+    /**
+     * Counts alerts that were evicted before they could be offered. They have no line of their
+     * own and show up only in the summary's total, which then reports them as "more".
+     */
+    void absorb(int count, long nowMs) {
+        if (count <= 0) return;
+        if (pending == 0 && nowMs >= windowEndMs) {
+            // Outside any storm: don't let the last storm's lines stand in for these.
+            lines.clear();
+            stormTotal = 0;
+        }
+        stormTotal += count;
+        pending += count;
+    }
+
+    /** Posts the summary if its window has closed; returns ms until the next poll is needed, -1 if none. */
+    long poll(long nowMs) {
+        if (pending == 0) return -1L;
+        if (nowMs < windowEndMs) return windowEndMs - nowMs;
+        refill(nowMs);
+        if (tokens < 1) return Math.max(1L, (long) Math.ceil((1 - tokens) * 1000.0 / MAX_PER_SECOND));
+        tokens -= 1;
+        pending = 0;
+        windowEndMs = nowMs + WINDOW_MS;
+        poster.postSummary(lines, stormTotal);
+        return -1L;
+    }
+
+    private void refill(long nowMs) {
+        if (tokensAtMs != Long.MIN_VALUE) {
+            tokens = Math.min(MAX_PER_SECOND, tokens + (nowMs - tokensAtMs) * MAX_PER_SECOND / 1000.0);
+        }
+        tokensAtMs = nowMs;
+    }
+}
@@ -0,0 +1,153 @@
+package com.binance.pricemonitor;
+
+/**
+ * One stage of the market-data pipeline: a preallocated bounded ring drained in batches by a
+ * single consumer thread. Any number of producers may offer; what happens when the ring is full
+ * is the stage's {@link Overflow} policy.
+ */
+final class PipelineStage<T> {
+
+    enum Overflow {
+        /** Producer waits for space (nothing is lost; back-pressure reaches the producer). */
+        BLOCK,
+        /** The offered item is discarded. */
+        DROP_NEWEST,
+        /** The oldest queued item is discarded to make room. */
+        DROP_OLDEST
+    }
+
+    interface Handler<T> {
+        void handle(T item, int tag);
+    }
+
+    private static final int BATCH = 64;
+
+    private final Handler<T> handler;
+    private final Overflow overflow;
+    private final int capacity;
+    private final Object[] items;
+    private final int[] tags;
+    private final long[] enqueuedAtNs;
+    private final StageStats stats;
+
+    // Guarded by this.
+    private long head = 0L;
+    private long tail = 0L;
+    private boolean consumerWaiting = false;
+    private boolean producerWaiting = false;
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    PipelineStage(String name, int capacity, Overflow overflow, Handler<T> handler) {
+        this.handler = handler;
+        this.overflow = overflow;
+        this.capacity = capacity;
+        this.items = new Object[capacity];
+        this.tags = new int[capacity];
+        this.enqueuedAtNs = new long[capacity];
+        this.stats = new StageStats(name);
+    }
+
+    synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::drainLoop, "Stage-" + stats.name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void stop() {
+        running = false;
+        thread = null;
+        notifyAll();
+    }
+
+    /** Returns false when the item was dropped (or the stage is stopped). */
+    synchronized boolean offer(T item, int tag) {
+        if (!running) return false;
+        if (tail - head >= capacity) {
+            switch (overflow) {
+                case DROP_NEWEST:
+                    stats.dropped++;
+                    return false;
+                case DROP_OLDEST:
+                    items[(int) (head % capacity)] = null;
+                    head++;
+                    stats.dropped++;
+                    break;
+                default:
+                    while (tail - head >= capacity && running) {
+                        producerWaiting = true;
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return false;
+                        }
+                    }
+                    if (!running) return false;
+            }
+        }
+        int slot = (int) (tail % capacity);
+        items[slot] = item;
+        tags[slot] = tag;
+        enqueuedAtNs[slot] = System.nanoTime();
+        tail++;
+        stats.recordEnqueue((int) (tail - head));
+        if (consumerWaiting) {
+            consumerWaiting = false;
+            notifyAll();
+        }
+        return true;
+    }
+
+    synchronized String describe() {
+        return stats.format((int) (tail - head));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drainLoop() {
+        Object[] batchItems = new Object[BATCH];
+        int[] batchTags = new int[BATCH];
+        long[] batchAt = new long[BATCH];
+        while (running) {
+            int n = 0;
+            synchronized (this) {
+                while (head == tail && running) {
+                    consumerWaiting = true;
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                // Claim a batch and free its slots at once, so DROP_OLDEST never races the consumer.
+                while (head < tail && n < BATCH) {
+                    int slot = (int) (head % capacity);
+                    batchItems[n] = items[slot];
+                    batchTags[n] = tags[slot];
+                    batchAt[n] = enqueuedAtNs[slot];
+                    items[slot] = null;
+                    head++;
+                    n++;
+                }
+                if (producerWaiting) {
+                    producerWaiting = false;
+                    notifyAll();
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                long t0 = System.nanoTime();
+                try {
+                    handler.handle((T) batchItems[i], batchTags[i]);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                long t1 = System.nanoTime();
+                stats.recordProcessed(t0 - batchAt[i], t1 - t0);
+                batchItems[i] = null;
+            }
+        }
+    }
+}
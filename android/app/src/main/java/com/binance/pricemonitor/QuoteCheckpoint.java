@@ -0,0 +1,117 @@
+package com.binance.pricemonitor;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Last-known quote per watched symbol in a small memory-mapped file, so a fresh service can show
+ * prices before its sockets deliver anything. Saving rewrites the rows in place between an odd
+ * and an even header sequence; a load that finds the sequence odd (process died mid-save) ignores
+ * the file. The kernel writes the pages back, so a save never waits on storage.
+ */
+final class QuoteCheckpoint {
+    static final class Row {
+        String symbol;
+        double price;
+        double changePercent;
+        long eventTimeMs;
+    }
+
+    static final int CAPACITY = 256;
+    static final int RECORD_SIZE = 64;
+    private static final String FILE_NAME = "quote_checkpoint.bin";
+    private static final int MAGIC = 0x51434B50; // "QCKP"
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 32;
+
+    // Header: magic, format, record size, capacity (ints), then seq (long), provider, count (ints).
+    private static final int H_SEQ = 16;
+    private static final int H_PROVIDER = 24;
+    private static final int H_COUNT = 28;
+    // Record layout.
+    private static final int R_PRICE = 0;
+    private static final int R_CHANGE = 8;
+    private static final int R_TIME = 16;
+    private static final int R_NAME_LEN = 24;
+    private static final int R_NAME = 25;
+    private static final int MAX_NAME_BYTES = RECORD_SIZE - R_NAME;
+
+    private final MappedByteBuffer buf;
+
+    private QuoteCheckpoint(MappedByteBuffer buf) {
+        this.buf = buf;
+        if (buf.getInt(0) != MAGIC || buf.getInt(4) != FORMAT
+                || buf.getInt(8) != RECORD_SIZE || buf.getInt(12) != CAPACITY) {
+            buf.putInt(H_COUNT, 0);
+            buf.putLong(H_SEQ, 0L);
+            buf.putInt(0, MAGIC);
+            buf.putInt(4, FORMAT);
+            buf.putInt(8, RECORD_SIZE);
+            buf.putInt(12, CAPACITY);
+        }
+    }
+
+    /** Maps the checkpoint file, or returns null if it can't be mapped. */
+    static QuoteCheckpoint open(Context context) {
+        File file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // The mapping stays valid after the channel is closed.
+            MappedByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) CAPACITY * RECORD_SIZE);
+            return new QuoteCheckpoint(mapped);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /** Rows saved under provider (a TriggerJournal provider code); empty if none or torn. */
+    synchronized java.util.List<Row> load(int provider) {
+        java.util.List<Row> out = new java.util.ArrayList<>();
+        long seq = buf.getLong(H_SEQ);
+        if ((seq & 1L) != 0 || buf.getInt(H_PROVIDER) != provider) return out;
+        int count = Math.min(Math.max(buf.getInt(H_COUNT), 0), CAPACITY);
+        byte[] name = new byte[MAX_NAME_BYTES];
+        for (int i = 0; i < count; i++) {
+            int base = HEADER_SIZE + i * RECORD_SIZE;
+            int len = Math.min(buf.get(base + R_NAME_LEN) & 0xff, MAX_NAME_BYTES);
+            if (len == 0) continue;
+            for (int j = 0; j < len; j++) name[j] = buf.get(base + R_NAME + j);
+            Row r = new Row();
+            r.symbol = new String(name, 0, len, StandardCharsets.UTF_8);
+            r.price = buf.getDouble(base + R_PRICE);
+            r.changePercent = buf.getDouble(base + R_CHANGE);
+            r.eventTimeMs = buf.getLong(base + R_TIME);
+            out.add(r);
+        }
+        return out;
+    }
+
+    /** Replaces the saved rows (at most CAPACITY are kept). */
+    synchronized void save(int provider, java.util.List<Row> rows) {
+        long seq = buf.getLong(H_SEQ);
+        if ((seq & 1L) != 0) seq++;
+        buf.putLong(H_SEQ, seq + 1);
+        int count = 0;
+        for (Row r : rows) {
+            if (count >= CAPACITY) break;
+            byte[] name = r.symbol.getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_NAME_BYTES) continue;
+            int base = HEADER_SIZE + count * RECORD_SIZE;
+            buf.putDouble(base + R_PRICE, r.price);
+            buf.putDouble(base + R_CHANGE, r.changePercent);
+            buf.putLong(base + R_TIME, r.eventTimeMs);
+            buf.put(base + R_NAME_LEN, (byte) name.length);
+            for (int j = 0; j < name.length; j++) buf.put(base + R_NAME + j, name[j]);
+            count++;
+        }
+        buf.putInt(H_PROVIDER, provider);
+        buf.putInt(H_COUNT, count);
+        buf.putLong(H_SEQ, seq + 2);
+    }
+}
@@ -0,0 +1,153 @@
+package com.binance.pricemonitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latest quote per symbol id: price, change percent, event time and a version from one
+ * monotonic counter. Preallocated for {@link SymbolRegistry#MAX_SYMBOLS}, so writes allocate nothing.
+ *
+ * Each row is guarded by a sequence lock: the writer makes the row's sequence odd, stores the
+ * fields and makes it even again; readers retry until they see the same even sequence before and
+ * after copying. UI, bridge and replay get consistent snapshots without taking a lock, and
+ * writers claim only their own row (a CAS on its sequence), so symbol loops never contend.
+ *
+ * Rows can also be seeded from a REST snapshot after a reconnect. Seed and live writes race, so
+ * both are ordered by exchange event time: a seed never replaces a newer row, and a live frame
+ * older than the seed it would replace is dropped. The first live write clears the seed mark.
+ * Rows restored from the last run's checkpoint read as stale until anything newer replaces them.
+ */
+final class QuoteTable {
+    private static final int FIELDS = 5;
+    private static final int PRICE = 0;
+    private static final int CHANGE = 1;
+    private static final int EVENT_TIME = 2;
+    private static final int VERSION = 3;
+    private static final int ORIGIN = 4;
+    private static final long ORIGIN_LIVE = 0L;
+    private static final long ORIGIN_SNAPSHOT = 1L;
+    private static final long ORIGIN_RESTORED = 2L;
+
+    /** Reader-owned copy of one row; reuse it across reads. */
+    static final class Snapshot {
+        double price;
+        double changePercent;
+        long eventTimeMs;
+        long version;
+        boolean stale;
+    }
+
+    private final int capacity;
+    private final AtomicLongArray seq;
+    // Doubles are stored as raw long bits so every field access is a volatile read/write.
+    private final AtomicLongArray rows;
+    private final AtomicLong version = new AtomicLong(0L);
+
+    QuoteTable(int capacity) {
+        this.capacity = capacity;
+        this.seq = new AtomicLongArray(capacity);
+        this.rows = new AtomicLongArray(capacity * FIELDS);
+    }
+
+    /** Live write; returns the row's new version, or -1 if a newer seed is already there. */
+    long write(int id, double price, double changePercent, long eventTimeMs) {
+        if (id < 0 || id >= capacity) return -1L;
+        int base = id * FIELDS;
+        long s = claim(id);
+        if (rows.get(base + ORIGIN) != ORIGIN_LIVE && rows.get(base + VERSION) != 0L
+                && eventTimeMs < rows.get(base + EVENT_TIME)) {
+            seq.set(id, s);
+            return -1L;
+        }
+        return put(id, s, price, changePercent, eventTimeMs, ORIGIN_LIVE);
+    }
+
+    /** Snapshot write; returns the row's new version, or -1 if the row already holds newer data. */
+    long seed(int id, double price, double changePercent, long eventTimeMs) {
+        if (id < 0 || id >= capacity) return -1L;
+        int base = id * FIELDS;
+        long s = claim(id);
+        if (rows.get(base + VERSION) != 0L && rows.get(base + EVENT_TIME) >= eventTimeMs) {
+            seq.set(id, s);
+            return -1L;
+        }
+        return put(id, s, price, changePercent, eventTimeMs, ORIGIN_SNAPSHOT);
+    }
+
+    /** Last run's value, shown as stale; only fills empty rows. Returns the version or -1. */
+    long restore(int id, double price, double changePercent, long eventTimeMs) {
+        if (id < 0 || id >= capacity) return -1L;
+        long s = claim(id);
+        if (rows.get(id * FIELDS + VERSION) != 0L) {
+            seq.set(id, s);
+            return -1L;
+        }
+        return put(id, s, price, changePercent, eventTimeMs, ORIGIN_RESTORED);
+    }
+
+    /**
+     * Makes row id's sequence odd for this writer alone and returns the even value it had.
+     * Writers of different rows never touch a shared lock; two writers of one row (a seed racing
+     * the row's symbol loop) spin briefly. Releasing with the returned value leaves the row as it was.
+     */
+    private long claim(int id) {
+        while (true) {
+            long s = seq.get(id);
+            if ((s & 1L) == 0 && seq.compareAndSet(id, s, s + 1)) return s;
+            Thread.yield();
+        }
+    }
+
+    // Caller holds the row claimed at even sequence s.
+    private long put(int id, long s, double price, double changePercent, long eventTimeMs, long origin) {
+        // Taken after the claim, so a reader that saw the counter at v also sees this row at v or later.
+        long v = version.incrementAndGet();
+        int base = id * FIELDS;
+        rows.set(base + PRICE, Double.doubleToRawLongBits(price));
+        rows.set(base + CHANGE, Double.doubleToRawLongBits(changePercent));
+        rows.set(base + EVENT_TIME, eventTimeMs);
+        rows.set(base + VERSION, v);
+        rows.set(base + ORIGIN, origin);
+        seq.set(id, s + 2);
+        return v;
+    }
+
+    /** Copies row id into out; false if the row has never been written (or was cleared). */
+    boolean read(int id, Snapshot out) {
+        if (id < 0 || id >= capacity) return false;
+        int base = id * FIELDS;
+        while (true) {
+            long s0 = seq.get(id);
+            if ((s0 & 1L) != 0) {
+                Thread.yield();
+                continue;
+            }
+            long v = rows.get(base + VERSION);
+            long price = rows.get(base + PRICE);
+            long change = rows.get(base + CHANGE);
+            long eventTime = rows.get(base + EVENT_TIME);
+            long origin = rows.get(base + ORIGIN);
+            if (seq.get(id) != s0) continue;
+            if (v == 0L) return false;
+            out.price = Double.longBitsToDouble(price);
+            out.changePercent = Double.longBitsToDouble(change);
+            out.eventTimeMs = eventTime;
+            out.version = v;
+            out.stale = origin == ORIGIN_RESTORED;
+            return true;
+        }
+    }
+
+    long currentVersion() {
+        return version.get();
+    }
+
+    /** Empties every row; the version counter keeps counting so pulled watermarks stay valid. */
+    void clear() {
+        for (int id = 0; id < capacity; id++) {
+            long s = claim(id);
+            rows.set(id * FIELDS + VERSION, 0L);
+            seq.set(id, s + 2);
+        }
+    }
+}
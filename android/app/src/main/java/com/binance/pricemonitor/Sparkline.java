@@ -0,0 +1,82 @@
+package com.binance.pricemonitor;
+
+/**
+ * Fixed-size ring of recent prices for one symbol, downsampled at ingest into time buckets.
+ * One bucket maps to one column of the overlay sparkline, so memory stays bounded per symbol.
+ */
+final class Sparkline {
+    static final int POINTS = 48; // == SparklineView width in dp (one bucket per column)
+    static final long WINDOW_MS = 4L * 60L * 60_000L; // intraday: last 4h
+    static final long BUCKET_MS = WINDOW_MS / POINTS; // 5 min
+
+    private final float[] values = new float[POINTS];
+    private long currentBucket = -1L;
+    private int head = -1; // slot of the in-progress bucket
+    private int filled = 0; // buckets written, including the in-progress one
+    private int generation = 0; // bumped whenever a bucket completes
+
+    /**
+     * Records the latest price. Returns true when this call closed at least one bucket
+     * (i.e. the drawn path changed and the view should be invalidated).
+     */
+    synchronized boolean add(double price, long timeMs) {
+        if (Double.isNaN(price) || price <= 0) return false;
+        long bucket = timeMs / BUCKET_MS;
+        if (head < 0) {
+            currentBucket = bucket;
+            head = 0;
+            filled = 1;
+            values[0] = (float) price;
+            return false;
+        }
+        if (bucket <= currentBucket) {
+            // Same bucket (or clock went backwards): last price wins.
+            values[head] = (float) price;
+            return false;
+        }
+        // Carry the previous close across empty buckets so gaps render flat.
+        long steps = Math.min(bucket - currentBucket, POINTS);
+        float carry = values[head];
+        for (long i = 1; i < steps; i++) {
+            head = (head + 1) % POINTS;
+            values[head] = carry;
+            if (filled < POINTS) filled++;
+        }
+        head = (head + 1) % POINTS;
+        values[head] = (float) price;
+        if (filled < POINTS) filled++;
+        currentBucket = bucket;
+        generation++;
+        return true;
+    }
+
+    /**
+     * Copies completed buckets into dst, oldest first. Returns the number of points written.
+     */
+    synchronized int copyCompleted(float[] dst) {
+        int n = Math.min(filled - 1, dst.length);
+        if (n <= 0) return 0;
+        int start = head - n;
+        if (start < 0) start += POINTS;
+        for (int i = 0; i < n; i++) {
+            dst[i] = values[(start + i) % POINTS];
+        }
+        return n;
+    }
+
+    /** Latest price of the in-progress bucket, NaN before the first one. */
+    synchronized float latest() {
+        return head < 0 ? Float.NaN : values[head];
+    }
+
+    synchronized int generation() {
+        return generation;
+    }
+
+    synchronized void clear() {
+        currentBucket = -1L;
+        head = -1;
+        filled = 0;
+        generation++;
+    }
+}
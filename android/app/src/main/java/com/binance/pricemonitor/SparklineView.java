@@ -0,0 +1,105 @@
+package com.binance.pricemonitor;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.TypedValue;
+import android.view.View;
+
+/**
+ * Draws a {@link Sparkline}. The path over completed buckets is rebuilt only when the ring has
+ * completed a new bucket; other redraws (layout, page flips, price refreshes) replay it and add
+ * one segment to the in-progress bucket's latest price, on the cached path's scale.
+ */
+final class SparklineView extends View {
+    private static final int COLOR_UP = 0xFF00CC88;
+    private static final int COLOR_DOWN = 0xFFFF4444;
+
+    private final Path path = new Path();
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float[] points = new float[Sparkline.POINTS];
+    private Sparkline sparkline;
+    private int builtGeneration = -1;
+    private int builtWidth = -1;
+    private int builtHeight = -1;
+    // Scale and last point of the cached path, for the live segment.
+    private float builtMin;
+    private float builtRange;
+    private float lastX = Float.NaN;
+    private float lastY;
+
+    SparklineView(Context context, Sparkline sparkline) {
+        super(context);
+        this.sparkline = sparkline;
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeJoin(Paint.Join.ROUND);
+        paint.setStrokeWidth(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1.2f, context.getResources().getDisplayMetrics()));
+    }
+
+    void setSparkline(Sparkline sparkline) {
+        if (this.sparkline == sparkline) return;
+        this.sparkline = sparkline;
+        builtGeneration = -1;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (sparkline == null) return;
+        int w = getWidth() - getPaddingLeft() - getPaddingRight();
+        int h = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (w <= 0 || h <= 0) return;
+        int gen = sparkline.generation();
+        if (gen != builtGeneration || w != builtWidth || h != builtHeight) {
+            rebuildPath(w, h);
+            builtGeneration = gen;
+            builtWidth = w;
+            builtHeight = h;
+        }
+        if (!path.isEmpty()) canvas.drawPath(path, paint);
+        float live = sparkline.latest();
+        if (Float.isNaN(lastX) || Float.isNaN(live)) return;
+        // Outside the completed range the segment pins to the edge until the next rebuild rescales.
+        float norm = builtRange > 0f ? (live - builtMin) / builtRange : 0.5f;
+        norm = Math.max(0f, Math.min(1f, norm));
+        float stroke = paint.getStrokeWidth();
+        float usableH = Math.max(1f, h - stroke * 2f);
+        float x = getPaddingLeft() + w;
+        float y = getPaddingTop() + stroke + (1f - norm) * usableH;
+        canvas.drawLine(lastX, lastY, x, y, paint);
+    }
+
+    private void rebuildPath(int w, int h) {
+        path.rewind();
+        lastX = Float.NaN;
+        int n = sparkline.copyCompleted(points);
+        if (n < 1) return;
+        float min = points[0];
+        float max = points[0];
+        for (int i = 1; i < n; i++) {
+            if (points[i] < min) min = points[i];
+            if (points[i] > max) max = points[i];
+        }
+        float range = max - min;
+        float stroke = paint.getStrokeWidth();
+        float usableH = Math.max(1f, h - stroke * 2f);
+        float stepX = (float) w / (Sparkline.POINTS - 1);
+        // Right-align; the rightmost column is the in-progress bucket's live segment.
+        float x0 = getPaddingLeft() + (Sparkline.POINTS - 1 - n) * stepX;
+        float top = getPaddingTop() + stroke;
+        for (int i = 0; i < n; i++) {
+            float norm = range > 0f ? (points[i] - min) / range : 0.5f;
+            float x = x0 + i * stepX;
+            float y = top + (1f - norm) * usableH;
+            if (i == 0) path.moveTo(x, y);
+            else path.lineTo(x, y);
+            lastX = x;
+            lastY = y;
+        }
+        builtMin = min;
+        builtRange = range;
+        paint.setColor(points[n - 1] >= points[0] ? COLOR_UP : COLOR_DOWN);
+    }
+}
@@ -0,0 +1,46 @@
+package com.binance.pricemonitor;
+
+/**
+ * Counters for one pipeline stage: queue depth, throughput, drops, time spent queued (wait)
+ * and time spent in the handler (service). Producer fields are updated under the stage lock,
+ * consumer fields by the stage's single consumer thread.
+ */
+final class StageStats {
+    final String name;
+
+    volatile long enqueued;
+    volatile long dropped;
+    volatile int maxDepth;
+
+    volatile long processed;
+    volatile long waitNsTotal;
+    volatile long waitNsMax;
+    volatile long serviceNsTotal;
+    volatile long serviceNsMax;
+
+    StageStats(String name) {
+        this.name = name;
+    }
+
+    void recordEnqueue(int depth) {
+        enqueued++;
+        if (depth > maxDepth) maxDepth = depth;
+    }
+
+    void recordProcessed(long waitNs, long serviceNs) {
+        processed++;
+        waitNsTotal += waitNs;
+        if (waitNs > waitNsMax) waitNsMax = waitNs;
+        serviceNsTotal += serviceNs;
+        if (serviceNs > serviceNsMax) serviceNsMax = serviceNs;
+    }
+
+    String format(int depth) {
+        long n = Math.max(1L, processed);
+        return String.format(java.util.Locale.US,
+                "%s depth=%d max=%d in=%d out=%d drop=%d wait=%.1f/%.1fus svc=%.1f/%.1fus",
+                name, depth, maxDepth, enqueued, processed, dropped,
+                waitNsTotal / 1000.0 / n, waitNsMax / 1000.0,
+                serviceNsTotal / 1000.0 / n, serviceNsMax / 1000.0);
+    }
+}
@@ -0,0 +1,46 @@
+package com.binance.pricemonitor;
+
+import android.content.Context;
+
+/**
+ * Timeline of one service start: named milestones as ms since onCreate began, written to
+ * {@link DiagnosticsLog} as a single line once the first price is on screen (or delivered, when
+ * the overlay is hidden). Only the first occurrence of each milestone counts. The log write
+ * happens off the calling thread so measuring doesn't add to what it measures.
+ */
+final class StartupTrace {
+    private final long originMs = android.os.SystemClock.elapsedRealtime();
+    // Guarded by this.
+    private final java.util.LinkedHashMap<String, Long> marks = new java.util.LinkedHashMap<>();
+    // Written under the lock; read without it so per-tick callers return after one volatile read.
+    private volatile boolean reported = false;
+
+    void mark(String name) {
+        if (reported) return;
+        long at = android.os.SystemClock.elapsedRealtime() - originMs;
+        synchronized (this) {
+            if (!reported && !marks.containsKey(name)) marks.put(name, at);
+        }
+    }
+
+    /** Records the final milestone and logs the timeline; later calls do nothing. */
+    void report(Context context, String finalMark) {
+        if (reported) return;
+        mark(finalMark);
+        StringBuilder sb = new StringBuilder("[startup]");
+        synchronized (this) {
+            if (reported) return;
+            reported = true;
+            // How long the process was up before onCreate: small only when the service cold-started it.
+            sb.append(" process-age=").append(originMs - android.os.Process.getStartElapsedRealtime()).append("ms");
+            for (java.util.Map.Entry<String, Long> e : marks.entrySet()) {
+                sb.append(' ').append(e.getKey()).append('=').append(e.getValue()).append("ms");
+            }
+            Long intent = marks.get("start-intent");
+            Long last = marks.get(finalMark);
+            if (intent != null && last != null) sb.append(" intent->").append(finalMark).append('=').append(last - intent).append("ms");
+        }
+        Context app = context.getApplicationContext();
+        new Thread(() -> DiagnosticsLog.append(app, sb.toString()), "StartupTrace").start();
+    }
+}
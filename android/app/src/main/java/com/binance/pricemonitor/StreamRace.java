@@ -0,0 +1,386 @@
+package com.binance.pricemonitor;
+
+/**
+ * Carries each Binance combined stream over redundant connections to several endpoints and
+ * forwards only the first copy of every event. Events are keyed by stream name and ordered by
+ * update id (aggTrade "a") or event time ("E"), with kline frames further ordered by candle open
+ * time and closed flag; a copy at or behind the newest seen is a duplicate.
+ *
+ * Up to {@link #MAX_LEGS} endpoints race at a time. Every window the endpoint that delivered the
+ * smallest share of first copies gets a strike; after {@link #STRIKES_TO_DROP} windows in a row it
+ * is dropped for the next idle configured endpoint. Per-endpoint delivery latency (receive time
+ * minus event time) is kept as a histogram over {@link #BUCKET_BOUNDS_MS}.
+ */
+final class StreamRace {
+    static final String[] DEFAULT_ENDPOINTS = {
+            "wss://stream.binance.com:9443",
+            "wss://stream.binance.com:443",
+            "wss://data-stream.binance.vision",
+    };
+    static final int MAX_LEGS = 2;
+    static final long[] BUCKET_BOUNDS_MS = {5, 10, 20, 50, 100, 200, 500, 1000, Long.MAX_VALUE};
+    private static final long WINDOW_MS = 60_000L;
+    private static final int STRIKES_TO_DROP = 3;
+    private static final double LOSER_SHARE = 0.25;
+    private static final int MIN_WINDOW_EVENTS = 50;
+    private static final int DEDUP_SLOTS = 2048; // > Binance's 1024 streams per connection
+
+    static final class Snapshot {
+        String endpoint;
+        boolean active;
+        long frames;
+        long wins;
+        long duplicates;
+        long[] buckets;
+    }
+
+    private final okhttp3.OkHttpClient client;
+    private final String[] endpoints;
+    private final java.util.concurrent.atomic.AtomicLongArray frames;
+    private final java.util.concurrent.atomic.AtomicLongArray wins;
+    private final java.util.concurrent.atomic.AtomicLongArray windowWins;
+    private final java.util.concurrent.atomic.AtomicLongArray histogram; // endpoint * buckets + bucket
+    private final java.util.concurrent.ScheduledExecutorService scheduler;
+    // Guarded by this.
+    private final boolean[] active;
+    private final int[] strikes;
+    private int nextIdle = 0;
+    private final java.util.Set<Raced> live = new java.util.HashSet<>();
+
+    StreamRace(okhttp3.OkHttpClient client, String[] endpoints) {
+        this.client = client;
+        this.endpoints = endpoints.length > 0 ? endpoints.clone() : DEFAULT_ENDPOINTS.clone();
+        int n = this.endpoints.length;
+        this.frames = new java.util.concurrent.atomic.AtomicLongArray(n);
+        this.wins = new java.util.concurrent.atomic.AtomicLongArray(n);
+        this.windowWins = new java.util.concurrent.atomic.AtomicLongArray(n);
+        this.histogram = new java.util.concurrent.atomic.AtomicLongArray(n * BUCKET_BOUNDS_MS.length);
+        this.active = new boolean[n];
+        this.strikes = new int[n];
+        for (int i = 0; i < Math.min(MAX_LEGS, n); i++) active[i] = true;
+        this.nextIdle = Math.min(MAX_LEGS, n) % n;
+        this.scheduler = java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "StreamRace");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::rotate, WINDOW_MS, WINDOW_MS, java.util.concurrent.TimeUnit.MILLISECONDS);
+    }
+
+    /** Opens path (e.g. "/stream?streams=...") on every racing endpoint; listener sees one socket. */
+    okhttp3.WebSocket open(String path, okhttp3.WebSocketListener listener) {
+        Raced raced = new Raced(path, listener);
+        synchronized (this) {
+            live.add(raced);
+            for (int ep = 0; ep < endpoints.length; ep++) {
+                if (active[ep]) raced.openLeg(ep);
+            }
+        }
+        return raced;
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        java.util.List<Raced> all;
+        synchronized (this) {
+            all = new java.util.ArrayList<>(live);
+        }
+        for (Raced r : all) r.cancel();
+    }
+
+    synchronized java.util.List<Snapshot> snapshot() {
+        java.util.List<Snapshot> out = new java.util.ArrayList<>();
+        for (int ep = 0; ep < endpoints.length; ep++) {
+            Snapshot s = new Snapshot();
+            s.endpoint = endpoints[ep];
+            s.active = active[ep];
+            s.frames = frames.get(ep);
+            s.wins = wins.get(ep);
+            s.duplicates = s.frames - s.wins;
+            s.buckets = new long[BUCKET_BOUNDS_MS.length];
+            for (int b = 0; b < s.buckets.length; b++) s.buckets[b] = histogram.get(ep * BUCKET_BOUNDS_MS.length + b);
+            out.add(s);
+        }
+        return out;
+    }
+
+    String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Snapshot s : snapshot()) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format(java.util.Locale.US, "race %s%s frames=%d first=%d dup=%d p50=%s p90=%s hist=%s",
+                    s.endpoint, s.active ? "" : " (idle)", s.frames, s.wins, s.duplicates,
+                    percentile(s.buckets, 0.5), percentile(s.buckets, 0.9), java.util.Arrays.toString(s.buckets)));
+        }
+        return sb.toString();
+    }
+
+    // Upper bound of the bucket holding the given quantile, e.g. "<=50ms".
+    private static String percentile(long[] buckets, double q) {
+        long total = 0;
+        for (long c : buckets) total += c;
+        if (total == 0) return "-";
+        long need = (long) Math.ceil(total * q);
+        long seen = 0;
+        for (int b = 0; b < buckets.length; b++) {
+            seen += buckets[b];
+            if (seen >= need) {
+                long bound = BUCKET_BOUNDS_MS[b];
+                return bound == Long.MAX_VALUE ? ">" + BUCKET_BOUNDS_MS[b - 1] + "ms" : "<=" + bound + "ms";
+            }
+        }
+        return "-";
+    }
+
+    private void recordFrame(int ep, long latencyMs, boolean first) {
+        frames.incrementAndGet(ep);
+        if (first) {
+            wins.incrementAndGet(ep);
+            windowWins.incrementAndGet(ep);
+        }
+        if (latencyMs == Long.MIN_VALUE) return;
+        int b = 0;
+        while (latencyMs > BUCKET_BOUNDS_MS[b]) b++;
+        histogram.incrementAndGet(ep * BUCKET_BOUNDS_MS.length + b);
+    }
+
+    // Scheduler thread, once per window.
+    private void rotate() {
+        int drop = -1;
+        int add = -1;
+        java.util.List<Raced> targets;
+        synchronized (this) {
+            long total = 0;
+            int racing = 0;
+            int loser = -1;
+            long loserWins = Long.MAX_VALUE;
+            for (int ep = 0; ep < endpoints.length; ep++) {
+                long w = windowWins.getAndSet(ep, 0L);
+                if (!active[ep]) continue;
+                racing++;
+                total += w;
+                if (w < loserWins) {
+                    loserWins = w;
+                    loser = ep;
+                }
+            }
+            if (racing < 2 || racing >= endpoints.length || total < MIN_WINDOW_EVENTS) return;
+            for (int ep = 0; ep < endpoints.length; ep++) {
+                if (ep != loser) strikes[ep] = 0;
+            }
+            strikes[loser] = loserWins < total * LOSER_SHARE ? strikes[loser] + 1 : 0;
+            if (strikes[loser] < STRIKES_TO_DROP) return;
+            strikes[loser] = 0;
+            for (int i = 0; i < endpoints.length && add < 0; i++) {
+                int ep = (nextIdle + i) % endpoints.length;
+                if (!active[ep]) add = ep;
+            }
+            if (add < 0) return;
+            nextIdle = (add + 1) % endpoints.length;
+            drop = loser;
+            active[drop] = false;
+            active[add] = true;
+            targets = new java.util.ArrayList<>(live);
+        }
+        for (Raced r : targets) r.swapLeg(drop, add);
+    }
+
+    private static long hashStream(String text, int start) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = start, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c == '"') break;
+            h = (h ^ c) * 0x100000001b3L;
+        }
+        return h == 0L ? 1L : h;
+    }
+
+    /** Newest event per stream across all legs (open addressing); thread-safe. */
+    static final class Dedup {
+        private final long[] keys = new long[DEDUP_SLOTS];
+        private final long[] newest = new long[DEDUP_SLOTS];
+        // Tie-break within one event time: kline open time << 1 | closed. At a candle boundary the
+        // final update of one candle and the first of the next can share "E"; both are real.
+        private final long[] newestSub = new long[DEDUP_SLOTS];
+
+        boolean firstCopy(String text) {
+            int data = text.indexOf(BinanceFrameDecoder.KEY_DATA);
+            int stream = BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_STREAM, 0);
+            if (data < 0 || stream < 0) return true;
+            int event = BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_EVENT, data);
+            long seq;
+            long sub = 0L;
+            if (BinanceFrameDecoder.stringEquals(text, event, BinanceFrameDecoder.EVENT_AGG_TRADE)) {
+                seq = BinanceFrameDecoder.parseLong(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_AGG_ID, data));
+            } else {
+                seq = BinanceFrameDecoder.parseLong(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_EVENT_TIME, data));
+                if (BinanceFrameDecoder.stringEquals(text, event, BinanceFrameDecoder.EVENT_KLINE)) {
+                    int k = text.indexOf(BinanceFrameDecoder.KEY_KLINE, data);
+                    long openTime = k < 0 ? Long.MIN_VALUE
+                            : BinanceFrameDecoder.parseLong(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_OPEN_TIME, k));
+                    if (openTime == Long.MIN_VALUE) return true;
+                    boolean closed = BinanceFrameDecoder.parseBoolean(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_IS_CLOSED, k));
+                    sub = (openTime << 1) | (closed ? 1L : 0L);
+                }
+            }
+            if (seq == Long.MIN_VALUE) return true;
+            long key = hashStream(text, stream);
+            synchronized (keys) {
+                int mask = DEDUP_SLOTS - 1;
+                for (int i = (int) (key ^ (key >>> 32)) & mask, probes = 0; probes < DEDUP_SLOTS; i = (i + 1) & mask, probes++) {
+                    if (keys[i] == 0L) {
+                        keys[i] = key;
+                        newest[i] = seq;
+                        newestSub[i] = sub;
+                        return true;
+                    }
+                    if (keys[i] == key) {
+                        if (seq < newest[i] || (seq == newest[i] && sub <= newestSub[i])) return false;
+                        newest[i] = seq;
+                        newestSub[i] = sub;
+                        return true;
+                    }
+                }
+            }
+            return true; // table full: forward rather than drop
+        }
+    }
+
+    private final class Raced implements okhttp3.WebSocket {
+        private final String path;
+        private final okhttp3.WebSocketListener listener;
+        private final okhttp3.WebSocket[] legs = new okhttp3.WebSocket[endpoints.length];
+        private final int[] retryAttempt = new int[endpoints.length];
+        private final Dedup dedup = new Dedup();
+        private volatile boolean closed = false;
+
+        Raced(String path, okhttp3.WebSocketListener listener) {
+            this.path = path;
+            this.listener = listener;
+        }
+
+        // Caller holds the race lock.
+        void openLeg(int ep) {
+            if (closed) return;
+            okhttp3.Request request = new okhttp3.Request.Builder().url(endpoints[ep] + path).build();
+            legs[ep] = client.newWebSocket(request, new Leg(ep));
+        }
+
+        void swapLeg(int drop, int add) {
+            okhttp3.WebSocket old;
+            synchronized (StreamRace.this) {
+                if (closed) return;
+                old = legs[drop];
+                legs[drop] = null;
+                openLeg(add);
+            }
+            if (old != null) old.cancel();
+        }
+
+        @Override
+        public okhttp3.Request request() {
+            return new okhttp3.Request.Builder().url(endpoints[0] + path).build();
+        }
+
+        @Override
+        public long queueSize() {
+            return 0L;
+        }
+
+        @Override
+        public boolean send(String text) {
+            boolean sent = false;
+            for (okhttp3.WebSocket ws : legsSnapshot()) sent |= ws.send(text);
+            return sent;
+        }
+
+        @Override
+        public boolean send(okio.ByteString bytes) {
+            boolean sent = false;
+            for (okhttp3.WebSocket ws : legsSnapshot()) sent |= ws.send(bytes);
+            return sent;
+        }
+
+        @Override
+        public boolean close(int code, String reason) {
+            closed = true;
+            for (okhttp3.WebSocket ws : release()) ws.close(code, reason);
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+            closed = true;
+            for (okhttp3.WebSocket ws : release()) ws.cancel();
+        }
+
+        private java.util.List<okhttp3.WebSocket> legsSnapshot() {
+            java.util.List<okhttp3.WebSocket> out = new java.util.ArrayList<>();
+            synchronized (StreamRace.this) {
+                for (okhttp3.WebSocket ws : legs) if (ws != null) out.add(ws);
+            }
+            return out;
+        }
+
+        private java.util.List<okhttp3.WebSocket> release() {
+            java.util.List<okhttp3.WebSocket> out;
+            synchronized (StreamRace.this) {
+                out = legsSnapshot();
+                java.util.Arrays.fill(legs, null);
+                live.remove(this);
+            }
+            return out;
+        }
+
+        private final class Leg extends okhttp3.WebSocketListener {
+            private final int ep;
+
+            Leg(int ep) {
+                this.ep = ep;
+            }
+
+            @Override
+            public void onOpen(okhttp3.WebSocket webSocket, okhttp3.Response response) {
+                retryAttempt[ep] = 0;
+            }
+
+            @Override
+            public void onMessage(okhttp3.WebSocket webSocket, String text) {
+                if (closed || legs[ep] != webSocket) return;
+                long now = System.currentTimeMillis();
+                int data = text.indexOf(BinanceFrameDecoder.KEY_DATA);
+                long eventTime = data < 0 ? Long.MIN_VALUE
+                        : BinanceFrameDecoder.parseLong(text, BinanceFrameDecoder.valueStart(text, BinanceFrameDecoder.KEY_EVENT_TIME, data));
+                boolean first = dedup.firstCopy(text);
+                recordFrame(ep, eventTime == Long.MIN_VALUE ? Long.MIN_VALUE : Math.max(0L, now - eventTime), first);
+                if (first) listener.onMessage(Raced.this, text);
+            }
+
+            @Override
+            public void onFailure(okhttp3.WebSocket webSocket, Throwable t, okhttp3.Response response) {
+                boolean allDown;
+                synchronized (StreamRace.this) {
+                    if (closed || legs[ep] != webSocket) return;
+                    legs[ep] = null;
+                    allDown = true;
+                    for (okhttp3.WebSocket ws : legs) if (ws != null) allDown = false;
+                }
+                if (allDown) {
+                    // Nothing left to fail over to: let the owner reconnect the whole stream.
+                    closed = true;
+                    release();
+                    listener.onFailure(Raced.this, t, response);
+                    return;
+                }
+                long delay = (long) Math.min(30000, 2000 * Math.pow(2, Math.min(4, retryAttempt[ep]++)));
+                try {
+                    scheduler.schedule(() -> {
+                        synchronized (StreamRace.this) {
+                            if (!closed && active[ep] && legs[ep] == null) openLeg(ep);
+                        }
+                    }, delay, java.util.concurrent.TimeUnit.MILLISECONDS);
+                } catch (java.util.concurrent.RejectedExecutionException ignored) {}
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.binance.pricemonitor;
+
+/**
+ * Fixed set of single-writer worker loops for market events. Events are partitioned by symbol id,
+ * so everything about one symbol (ticker alerts, kline history, delay counters) is touched by one
+ * thread, in arrival order, while different symbols spread across cores.
+ *
+ * Each loop owns a preallocated ring of primitive event fields; posting copies values in and
+ * never allocates. A full ring blocks the posting socket thread rather than dropping alert input.
+ *
+ * State that other threads prepare (REST history, alert handovers) is applied by posting a task
+ * with {@link #execute}, which runs on the owning loop in order with that symbol's events.
+ *
+ * Each loop also owns a {@link TimerWheel} it ticks between batches, so per-symbol deadlines
+ * fire on the same thread as that symbol's events without a thread or Handler message each.
+ */
+final class SymbolEventLoops {
+
+    /** high/low are the running extremes the frame reports (24h or candle); NaN if unknown. */
+    interface Handler {
+        void onTicker(int symbolId, double price, double changePercent, double high, double low, long eventTimeMs);
+
+        void onKline(int seriesId, double close, double high, double low, boolean isClosed, long openTime);
+
+        void onTrade(int symbolId, double price, long tradeTimeMs);
+
+        void onTimer(Object payload, long handle);
+    }
+
+    static final int RING_CAPACITY = 4096;
+    static final long TIMER_TICK_MS = 50L;
+    private static final int TIMER_BUCKETS = 512;
+
+    private static final byte KIND_TICKER = 0;
+    private static final byte KIND_KLINE = 1;
+    private static final byte KIND_TRADE = 2;
+    private static final byte KIND_TASK = 3;
+
+    private final Handler handler;
+    private final Loop[] loops;
+
+    SymbolEventLoops(Handler handler) {
+        this(handler, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    SymbolEventLoops(Handler handler, int loopCount) {
+        this.handler = handler;
+        this.loops = new Loop[loopCount];
+        for (int i = 0; i < loopCount; i++) loops[i] = new Loop(i);
+    }
+
+    int loopCount() {
+        return loops.length;
+    }
+
+    synchronized void start() {
+        for (Loop l : loops) l.start();
+    }
+
+    synchronized void stop() {
+        for (Loop l : loops) l.stop();
+    }
+
+    void postTicker(int symbolId, double price, double changePercent, double high, double low, long eventTimeMs) {
+        loopFor(symbolId).post(KIND_TICKER, symbolId, price, changePercent, high, low, eventTimeMs, false, null);
+    }
+
+    /** symbolId is the series' symbol, so klines and tickers of one symbol share a loop. */
+    void postKline(int symbolId, int seriesId, double close, double high, double low, boolean isClosed, long openTime) {
+        loopFor(symbolId).post(KIND_KLINE, seriesId, close, 0d, high, low, openTime, isClosed, null);
+    }
+
+    void postTrade(int symbolId, double price, long tradeTimeMs) {
+        loopFor(symbolId).post(KIND_TRADE, symbolId, price, 0d, Double.NaN, Double.NaN, tradeTimeMs, false, null);
+    }
+
+    /** Runs task on symbolId's loop; for rare state handovers, not per-tick work (it allocates). */
+    void execute(int symbolId, Runnable task) {
+        loopFor(symbolId).post(KIND_TASK, symbolId, 0d, 0d, Double.NaN, Double.NaN, 0L, false, task);
+    }
+
+    /**
+     * Timer calls must come from the loop that owns symbolId (i.e. from inside a handler callback
+     * for that symbol); the wheel is confined to that thread.
+     */
+    long scheduleTimer(int symbolId, long delayMs, Object payload) {
+        return loopFor(symbolId).timers.schedule(delayMs, payload);
+    }
+
+    void cancelTimer(int symbolId, long handle) {
+        loopFor(symbolId).timers.cancel(handle);
+    }
+
+    boolean isTimerPending(int symbolId, long handle) {
+        return loopFor(symbolId).timers.isPending(handle);
+    }
+
+    /** One {@link StageStats} line per loop. */
+    String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Loop l : loops) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(l.describe());
+        }
+        return sb.toString();
+    }
+
+    private Loop loopFor(int symbolId) {
+        // Ids are dense, so modulo spreads them evenly.
+        return loops[(symbolId & Integer.MAX_VALUE) % loops.length];
+    }
+
+    private final class Loop implements Runnable {
+        private final int index;
+        private final byte[] kind = new byte[RING_CAPACITY];
+        private final int[] id = new int[RING_CAPACITY];
+        private final double[] a = new double[RING_CAPACITY];
+        private final double[] b = new double[RING_CAPACITY];
+        private final double[] high = new double[RING_CAPACITY];
+        private final double[] low = new double[RING_CAPACITY];
+        private final long[] time = new long[RING_CAPACITY];
+        private final boolean[] flag = new boolean[RING_CAPACITY];
+        private final Runnable[] task = new Runnable[RING_CAPACITY];
+        private final long[] postedAtNs = new long[RING_CAPACITY];
+        private final StageStats stats;
+        private final TimerWheel timers = new TimerWheel(TIMER_BUCKETS, TIMER_TICK_MS, 64);
+        private final TimerWheel.Expiry expiry = (payload, handle) -> handler.onTimer(payload, handle);
+        // Guarded by this; slots in [head, tail) belong to the consumer until head advances.
+        private long head = 0L;
+        private long tail = 0L;
+        private boolean consumerWaiting = false;
+        private boolean producerWaiting = false;
+        private volatile boolean running = false;
+        private Thread thread;
+
+        Loop(int index) {
+            this.index = index;
+            this.stats = new StageStats("state+alerts-" + index);
+        }
+
+        synchronized void start() {
+            if (running) return;
+            running = true;
+            thread = new Thread(this, "SymbolLoop-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        synchronized void stop() {
+            running = false;
+            thread = null;
+            notifyAll();
+        }
+
+        synchronized String describe() {
+            return stats.format((int) (tail - head)) + " timers=" + timers.size();
+        }
+
+        synchronized void post(byte k, int i, double va, double vb, double hi, double lo, long t, boolean f, Runnable r) {
+            while (tail - head >= RING_CAPACITY && running) {
+                producerWaiting = true;
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (!running) return;
+            int slot = (int) (tail % RING_CAPACITY);
+            kind[slot] = k;
+            id[slot] = i;
+            a[slot] = va;
+            b[slot] = vb;
+            high[slot] = hi;
+            low[slot] = lo;
+            time[slot] = t;
+            flag[slot] = f;
+            task[slot] = r;
+            postedAtNs[slot] = System.nanoTime();
+            tail++;
+            stats.recordEnqueue((int) (tail - head));
+            if (consumerWaiting) {
+                consumerWaiting = false;
+                notifyAll();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                long from;
+                long to;
+                synchronized (this) {
+                    while (head == tail && running) {
+                        // Only this thread touches the wheel, so reading it under the ring lock is safe.
+                        long timerWaitMs = timers.nextTickDelayMs();
+                        if (timerWaitMs == 0L) break;
+                        consumerWaiting = true;
+                        try {
+                            wait(timerWaitMs > 0 ? timerWaitMs : 0L);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        if (timerWaitMs > 0) break;
+                    }
+                    from = head;
+                    to = tail;
+                }
+                for (long seq = from; seq < to; seq++) {
+                    int slot = (int) (seq % RING_CAPACITY);
+                    long t0 = System.nanoTime();
+                    try {
+                        if (kind[slot] == KIND_TICKER) {
+                            handler.onTicker(id[slot], a[slot], b[slot], high[slot], low[slot], time[slot]);
+                        } else if (kind[slot] == KIND_KLINE) {
+                            handler.onKline(id[slot], a[slot], high[slot], low[slot], flag[slot], time[slot]);
+                        } else if (kind[slot] == KIND_TRADE) {
+                            handler.onTrade(id[slot], a[slot], time[slot]);
+                        } else {
+                            Runnable r = task[slot];
+                            task[slot] = null;
+                            r.run();
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                    long t1 = System.nanoTime();
+                    stats.recordProcessed(t0 - postedAtNs[slot], t1 - t0);
+                }
+                timers.advance(expiry);
+                synchronized (this) {
+                    head = to;
+                    if (producerWaiting) {
+                        producerWaiting = false;
+                        notifyAll();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.binance.pricemonitor;
+
+/**
+ * Assigns dense int ids to symbols, kline intervals and (symbol, interval) series when
+ * subscriptions are created, so the hot path can index primitive arrays instead of building
+ * "SYMBOL_interval" keys. Ids are never reused; capacity is fixed.
+ *
+ * Registration is rare and synchronized. Lookups are lock-free and can resolve ids straight
+ * from a region of a frame (no substring, no String hashing).
+ */
+final class SymbolRegistry {
+    static final int MAX_SYMBOLS = 1024;
+    static final int MAX_INTERVALS = 32;
+    static final int MAX_SERIES = 4096;
+
+    // Binance streams report the bare pair ("BTCUSDT") for both markets; the socket tells them apart.
+    static final int MARKET_SPOT = 0;
+    static final int MARKET_FUTURES = 1;
+
+    private static final String FUTURES_SUFFIX = ".P";
+
+    private final NameTable spotNames = new NameTable();
+    private final NameTable futuresNames = new NameTable();
+    private final NameTable intervalNames = new NameTable();
+
+    private final String[] symbols = new String[MAX_SYMBOLS];
+    private final String[] intervals = new String[MAX_INTERVALS];
+    private final int[] seriesSymbol = new int[MAX_SERIES];
+    private final int[] seriesInterval = new int[MAX_SERIES];
+    private final int[] seriesBySymbolInterval = new int[MAX_SYMBOLS * MAX_INTERVALS];
+    private volatile int symbolCount = 0;
+    private volatile int intervalCount = 0;
+    private volatile int seriesCount = 0;
+
+    SymbolRegistry() {
+        java.util.Arrays.fill(seriesBySymbolInterval, -1);
+    }
+
+    static String normalize(String symbol) {
+        return symbol == null ? null : symbol.trim().toUpperCase(java.util.Locale.US);
+    }
+
+    /** Returns the id for symbol, assigning one if needed; -1 when full or invalid. */
+    synchronized int registerSymbol(String symbol) {
+        String s = normalize(symbol);
+        if (s == null || s.isEmpty()) return -1;
+        boolean futures = s.endsWith(FUTURES_SUFFIX);
+        String raw = futures ? s.substring(0, s.length() - FUTURES_SUFFIX.length()) : s;
+        NameTable table = futures ? futuresNames : spotNames;
+        int id = table.find(raw, 0, raw.length());
+        if (id >= 0) return id;
+        int next = symbolCount;
+        if (next >= MAX_SYMBOLS) return -1;
+        symbols[next] = s;
+        table.put(raw, next);
+        symbolCount = next + 1;
+        return next;
+    }
+
+    /** Returns the interval index, assigning one if needed; -1 when full or invalid. */
+    synchronized int registerInterval(String interval) {
+        if (interval == null || interval.isEmpty()) return -1;
+        int idx = intervalNames.find(interval, 0, interval.length());
+        if (idx >= 0) return idx;
+        int next = intervalCount;
+        if (next >= MAX_INTERVALS) return -1;
+        intervals[next] = interval;
+        intervalNames.put(interval, next);
+        intervalCount = next + 1;
+        return next;
+    }
+
+    /** Returns the series id for (symbol, interval), assigning ids as needed; -1 when full. */
+    synchronized int registerSeries(String symbol, String interval) {
+        int sym = registerSymbol(symbol);
+        int itv = registerInterval(interval);
+        if (sym < 0 || itv < 0) return -1;
+        int slot = sym * MAX_INTERVALS + itv;
+        int id = seriesBySymbolInterval[slot];
+        if (id >= 0) return id;
+        int next = seriesCount;
+        if (next >= MAX_SERIES) return -1;
+        seriesSymbol[next] = sym;
+        seriesInterval[next] = itv;
+        seriesBySymbolInterval[slot] = next;
+        seriesCount = next + 1; // volatile write publishes the slots above
+        return next;
+    }
+
+    /** Resolves a symbol from text[start, end) as reported by the given Binance market. */
+    int findSymbol(int market, CharSequence text, int start, int end) {
+        return (market == MARKET_FUTURES ? futuresNames : spotNames).find(text, start, end);
+    }
+
+    int findSymbol(String symbol) {
+        String s = normalize(symbol);
+        if (s == null) return -1;
+        if (s.endsWith(FUTURES_SUFFIX)) return futuresNames.find(s, 0, s.length() - FUTURES_SUFFIX.length());
+        return spotNames.find(s, 0, s.length());
+    }
+
+    int findInterval(CharSequence text, int start, int end) {
+        return intervalNames.find(text, start, end);
+    }
+
+    int findSeries(int symbolId, int intervalIdx) {
+        if (symbolId < 0 || intervalIdx < 0 || symbolId >= MAX_SYMBOLS || intervalIdx >= MAX_INTERVALS) return -1;
+        if (seriesCount == 0) return -1; // volatile read before the plain array read
+        return seriesBySymbolInterval[symbolId * MAX_INTERVALS + intervalIdx];
+    }
+
+    int findSeries(String symbol, String interval) {
+        if (interval == null) return -1;
+        return findSeries(findSymbol(symbol), intervalNames.find(interval, 0, interval.length()));
+    }
+
+    String symbolName(int symbolId) {
+        return symbolId >= 0 && symbolId < symbolCount ? symbols[symbolId] : null;
+    }
+
+    String intervalName(int intervalIdx) {
+        return intervalIdx >= 0 && intervalIdx < intervalCount ? intervals[intervalIdx] : null;
+    }
+
+    int seriesSymbol(int seriesId) {
+        return seriesId >= 0 && seriesId < seriesCount ? seriesSymbol[seriesId] : -1;
+    }
+
+    int seriesInterval(int seriesId) {
+        return seriesId >= 0 && seriesId < seriesCount ? seriesInterval[seriesId] : -1;
+    }
+
+    int symbolCount() {
+        return symbolCount;
+    }
+
+    int seriesCount() {
+        return seriesCount;
+    }
+
+    /**
+     * Open-addressing char-sequence -> int map. Writers (synchronized by the registry or the
+     * owner) copy and republish the arrays, so readers never lock.
+     */
+    static final class NameTable {
+        private static final class State {
+            final String[] keys;
+            final int[] values;
+            final int size;
+
+            State(int capacity, int size) {
+                this.keys = new String[capacity];
+                this.values = new int[capacity];
+                this.size = size;
+            }
+        }
+
+        private volatile State state = new State(64, 0);
+
+        int find(CharSequence text, int start, int end) {
+            State st = state;
+            int mask = st.keys.length - 1;
+            int i = hash(text, start, end) & mask;
+            while (true) {
+                String k = st.keys[i];
+                if (k == null) return -1;
+                if (regionEquals(k, text, start, end)) return st.values[i];
+                i = (i + 1) & mask;
+            }
+        }
+
+        synchronized void put(String key, int value) {
+            State cur = state;
+            int capacity = cur.keys.length;
+            while ((cur.size + 1) * 2 > capacity) capacity <<= 1;
+            State next = new State(capacity, cur.size + 1);
+            for (int j = 0; j < cur.keys.length; j++) {
+                if (cur.keys[j] != null) insert(next, cur.keys[j], cur.values[j]);
+            }
+            insert(next, key, value);
+            state = next;
+        }
+
+        synchronized void clear() {
+            state = new State(64, 0);
+        }
+
+        private static void insert(State st, String key, int value) {
+            int mask = st.keys.length - 1;
+            int i = hash(key, 0, key.length()) & mask;
+            while (st.keys[i] != null && !st.keys[i].equals(key)) i = (i + 1) & mask;
+            st.keys[i] = key;
+            st.values[i] = value;
+        }
+
+        private static int hash(CharSequence text, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) h = 31 * h + text.charAt(i);
+            return h ^ (h >>> 16);
+        }
+
+        private static boolean regionEquals(String key, CharSequence text, int start, int end) {
+            int len = end - start;
+            if (key.length() != len) return false;
+            for (int i = 0; i < len; i++) {
+                if (key.charAt(i) != text.charAt(start + i)) return false;
+            }
+            return true;
+        }
+    }
+}
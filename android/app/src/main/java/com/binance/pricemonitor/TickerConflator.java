@@ -0,0 +1,119 @@
+package com.binance.pricemonitor;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latest-value-wins mailbox between socket reader threads and slow ticker consumers (UI, JS bridge).
+ *
+ * Producers only overwrite a per-symbol slot and flip a dirty flag, so they never wait on consumers.
+ * A single drain thread delivers the newest value of every dirty slot; intermediate ticks are dropped.
+ * Slots are indexed by the symbol id from {@link SymbolRegistry}.
+ */
+final class TickerConflator {
+
+    interface Consumer {
+        void onLatest(int symbolId, double price, double changePercent, long eventTimeMs);
+    }
+
+    private static final long IDLE_PARK_NS = 1_000_000_000L;
+
+    private static final class Slot {
+        final int symbolId;
+        final AtomicBoolean dirty = new AtomicBoolean(false);
+        double price;
+        double changePercent;
+        long eventTimeMs;
+
+        Slot(int symbolId) {
+            this.symbolId = symbolId;
+        }
+    }
+
+    private final Consumer consumer;
+    private final java.util.concurrent.atomic.AtomicReferenceArray<Slot> slotsById =
+            new java.util.concurrent.atomic.AtomicReferenceArray<>(SymbolRegistry.MAX_SYMBOLS);
+    private volatile Slot[] slots = new Slot[0];
+    private final AtomicBoolean signalled = new AtomicBoolean(false);
+    private volatile boolean running = false;
+    private Thread drainThread;
+
+    TickerConflator(Consumer consumer) {
+        this.consumer = consumer;
+    }
+
+    synchronized void start() {
+        if (running) return;
+        running = true;
+        drainThread = new Thread(this::drainLoop, "TickerConflator");
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+    synchronized void stop() {
+        running = false;
+        if (drainThread != null) {
+            LockSupport.unpark(drainThread);
+            drainThread = null;
+        }
+    }
+
+    /** Called from socket threads: O(1), no allocation once the symbol has been seen. */
+    void publish(int symbolId, double price, double changePercent, long eventTimeMs) {
+        Slot slot = slotsById.get(symbolId);
+        if (slot == null) slot = addSlot(symbolId);
+        synchronized (slot) {
+            slot.price = price;
+            slot.changePercent = changePercent;
+            slot.eventTimeMs = eventTimeMs;
+        }
+        slot.dirty.set(true);
+        if (!signalled.getAndSet(true)) {
+            Thread t = drainThread;
+            if (t != null) LockSupport.unpark(t);
+        }
+    }
+
+    void clear() {
+        synchronized (this) {
+            for (int i = 0; i < slotsById.length(); i++) slotsById.set(i, null);
+            slots = new Slot[0];
+        }
+    }
+
+    private synchronized Slot addSlot(int symbolId) {
+        Slot slot = slotsById.get(symbolId);
+        if (slot != null) return slot;
+        slot = new Slot(symbolId);
+        Slot[] next = java.util.Arrays.copyOf(slots, slots.length + 1);
+        next[next.length - 1] = slot;
+        slots = next;
+        slotsById.set(symbolId, slot);
+        return slot;
+    }
+
+    private void drainLoop() {
+        while (running) {
+            signalled.set(false);
+            Slot[] snapshot = slots;
+            for (Slot slot : snapshot) {
+                if (!slot.dirty.getAndSet(false)) continue;
+                double price;
+                double changePercent;
+                long eventTimeMs;
+                synchronized (slot) {
+                    price = slot.price;
+                    changePercent = slot.changePercent;
+                    eventTimeMs = slot.eventTimeMs;
+                }
+                try {
+                    consumer.onLatest(slot.symbolId, price, changePercent, eventTimeMs);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            // A publish after signalled.set(false) leaves an unpark permit, so this returns immediately.
+            if (!signalled.get()) LockSupport.parkNanos(this, IDLE_PARK_NS);
+        }
+    }
+}
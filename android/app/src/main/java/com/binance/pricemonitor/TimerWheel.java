@@ -0,0 +1,174 @@
+package com.binance.pricemonitor;
+
+/**
+ * Hashed timing wheel for many short-lived deadlines (time_delay confirmations). Timers live in
+ * array-backed intrusive lists, so scheduling and cancelling are O(1) and allocation-free once
+ * the pool has grown to the working set; a wheel turn only visits the buckets that elapsed.
+ *
+ * Not thread-safe: a wheel is owned and advanced by a single thread (its symbol event loop).
+ * Handles carry a generation, so a stale handle never cancels or matches a reused timer.
+ */
+final class TimerWheel {
+    static final long NONE = -1L;
+
+    interface Expiry {
+        void onExpired(Object payload, long handle);
+    }
+
+    private static final int NIL = -1;
+
+    private final long tickMs;
+    private final int mask;
+    private final int[] bucketHead;
+    private final java.util.function.LongSupplier clockMs;
+
+    private int[] next;
+    private int[] prev;
+    private int[] bucket;
+    private int[] generation;
+    private long[] deadlineTick;
+    private Object[] payload;
+    private int freeHead = NIL;
+    private int size = 0;
+    private long currentTick;
+
+    TimerWheel(int buckets, long tickMs, int initialCapacity) {
+        this(buckets, tickMs, initialCapacity, monotonicClock());
+    }
+
+    // clockMs must be monotonic; tests drive the wheel with a fake one.
+    TimerWheel(int buckets, long tickMs, int initialCapacity, java.util.function.LongSupplier clockMs) {
+        if (Integer.bitCount(buckets) != 1) throw new IllegalArgumentException("buckets must be a power of two");
+        this.tickMs = tickMs;
+        this.clockMs = clockMs;
+        this.mask = buckets - 1;
+        this.bucketHead = new int[buckets];
+        java.util.Arrays.fill(bucketHead, NIL);
+        this.next = new int[0];
+        this.prev = new int[0];
+        this.bucket = new int[0];
+        this.generation = new int[0];
+        this.deadlineTick = new long[0];
+        this.payload = new Object[0];
+        grow(Math.max(16, initialCapacity));
+        this.currentTick = nowMs() / tickMs;
+    }
+
+    long nowMs() {
+        return clockMs.getAsLong();
+    }
+
+    private static java.util.function.LongSupplier monotonicClock() {
+        long originNs = System.nanoTime();
+        return () -> (System.nanoTime() - originNs) / 1_000_000L;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Fires no earlier than delayMs from now (rounded up to the next tick). */
+    long schedule(long delayMs, Object data) {
+        if (freeHead == NIL) grow(next.length * 2);
+        int i = freeHead;
+        freeHead = next[i];
+        long due = (nowMs() + Math.max(0L, delayMs) + tickMs - 1) / tickMs;
+        if (due <= currentTick) due = currentTick + 1;
+        deadlineTick[i] = due;
+        payload[i] = data;
+        int b = (int) (due & mask);
+        bucket[i] = b;
+        prev[i] = NIL;
+        next[i] = bucketHead[b];
+        if (bucketHead[b] != NIL) prev[bucketHead[b]] = i;
+        bucketHead[b] = i;
+        size++;
+        return ((long) generation[i] << 32) | i;
+    }
+
+    boolean isPending(long handle) {
+        int i = indexOf(handle);
+        return i >= 0 && bucket[i] != NIL;
+    }
+
+    void cancel(long handle) {
+        int i = indexOf(handle);
+        if (i >= 0 && bucket[i] != NIL) release(i);
+    }
+
+    /** ms until the next tick that could fire something; -1 when nothing is pending. */
+    long nextTickDelayMs() {
+        if (size == 0) return -1L;
+        return Math.max(0L, (currentTick + 1) * tickMs - nowMs());
+    }
+
+    /** Fires every timer whose tick has elapsed. Callbacks may schedule or cancel timers. */
+    void advance(Expiry expiry) {
+        if (size == 0) {
+            currentTick = nowMs() / tickMs;
+            return;
+        }
+        long target = nowMs() / tickMs;
+        // After a long stall one full turn visits every bucket; later ticks would repeat it.
+        long from = Math.max(currentTick + 1, target - mask);
+        for (long tick = from; tick <= target; tick++) {
+            int b = (int) (tick & mask);
+            int i = bucketHead[b];
+            while (i != NIL) {
+                int nextIdx = next[i];
+                if (deadlineTick[i] <= target) {
+                    long handle = ((long) generation[i] << 32) | i;
+                    Object data = payload[i];
+                    release(i);
+                    try {
+                        expiry.onExpired(data, handle);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                    // The callback may have cancelled nextIdx; rescan the bucket (fired nodes are gone).
+                    if (nextIdx != NIL && bucket[nextIdx] != b) nextIdx = bucketHead[b];
+                }
+                i = nextIdx;
+            }
+            if (size == 0) break;
+        }
+        currentTick = target;
+    }
+
+    private int indexOf(long handle) {
+        if (handle == NONE) return -1;
+        int i = (int) handle;
+        if (i < 0 || i >= next.length || generation[i] != (int) (handle >>> 32)) return -1;
+        return i;
+    }
+
+    private void release(int i) {
+        int b = bucket[i];
+        if (prev[i] != NIL) next[prev[i]] = next[i];
+        else bucketHead[b] = next[i];
+        if (next[i] != NIL) prev[next[i]] = prev[i];
+        bucket[i] = NIL;
+        payload[i] = null;
+        generation[i]++;
+        next[i] = freeHead;
+        prev[i] = NIL;
+        freeHead = i;
+        size--;
+    }
+
+    private void grow(int capacity) {
+        int old = next.length;
+        next = java.util.Arrays.copyOf(next, capacity);
+        prev = java.util.Arrays.copyOf(prev, capacity);
+        bucket = java.util.Arrays.copyOf(bucket, capacity);
+        generation = java.util.Arrays.copyOf(generation, capacity);
+        deadlineTick = java.util.Arrays.copyOf(deadlineTick, capacity);
+        payload = java.util.Arrays.copyOf(payload, capacity);
+        for (int i = capacity - 1; i >= old; i--) {
+            bucket[i] = NIL;
+            prev[i] = NIL;
+            next[i] = freeHead;
+            freeHead = i;
+        }
+    }
+}
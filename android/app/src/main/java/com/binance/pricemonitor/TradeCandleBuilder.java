@@ -0,0 +1,115 @@
+package com.binance.pricemonitor;
+
+/**
+ * Builds candles for intervals the exchange doesn't serve (sub-minute, or odd ones like 3h)
+ * from individual trades. Buckets are aligned to the epoch in the exchange's clock: a trade's
+ * own timestamp picks its bucket, and quiet periods are closed by a symbol-loop timer set from
+ * the last observed exchange/local clock skew, emitting flat candles like the exchange does.
+ *
+ * State is preallocated per series id and only touched by that series' symbol loop, so bucket
+ * rollover allocates nothing. A builder is immutable in shape once published; changing the set
+ * of series means building a new one (timers of the old one are ignored when they fire).
+ */
+final class TradeCandleBuilder {
+
+    interface Sink {
+        void onCandle(int seriesId, double close, boolean isClosed, long openTime);
+    }
+
+    interface Timers {
+        long schedule(int seriesId, long delayMs, Object payload);
+
+        void cancel(int seriesId, long handle);
+    }
+
+    /** Timer payload; one preallocated per series. */
+    static final class BucketTimer {
+        final TradeCandleBuilder owner;
+        final int seriesId;
+
+        BucketTimer(TradeCandleBuilder owner, int seriesId) {
+            this.owner = owner;
+            this.seriesId = seriesId;
+        }
+    }
+
+    private static final long NO_BUCKET = Long.MIN_VALUE;
+    // Trades at the boundary may arrive a little after it; don't close the bucket under them.
+    private static final long CLOSE_GRACE_MS = 250L;
+    private static final int MAX_FLAT_FILL = 100;
+
+    private final Sink sink;
+    private final Timers timers;
+    private final long[] lenMs;
+    private final long[] bucketStart;
+    private final double[] close;
+    private final long[] timer;
+    private final BucketTimer[] payload;
+    // Exchange time minus local time, from the latest trade of any symbol.
+    private volatile long skewMs = 0L;
+
+    TradeCandleBuilder(int maxSeries, Sink sink, Timers timers) {
+        this.sink = sink;
+        this.timers = timers;
+        this.lenMs = new long[maxSeries];
+        this.bucketStart = new long[maxSeries];
+        this.close = new double[maxSeries];
+        this.timer = new long[maxSeries];
+        this.payload = new BucketTimer[maxSeries];
+        java.util.Arrays.fill(bucketStart, NO_BUCKET);
+        java.util.Arrays.fill(timer, TimerWheel.NONE);
+    }
+
+    /** Registers a series before the builder is published. */
+    void add(int seriesId, long intervalMs) {
+        lenMs[seriesId] = intervalMs;
+        payload[seriesId] = new BucketTimer(this, seriesId);
+    }
+
+    void onTrade(int seriesId, double price, long tradeTimeMs) {
+        long len = lenMs[seriesId];
+        if (len <= 0) return;
+        skewMs = tradeTimeMs - System.currentTimeMillis();
+        long start = Math.floorDiv(tradeTimeMs, len) * len;
+        long current = bucketStart[seriesId];
+        if (current != NO_BUCKET && start < current) return; // bucket already closed by the timer
+        if (current != NO_BUCKET && start > current) rollTo(seriesId, start);
+        bucketStart[seriesId] = start;
+        close[seriesId] = price;
+        sink.onCandle(seriesId, price, false, start);
+        if (start != current) arm(seriesId);
+    }
+
+    /** Symbol loop of the series: closes buckets nobody traded across. */
+    void onTimer(BucketTimer t) {
+        int seriesId = t.seriesId;
+        timer[seriesId] = TimerWheel.NONE;
+        long current = bucketStart[seriesId];
+        if (current == NO_BUCKET) return;
+        long len = lenMs[seriesId];
+        long target = Math.floorDiv(System.currentTimeMillis() + skewMs, len) * len;
+        if (target > current) {
+            rollTo(seriesId, target);
+            bucketStart[seriesId] = target;
+            sink.onCandle(seriesId, close[seriesId], false, target);
+        }
+        arm(seriesId);
+    }
+
+    // Closes the current bucket and emits flat closes for any empty ones before target.
+    private void rollTo(int seriesId, long target) {
+        long len = lenMs[seriesId];
+        long b = bucketStart[seriesId];
+        double c = close[seriesId];
+        for (int n = 0; b < target && n < MAX_FLAT_FILL; n++, b += len) {
+            sink.onCandle(seriesId, c, true, b);
+        }
+    }
+
+    private void arm(int seriesId) {
+        long end = bucketStart[seriesId] + lenMs[seriesId];
+        long delay = end - (System.currentTimeMillis() + skewMs) + CLOSE_GRACE_MS;
+        timers.cancel(seriesId, timer[seriesId]);
+        timer[seriesId] = timers.schedule(seriesId, Math.max(0L, delay), payload[seriesId]);
+    }
+}
@@ -0,0 +1,155 @@
+package com.binance.pricemonitor;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Append-only log of alert triggers in a fixed-size memory-mapped file. Records are fixed width
+ * and numbered by a sequence starting at 1; slot = seq % CAPACITY, so the file never grows and
+ * the oldest records are overwritten. An append is a few absolute puts into the mapping (the
+ * kernel writes the pages back), and the sequence is stored last so a half-written slot never
+ * matches the seq a reader asks for.
+ *
+ * One instance per process ({@link #get}); the service appends, the plugin pages through it.
+ */
+final class TriggerJournal {
+    static final int PROVIDER_BINANCE = 0;
+    static final int PROVIDER_HYPERLIQUID = 1;
+    private static final String[] PROVIDER_NAMES = {"binance", "hyperliquid"};
+
+    static final int CAPACITY = 4096;
+    static final int RECORD_SIZE = 96;
+    private static final String FILE_NAME = "alert_triggers.jnl";
+    private static final int MAGIC = 0x414A4E4C; // "AJNL"
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 64;
+
+    // Header: magic, format, record size, capacity (ints), then last seq (long).
+    private static final int H_LAST_SEQ = 16;
+    // Record layout.
+    private static final int R_SEQ = 0;
+    private static final int R_TIME = 8;
+    private static final int R_PRICE = 16;
+    private static final int R_TARGET = 24;
+    private static final int R_PROVIDER = 32;
+    private static final int R_ID_LEN = 33;
+    private static final int R_ID = 34;
+    static final int MAX_ID_BYTES = RECORD_SIZE - R_ID;
+
+    static final class Record {
+        long seq;
+        long timeMs;
+        double price;
+        double target;
+        int provider;
+        String alertId;
+
+        String providerName() {
+            return TriggerJournal.providerName(provider);
+        }
+    }
+
+    private static TriggerJournal instance;
+
+    private final MappedByteBuffer buf;
+    private long lastSeq;
+
+    private TriggerJournal(MappedByteBuffer buf) {
+        this.buf = buf;
+        if (buf.getInt(0) != MAGIC || buf.getInt(4) != FORMAT
+                || buf.getInt(8) != RECORD_SIZE || buf.getInt(12) != CAPACITY) {
+            for (int i = 0; i < HEADER_SIZE + CAPACITY * RECORD_SIZE; i += 8) buf.putLong(i, 0L);
+            buf.putInt(0, MAGIC);
+            buf.putInt(4, FORMAT);
+            buf.putInt(8, RECORD_SIZE);
+            buf.putInt(12, CAPACITY);
+        }
+        // The header may lag a record written just before the process died; the slots don't.
+        long max = buf.getLong(H_LAST_SEQ);
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            long seq = buf.getLong(HEADER_SIZE + slot * RECORD_SIZE + R_SEQ);
+            if (seq > max) max = seq;
+        }
+        this.lastSeq = max;
+    }
+
+    /** Returns the shared journal, or null if the file can't be mapped. */
+    static synchronized TriggerJournal get(Context context) {
+        if (instance != null || context == null) return instance;
+        File file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // The mapping stays valid after the channel is closed.
+            MappedByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) CAPACITY * RECORD_SIZE);
+            instance = new TriggerJournal(mapped);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return instance;
+    }
+
+    static byte[] encodeId(String alertId) {
+        if (alertId == null) return new byte[0];
+        byte[] bytes = alertId.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= MAX_ID_BYTES ? bytes : java.util.Arrays.copyOf(bytes, MAX_ID_BYTES);
+    }
+
+    static int providerCode(String provider) {
+        return PROVIDER_NAMES[PROVIDER_HYPERLIQUID].equals(provider) ? PROVIDER_HYPERLIQUID : PROVIDER_BINANCE;
+    }
+
+    static String providerName(int code) {
+        return code >= 0 && code < PROVIDER_NAMES.length ? PROVIDER_NAMES[code] : PROVIDER_NAMES[PROVIDER_BINANCE];
+    }
+
+    /** alertId comes pre-encoded ({@link #encodeId}); returns the record's seq. */
+    synchronized long append(byte[] alertId, long timeMs, double price, double target, int provider) {
+        long seq = lastSeq + 1;
+        int base = HEADER_SIZE + (int) (seq % CAPACITY) * RECORD_SIZE;
+        int idLen = Math.min(alertId.length, MAX_ID_BYTES);
+        buf.putLong(base + R_SEQ, 0L);
+        buf.putLong(base + R_TIME, timeMs);
+        buf.putDouble(base + R_PRICE, price);
+        buf.putDouble(base + R_TARGET, target);
+        buf.put(base + R_PROVIDER, (byte) provider);
+        buf.put(base + R_ID_LEN, (byte) idLen);
+        for (int i = 0; i < idLen; i++) buf.put(base + R_ID + i, alertId[i]);
+        buf.putLong(base + R_SEQ, seq);
+        buf.putLong(H_LAST_SEQ, seq);
+        lastSeq = seq;
+        return seq;
+    }
+
+    synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Adds up to limit records with seq > since, oldest first, to out. Records older than the
+     * retained window are skipped. Returns the journal's last seq.
+     */
+    synchronized long query(long since, int limit, java.util.List<Record> out) {
+        long from = Math.max(Math.max(since + 1, lastSeq - CAPACITY + 1), 1L);
+        byte[] id = new byte[MAX_ID_BYTES];
+        for (long seq = from; seq <= lastSeq && out.size() < limit; seq++) {
+            int base = HEADER_SIZE + (int) (seq % CAPACITY) * RECORD_SIZE;
+            if (buf.getLong(base + R_SEQ) != seq) continue;
+            Record r = new Record();
+            r.seq = seq;
+            r.timeMs = buf.getLong(base + R_TIME);
+            r.price = buf.getDouble(base + R_PRICE);
+            r.target = buf.getDouble(base + R_TARGET);
+            r.provider = buf.get(base + R_PROVIDER);
+            int idLen = Math.min(buf.get(base + R_ID_LEN) & 0xff, MAX_ID_BYTES);
+            for (int i = 0; i < idLen; i++) id[i] = buf.get(base + R_ID + i);
+            r.alertId = new String(id, 0, idLen, StandardCharsets.UTF_8);
+            out.add(r);
+        }
+        return lastSeq;
+    }
+}
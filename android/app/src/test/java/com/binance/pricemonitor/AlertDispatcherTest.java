@@ -0,0 +1,72 @@
+package com.binance.pricemonitor;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Overflowing lanes while the dispatcher is stuck in a slow action: critical triggers must all
+ * be dispatched, normal ones either dispatched or reported as overflow, never silently lost.
+ */
+public class AlertDispatcherTest {
+
+    private static final int CAPACITY = 8;
+    private static final int POSTS = CAPACITY * 5;
+
+    @Test
+    public void fullLanesNeverLoseTriggersSilently() throws Exception {
+        CountDownLatch firstDispatch = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger critical = new AtomicInteger();
+        AtomicInteger normal = new AtomicInteger();
+        AtomicInteger overflowed = new AtomicInteger();
+        AlertDispatcher dispatcher = new AlertDispatcher(CAPACITY, new AlertDispatcher.Sink() {
+            @Override
+            public void dispatch(FloatingWindowService.AlertConfig alert, double currentPrice, double targetValue,
+                                 long triggeredAtNs, long triggeredAtMs, long journalSeq) {
+                if (journalSeq == 0L) {
+                    firstDispatch.countDown();
+                    try { release.await(); } catch (InterruptedException ignored) {}
+                    return;
+                }
+                if (journalSeq > 0) critical.incrementAndGet();
+                else normal.incrementAndGet();
+            }
+
+            @Override
+            public long onIdle() {
+                return -1L;
+            }
+
+            @Override
+            public void onOverflow(int count) {
+                overflowed.addAndGet(count);
+            }
+        });
+        dispatcher.start();
+
+        // Park the dispatcher inside an action, then overrun both lanes.
+        dispatcher.post(AlertDispatcher.LANE_NORMAL, null, 0d, 0d, 0L, 0L, 0L);
+        assertTrue(firstDispatch.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= POSTS; i++) {
+            assertTrue(dispatcher.post(AlertDispatcher.LANE_CRITICAL, null, 0d, 0d, 0L, 0L, i));
+            assertTrue(dispatcher.post(AlertDispatcher.LANE_NORMAL, null, 0d, 0d, 0L, 0L, -i));
+        }
+        release.countDown();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline
+                && (critical.get() < POSTS || normal.get() + overflowed.get() < POSTS)) {
+            Thread.sleep(10);
+        }
+        dispatcher.stop();
+
+        assertEquals("critical triggers lost", POSTS, critical.get());
+        assertEquals(CAPACITY, normal.get());
+        assertEquals(POSTS - CAPACITY, overflowed.get());
+    }
+}
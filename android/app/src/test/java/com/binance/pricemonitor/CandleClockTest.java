@@ -0,0 +1,82 @@
+package com.binance.pricemonitor;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.time.Instant;
+
+/**
+ * Candle boundaries (epoch-aligned, Monday weeks, calendar months) and which intervals can be
+ * rolled up from which: a roll-up is only allowed when base candles tile the derived one exactly.
+ */
+public class CandleClockTest {
+
+    private static long utc(String iso) {
+        return Instant.parse(iso).toEpochMilli();
+    }
+
+    @Test
+    public void weeksStartOnMondayUtc() {
+        // 2024-03-10 is a Sunday.
+        assertEquals(utc("2024-03-04T00:00:00Z"), CandleClock.bucketStartMs("1w", utc("2024-03-10T23:59:59.999Z")));
+        assertEquals(utc("2024-03-11T00:00:00Z"), CandleClock.bucketStartMs("1w", utc("2024-03-11T00:00:00Z")));
+        assertEquals(utc("2024-03-11T00:00:00Z"), CandleClock.nextBoundaryMs("1w", utc("2024-03-10T12:00:00Z")));
+        assertEquals(utc("2024-03-18T00:00:00Z"), CandleClock.nextBoundaryMs("1w", utc("2024-03-11T00:00:00Z")));
+        // Before the epoch's first Monday.
+        assertEquals(utc("1969-12-29T00:00:00Z"), CandleClock.bucketStartMs("1w", 0L));
+    }
+
+    @Test
+    public void monthsFollowTheCalendar() {
+        assertEquals(utc("2024-02-01T00:00:00Z"), CandleClock.bucketStartMs("1M", utc("2024-02-29T12:00:00Z")));
+        assertEquals(utc("2024-03-01T00:00:00Z"), CandleClock.nextBoundaryMs("1M", utc("2024-02-29T12:00:00Z")));
+        assertEquals(utc("2025-01-01T00:00:00Z"), CandleClock.nextBoundaryMs("1M", utc("2024-12-31T23:59:59.999Z")));
+        // A boundary instant belongs to the month it opens; the next boundary is strictly after it.
+        assertEquals(utc("2024-03-01T00:00:00Z"), CandleClock.bucketStartMs("1M", utc("2024-03-01T00:00:00Z")));
+        assertEquals(utc("2024-04-01T00:00:00Z"), CandleClock.nextBoundaryMs("1M", utc("2024-03-01T00:00:00Z")));
+    }
+
+    @Test
+    public void fixedIntervalsAlignToTheEpoch() {
+        long t = utc("2024-03-10T13:47:12.345Z");
+        assertEquals(utc("2024-03-10T13:45:00Z"), CandleClock.bucketStartMs("15m", t));
+        assertEquals(utc("2024-03-10T14:00:00Z"), CandleClock.nextBoundaryMs("15m", t));
+        assertEquals(utc("2024-03-10T12:00:00Z"), CandleClock.bucketStartMs("4h", t));
+        assertEquals(utc("2024-03-10T00:00:00Z"), CandleClock.bucketStartMs("1d", t));
+        assertEquals(-1L, CandleClock.intervalMs("1M"));
+        assertEquals(-1L, CandleClock.intervalMs("0m"));
+        assertEquals(-1L, CandleClock.bucketStartMs("x", t));
+    }
+
+    @Test
+    public void rollUpRequiresExactTiling() {
+        assertTrue(CandleClock.canRollUp("1m", "5m"));
+        assertTrue(CandleClock.canRollUp("1h", "4h"));
+        assertFalse(CandleClock.canRollUp("3m", "5m"));
+        assertFalse(CandleClock.canRollUp("5m", "5m"));
+        assertFalse(CandleClock.canRollUp("1h", "30m"));
+
+        // Weeks open on Monday, four days after the epoch: the base must divide that offset.
+        assertTrue(CandleClock.canRollUp("1d", "1w"));
+        assertTrue(CandleClock.canRollUp("4h", "1w"));
+        assertFalse(CandleClock.canRollUp("3d", "1w"));
+        assertTrue(CandleClock.canRollUp("1w", "2w"));
+
+        // Months start at midnight but vary in length: any base that divides a day works.
+        assertTrue(CandleClock.canRollUp("1d", "1M"));
+        assertTrue(CandleClock.canRollUp("12h", "1M"));
+        assertFalse(CandleClock.canRollUp("3d", "1M"));
+        assertFalse(CandleClock.canRollUp("1w", "1M"));
+        assertFalse(CandleClock.canRollUp("1M", "1M"));
+    }
+
+    @Test
+    public void exchangeSourceIsTheCoarsestTilingInterval() {
+        assertEquals("1w", CandleClock.exchangeSourceFor("2w", false));
+        assertEquals("1d", CandleClock.exchangeSourceFor("2d", false));
+        assertEquals("5m", CandleClock.exchangeSourceFor("10m", false));
+        assertEquals("1m", CandleClock.exchangeSourceFor("7m", true));
+        assertNull(CandleClock.exchangeSourceFor("7s", true));
+    }
+}
@@ -0,0 +1,46 @@
+package com.binance.pricemonitor;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ticker decode stage feeds price-alert evaluation, which must see every frame: a burst
+ * into a small ring with a slow consumer has to arrive complete and in order.
+ */
+public class PipelineStageTest {
+
+    private static final int CAPACITY = 16;
+    private static final int ITEMS = 2_000;
+
+    @Test
+    public void blockingStageNeverOpensAGapUnderBurst() throws Exception {
+        int[] seen = new int[ITEMS];
+        int[] count = {0};
+        CountDownLatch done = new CountDownLatch(1);
+        PipelineStage<Integer> stage = new PipelineStage<>("test", CAPACITY, PipelineStage.Overflow.BLOCK, (item, tag) -> {
+            // Slow enough that the producer overruns the ring many times over.
+            if (item % 50 == 0) {
+                try { Thread.sleep(1); } catch (InterruptedException ignored) {}
+            }
+            seen[count[0]++] = item;
+            if (count[0] == ITEMS) done.countDown();
+        });
+        stage.start();
+
+        int accepted = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            if (stage.offer(i, 0)) accepted++;
+        }
+        assertTrue("consumer did not finish", done.await(30, TimeUnit.SECONDS));
+        stage.stop();
+
+        assertEquals(ITEMS, accepted);
+        for (int i = 0; i < ITEMS; i++) {
+            assertEquals("gap or reorder at " + i, i, seen[i]);
+        }
+    }
+}
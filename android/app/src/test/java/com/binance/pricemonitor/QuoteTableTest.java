@@ -0,0 +1,120 @@
+package com.binance.pricemonitor;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ordering between live frames, REST seeds and restored rows, and torn-read freedom of the
+ * per-row seqlock while several writers claim the same row by CAS.
+ */
+public class QuoteTableTest {
+
+    @Test
+    public void seedNeverReplacesNewerLiveRow() {
+        QuoteTable t = new QuoteTable(4);
+        QuoteTable.Snapshot s = new QuoteTable.Snapshot();
+        assertTrue(t.write(0, 100.0, 1.0, 2_000L) > 0);
+        assertEquals(-1L, t.seed(0, 99.0, 0.5, 1_000L));
+        assertEquals(-1L, t.seed(0, 99.0, 0.5, 2_000L));
+        assertTrue(t.read(0, s));
+        assertEquals(100.0, s.price, 0.0);
+        assertTrue(t.seed(0, 101.0, 1.5, 3_000L) > 0);
+        assertTrue(t.read(0, s));
+        assertEquals(101.0, s.price, 0.0);
+    }
+
+    @Test
+    public void liveFrameOlderThanSeedIsDroppedUntilLiveCatchesUp() {
+        QuoteTable t = new QuoteTable(4);
+        QuoteTable.Snapshot s = new QuoteTable.Snapshot();
+        assertTrue(t.seed(1, 50.0, 0.0, 5_000L) > 0);
+        assertEquals(-1L, t.write(1, 49.0, 0.0, 4_999L));
+        long v = t.write(1, 51.0, 0.0, 5_000L);
+        assertTrue(v > 0);
+        // The row is live again, so live frames are no longer ordered against it.
+        assertTrue(t.write(1, 52.0, 0.0, 4_000L) > v);
+        assertTrue(t.read(1, s));
+        assertEquals(52.0, s.price, 0.0);
+    }
+
+    @Test
+    public void restoredRowIsStaleAndOnlyFillsEmptyRows() {
+        QuoteTable t = new QuoteTable(4);
+        QuoteTable.Snapshot s = new QuoteTable.Snapshot();
+        assertTrue(t.restore(2, 10.0, 0.0, 1_000L) > 0);
+        assertTrue(t.read(2, s));
+        assertTrue(s.stale);
+        assertEquals(-1L, t.restore(2, 11.0, 0.0, 2_000L));
+        // Restored rows are ordered like seeds: an older live frame doesn't replace them.
+        assertEquals(-1L, t.write(2, 12.0, 0.0, 500L));
+        assertTrue(t.write(2, 12.0, 0.0, 1_500L) > 0);
+        assertTrue(t.read(2, s));
+        assertFalse(s.stale);
+        assertEquals(-1L, t.restore(2, 13.0, 0.0, 3_000L));
+    }
+
+    @Test
+    public void outOfRangeIdsAreRejected() {
+        QuoteTable t = new QuoteTable(2);
+        assertEquals(-1L, t.write(-1, 1.0, 0.0, 1L));
+        assertEquals(-1L, t.write(2, 1.0, 0.0, 1L));
+        assertEquals(-1L, t.seed(2, 1.0, 0.0, 1L));
+        assertEquals(-1L, t.restore(2, 1.0, 0.0, 1L));
+        assertFalse(t.read(2, new QuoteTable.Snapshot()));
+    }
+
+    @Test
+    public void clearEmptiesRowsButKeepsVersionsGrowing() {
+        QuoteTable t = new QuoteTable(2);
+        long v = t.write(0, 1.0, 0.0, 1L);
+        t.clear();
+        assertFalse(t.read(0, new QuoteTable.Snapshot()));
+        assertTrue(t.write(0, 2.0, 0.0, 2L) > v);
+        assertTrue(t.currentVersion() > v);
+    }
+
+    @Test
+    public void readersNeverSeeTornRowsUnderConcurrentWriters() throws Exception {
+        QuoteTable t = new QuoteTable(1);
+        int writers = 3;
+        int writesEach = 200_000;
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<String> torn = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(writers);
+        // Every write keeps price == change == eventTime, so any mix of two writes is visible.
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            new Thread(() -> {
+                for (int i = 1; i <= writesEach; i++) {
+                    long x = (long) i * writers + writer;
+                    if (writer == 0) t.seed(0, x, x, x);
+                    else t.write(0, x, x, x);
+                }
+                finished.countDown();
+            }, "Writer-" + w).start();
+        }
+        Thread reader = new Thread(() -> {
+            QuoteTable.Snapshot s = new QuoteTable.Snapshot();
+            long lastVersion = 0L;
+            while (!done.get()) {
+                if (!t.read(0, s)) continue;
+                if (s.price != s.changePercent || (long) s.price != s.eventTimeMs) {
+                    torn.compareAndSet(null, s.price + "/" + s.changePercent + "/" + s.eventTimeMs);
+                }
+                if (s.version < lastVersion) torn.compareAndSet(null, "version went back " + lastVersion + " -> " + s.version);
+                lastVersion = s.version;
+            }
+        }, "Reader");
+        reader.start();
+        assertTrue("writers did not finish", finished.await(30, TimeUnit.SECONDS));
+        done.set(true);
+        reader.join(5_000);
+        assertNull(torn.get(), torn.get());
+    }
+}
@@ -0,0 +1,54 @@
+package com.binance.pricemonitor;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Dedup across raced legs: exact copies are dropped, distinct events that share an event time
+ * (a candle's final update and the next candle's first) both pass.
+ */
+public class StreamRaceTest {
+
+    private static String kline(long eventTime, long openTime, boolean closed, String close) {
+        return "{\"stream\":\"btcusdt@kline_1m\",\"data\":{\"e\":\"kline\",\"E\":" + eventTime
+                + ",\"s\":\"BTCUSDT\",\"k\":{\"t\":" + openTime + ",\"T\":" + (openTime + 59_999)
+                + ",\"i\":\"1m\",\"c\":\"" + close + "\",\"x\":" + closed + "}}}";
+    }
+
+    private static String aggTrade(long id, long eventTime) {
+        return "{\"stream\":\"btcusdt@aggTrade\",\"data\":{\"e\":\"aggTrade\",\"E\":" + eventTime
+                + ",\"a\":" + id + ",\"p\":\"100.0\"}}";
+    }
+
+    @Test
+    public void klineCloseAndNextOpenWithSameEventTimeBothPass() {
+        StreamRace.Dedup dedup = new StreamRace.Dedup();
+        String close = kline(1_700_000_060_000L, 1_700_000_000_000L, true, "101.0");
+        String next = kline(1_700_000_060_000L, 1_700_000_060_000L, false, "101.0");
+
+        assertTrue(dedup.firstCopy(close));
+        assertTrue("next candle's first update taken for a duplicate", dedup.firstCopy(next));
+        // The slower leg's copies of both arrive afterwards.
+        assertFalse(dedup.firstCopy(close));
+        assertFalse(dedup.firstCopy(next));
+    }
+
+    @Test
+    public void finalUpdateWithSameEventTimeAsLastOpenUpdatePasses() {
+        StreamRace.Dedup dedup = new StreamRace.Dedup();
+        long open = 1_700_000_000_000L;
+        assertTrue(dedup.firstCopy(kline(1_700_000_059_999L, open, false, "100.5")));
+        assertTrue(dedup.firstCopy(kline(1_700_000_059_999L, open, true, "100.5")));
+        assertFalse(dedup.firstCopy(kline(1_700_000_059_999L, open, false, "100.5")));
+    }
+
+    @Test
+    public void aggTradesAreOrderedByTradeId() {
+        StreamRace.Dedup dedup = new StreamRace.Dedup();
+        assertTrue(dedup.firstCopy(aggTrade(10, 1_000L)));
+        assertTrue(dedup.firstCopy(aggTrade(11, 1_000L)));
+        assertFalse(dedup.firstCopy(aggTrade(10, 1_000L)));
+        assertFalse(dedup.firstCopy(aggTrade(11, 1_000L)));
+    }
+}
@@ -0,0 +1,145 @@
+package com.binance.pricemonitor;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stress test: a local fake feed pushes a burst through a real socket into the conflator. The
+ * reader thread's per-message publish latency must stay flat: the same distribution whether the
+ * consumer is instant or deliberately slow, and no worse late in the burst than early. Every
+ * symbol's newest value must still arrive, and most intermediate values must be conflated away.
+ *
+ * Latencies are compared with each other rather than with fixed budgets, so a slow machine shifts
+ * every run alike. The floor keeps sub-microsecond noise from failing a ratio; it is a tenth of
+ * the consumer delay, far below what a publish that waited on the consumer would cost.
+ */
+public class TickerConflatorTest {
+
+    private static final int SYMBOLS = 50;
+    private static final int MESSAGES = 20_000;
+    private static final long SLOW_CONSUMER_MS = 2;
+    private static final long FLATNESS_FACTOR = 10;
+    private static final long FLOOR_NS = TimeUnit.MILLISECONDS.toNanos(SLOW_CONSUMER_MS) / 10;
+
+    @Test
+    public void readerLatencyStaysFlatWithSlowConsumer() throws Exception {
+        // Baseline with an instant consumer; also warms up the JIT for the measured run.
+        TickerConflator instant = new TickerConflator((symbolId, price, changePercent, eventTimeMs) -> {});
+        instant.start();
+        long[] baselineNs = new long[MESSAGES];
+        burst(instant, baselineNs, new double[SYMBOLS]);
+        instant.stop();
+
+        Map<Integer, Double> delivered = new ConcurrentHashMap<>();
+        AtomicInteger deliveries = new AtomicInteger();
+        TickerConflator conflator = new TickerConflator((symbolId, price, changePercent, eventTimeMs) -> {
+            delivered.put(symbolId, price);
+            deliveries.incrementAndGet();
+            try { Thread.sleep(SLOW_CONSUMER_MS); } catch (InterruptedException ignored) {}
+        });
+        conflator.start();
+        long[] latencyNs = new long[MESSAGES];
+        double[] lastPrice = new double[SYMBOLS];
+        burst(conflator, latencyNs, lastPrice);
+
+        long p99Baseline = percentile(baselineNs, 0.99);
+        long p99Slow = percentile(latencyNs, 0.99);
+        assertTrue("p99 with slow consumer " + p99Slow + "ns vs instant " + p99Baseline + "ns",
+                p99Slow <= Math.max(FLATNESS_FACTOR * p99Baseline, FLOOR_NS));
+        long p99First = percentile(Arrays.copyOfRange(latencyNs, 0, MESSAGES / 2), 0.99);
+        long p99Second = percentile(Arrays.copyOfRange(latencyNs, MESSAGES / 2, MESSAGES), 0.99);
+        assertTrue("p99 grew over the burst: " + p99First + "ns -> " + p99Second + "ns",
+                p99Second <= Math.max(FLATNESS_FACTOR * p99First, FLOOR_NS));
+
+        // Consumers eventually see the newest value of every symbol.
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline && !allDelivered(delivered, lastPrice)) {
+            Thread.sleep(20);
+        }
+        conflator.stop();
+        assertTrue("latest values not delivered", allDelivered(delivered, lastPrice));
+        assertTrue("expected conflation, got " + deliveries.get() + " deliveries", deliveries.get() < MESSAGES / 4);
+    }
+
+    // Feeds MESSAGES frames over a loopback socket; records each publish's latency and the last price per symbol.
+    private static void burst(TickerConflator conflator, long[] latencyNs, double[] lastPrice) throws Exception {
+        CountDownLatch readerDone = new CountDownLatch(1);
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread feed = new Thread(() -> {
+                try (Socket s = server.accept(); OutputStream out = s.getOutputStream()) {
+                    StringBuilder sb = new StringBuilder();
+                    for (int i = 0; i < MESSAGES; i++) {
+                        // Half the traffic is a burst on one symbol, the rest round-robins.
+                        int sym = (i % 2 == 0) ? 0 : ((i / 2) % SYMBOLS);
+                        sb.append("SYM").append(sym).append(',').append(100.0 + i).append(",1.5\n");
+                        if (sb.length() > 8192) {
+                            out.write(sb.toString().getBytes(StandardCharsets.US_ASCII));
+                            sb.setLength(0);
+                        }
+                    }
+                    out.write(sb.toString().getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }, "FakeFeed");
+            feed.start();
+
+            Thread reader = new Thread(() -> {
+                try (Socket s = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+                     BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII))) {
+                    String line;
+                    int n = 0;
+                    while ((line = in.readLine()) != null && n < MESSAGES) {
+                        String[] parts = line.split(",");
+                        int sym = Integer.parseInt(parts[0].substring(3));
+                        double price = Double.parseDouble(parts[1]);
+                        double change = Double.parseDouble(parts[2]);
+                        long t0 = System.nanoTime();
+                        conflator.publish(sym, price, change, System.currentTimeMillis());
+                        latencyNs[n++] = System.nanoTime() - t0;
+                        lastPrice[sym] = price;
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    readerDone.countDown();
+                }
+            }, "SocketReader");
+            reader.start();
+
+            assertTrue("reader did not finish", readerDone.await(30, TimeUnit.SECONDS));
+            feed.join(5000);
+        }
+    }
+
+    private static boolean allDelivered(Map<Integer, Double> delivered, double[] lastPrice) {
+        for (int i = 0; i < lastPrice.length; i++) {
+            Double v = delivered.get(i);
+            if (v == null || v != lastPrice[i]) return false;
+        }
+        return true;
+    }
+
+    private static long percentile(long[] values, double p) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int idx = (int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)));
+        return sorted[idx];
+    }
+}
@@ -0,0 +1,129 @@
+package com.binance.pricemonitor;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Wheel behaviour on a fake clock, with the production geometry (512 buckets of 50ms): deadlines
+ * beyond one turn wait for their round, stalls fire everything due exactly once, and stale
+ * handles never touch a reused slot.
+ */
+public class TimerWheelTest {
+
+    private static final int BUCKETS = 512;
+    private static final long TICK_MS = 50L;
+    private static final long TURN_MS = BUCKETS * TICK_MS;
+
+    private long now = 1_000L;
+    private final List<Object> fired = new ArrayList<>();
+    private final TimerWheel.Expiry record = (payload, handle) -> fired.add(payload);
+
+    private TimerWheel wheel() {
+        return new TimerWheel(BUCKETS, TICK_MS, 4, () -> now);
+    }
+
+    @Test
+    public void firesAtDeadlineNotBefore() {
+        TimerWheel w = wheel();
+        long h = w.schedule(120L, "a");
+        now += 100L;
+        w.advance(record);
+        assertTrue(fired.isEmpty());
+        assertTrue(w.isPending(h));
+        now += 50L;
+        w.advance(record);
+        assertEquals(Arrays.asList("a"), fired);
+        assertFalse(w.isPending(h));
+        assertEquals(0, w.size());
+    }
+
+    @Test
+    public void deadlineBeyondOneTurnWaitsForItsRound() {
+        TimerWheel w = wheel();
+        w.schedule(TURN_MS + 1_000L, "late");
+        w.schedule(1_000L, "early"); // same bucket as "late", one turn sooner
+        for (long t = 0; t < TURN_MS; t += TICK_MS) {
+            now += TICK_MS;
+            w.advance(record);
+        }
+        assertEquals(Arrays.asList("early"), fired);
+        now += 1_000L;
+        w.advance(record);
+        assertEquals(Arrays.asList("early", "late"), fired);
+    }
+
+    @Test
+    public void longStallFiresEverythingDueOnce() {
+        TimerWheel w = wheel();
+        for (int i = 0; i < 100; i++) w.schedule(i * 700L, i);
+        w.schedule(10 * TURN_MS, "future");
+        now += 3 * TURN_MS;
+        w.advance(record);
+        assertEquals(100, fired.size());
+        assertEquals(1, w.size());
+        now += 10 * TURN_MS;
+        w.advance(record);
+        assertEquals(101, fired.size());
+        assertEquals("future", fired.get(100));
+    }
+
+    @Test
+    public void staleHandleNeverCancelsReusedSlot() {
+        TimerWheel w = wheel();
+        long first = w.schedule(100L, "first");
+        w.cancel(first);
+        assertFalse(w.isPending(first));
+        long second = w.schedule(100L, "second");
+        assertEquals("slot should be reused", (int) first, (int) second);
+        assertNotEquals(first, second);
+
+        w.cancel(first);
+        assertFalse(w.isPending(first));
+        assertTrue(w.isPending(second));
+        now += 100L;
+        w.advance(record);
+        assertEquals(Arrays.asList("second"), fired);
+        w.cancel(second); // after firing: no effect
+        w.cancel(TimerWheel.NONE);
+        assertEquals(0, w.size());
+    }
+
+    @Test
+    public void callbackMayCancelAndReschedule() {
+        TimerWheel w = wheel();
+        long[] victim = new long[1];
+        w.schedule(100L, "canceller");
+        victim[0] = w.schedule(100L, "victim");
+        TimerWheel.Expiry expiry = (payload, handle) -> {
+            fired.add(payload);
+            if ("canceller".equals(payload)) {
+                w.cancel(victim[0]);
+                w.schedule(200L, "rescheduled");
+            }
+        };
+        now += 100L;
+        w.advance(expiry);
+        // Either order is allowed within a bucket, but a cancelled timer must not fire afterwards.
+        assertTrue(fired.contains("canceller"));
+        if (fired.indexOf("victim") > fired.indexOf("canceller")) fail("cancelled timer fired");
+        now += 200L;
+        w.advance(expiry);
+        assertEquals("rescheduled", fired.get(fired.size() - 1));
+        assertEquals(0, w.size());
+    }
+
+    @Test
+    public void poolGrowsPastInitialCapacity() {
+        TimerWheel w = wheel();
+        for (int i = 0; i < 1_000; i++) w.schedule(50L + i, i);
+        assertEquals(1_000, w.size());
+        now += 2_000L;
+        w.advance(record);
+        assertEquals(1_000, fired.size());
+    }
+}
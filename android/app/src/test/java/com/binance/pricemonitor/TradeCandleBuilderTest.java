@@ -0,0 +1,137 @@
+package com.binance.pricemonitor;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trade-built candles: gaps between trades and quiet periods closed by the timer both emit flat
+ * candles at the last close, one per empty bucket, and late trades never reopen a closed bucket.
+ * The exchange clock is driven through trade timestamps, which set the shared skew.
+ */
+public class TradeCandleBuilderTest {
+
+    private static final long LEN = 5_000L;
+    private static final long T0 = 1_700_000_000_000L; // a multiple of LEN
+
+    private static final class Candle {
+        final int seriesId;
+        final double close;
+        final boolean closed;
+        final long openTime;
+
+        Candle(int seriesId, double close, boolean closed, long openTime) {
+            this.seriesId = seriesId;
+            this.close = close;
+            this.closed = closed;
+            this.openTime = openTime;
+        }
+    }
+
+    private final List<Candle> candles = new ArrayList<>();
+    private final List<Object> armed = new ArrayList<>();
+    private long nextHandle = 1L;
+
+    private TradeCandleBuilder builder(int series) {
+        TradeCandleBuilder b = new TradeCandleBuilder(series,
+                (seriesId, close, isClosed, openTime) -> candles.add(new Candle(seriesId, close, isClosed, openTime)),
+                new TradeCandleBuilder.Timers() {
+                    @Override
+                    public long schedule(int seriesId, long delayMs, Object payload) {
+                        armed.add(payload);
+                        return nextHandle++;
+                    }
+
+                    @Override
+                    public void cancel(int seriesId, long handle) {}
+                });
+        for (int i = 0; i < series; i++) b.add(i, LEN);
+        return b;
+    }
+
+    private List<Candle> closed(int seriesId) {
+        List<Candle> out = new ArrayList<>();
+        for (Candle c : candles) if (c.seriesId == seriesId && c.closed) out.add(c);
+        return out;
+    }
+
+    @Test
+    public void tradeAfterAGapFlatFillsEmptyBuckets() {
+        TradeCandleBuilder b = builder(1);
+        b.onTrade(0, 100.0, T0 + 10);
+        b.onTrade(0, 101.0, T0 + 4_000);
+        b.onTrade(0, 105.0, T0 + 3 * LEN + 1);
+
+        List<Candle> closed = closed(0);
+        assertEquals(3, closed.size());
+        assertEquals(T0, closed.get(0).openTime);
+        assertEquals(101.0, closed.get(0).close, 0.0);
+        // Nobody traded in these two: flat at the last close, like the exchange.
+        assertEquals(T0 + LEN, closed.get(1).openTime);
+        assertEquals(101.0, closed.get(1).close, 0.0);
+        assertEquals(T0 + 2 * LEN, closed.get(2).openTime);
+        assertEquals(101.0, closed.get(2).close, 0.0);
+
+        Candle last = candles.get(candles.size() - 1);
+        assertFalse(last.closed);
+        assertEquals(T0 + 3 * LEN, last.openTime);
+        assertEquals(105.0, last.close, 0.0);
+    }
+
+    @Test
+    public void lateTradeNeverReopensAClosedBucket() {
+        TradeCandleBuilder b = builder(1);
+        b.onTrade(0, 100.0, T0 + 10);
+        b.onTrade(0, 102.0, T0 + LEN + 10);
+        int before = candles.size();
+        b.onTrade(0, 99.0, T0 + LEN - 1);
+        assertEquals(before, candles.size());
+        assertEquals(1, closed(0).size());
+        assertEquals(100.0, closed(0).get(0).close, 0.0);
+    }
+
+    @Test
+    public void timerClosesQuietBucketsWithFlatCandles() {
+        TradeCandleBuilder b = builder(2);
+        b.onTrade(0, 100.0, T0 + 10);
+        TradeCandleBuilder.BucketTimer timer = (TradeCandleBuilder.BucketTimer) armed.get(armed.size() - 1);
+        assertEquals(0, timer.seriesId);
+
+        // Another series' trade moves the exchange clock 2.5 buckets on; series 0 stays quiet.
+        b.onTrade(1, 7.0, T0 + 2 * LEN + LEN / 2);
+        b.onTimer(timer);
+
+        List<Candle> closed = closed(0);
+        assertEquals(2, closed.size());
+        assertEquals(T0, closed.get(0).openTime);
+        assertEquals(T0 + LEN, closed.get(1).openTime);
+        assertEquals(100.0, closed.get(1).close, 0.0);
+        Candle last = candles.get(candles.size() - 1);
+        assertEquals(0, last.seriesId);
+        assertFalse(last.closed);
+        assertEquals(T0 + 2 * LEN, last.openTime);
+        // Re-armed for the new bucket.
+        assertSame(timer, armed.get(armed.size() - 1));
+    }
+
+    @Test
+    public void timerBeforeTheBoundaryEmitsNothing() {
+        TradeCandleBuilder b = builder(1);
+        b.onTrade(0, 100.0, T0 + 10);
+        int before = candles.size();
+        b.onTimer((TradeCandleBuilder.BucketTimer) armed.get(armed.size() - 1));
+        assertEquals(before, candles.size());
+    }
+
+    @Test
+    public void flatFillIsCappedAfterALongOutage() {
+        TradeCandleBuilder b = builder(1);
+        b.onTrade(0, 100.0, T0);
+        b.onTrade(0, 100.0, T0 + 1_000 * LEN);
+        assertEquals(100, closed(0).size());
+        assertEquals(T0 + 1_000 * LEN, candles.get(candles.size() - 1).openTime);
+    }
+}
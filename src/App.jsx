@@ -213,6 +213,7 @@ function HomePage() {
       opacity: currentConfig.opacity,
       showSymbol: currentConfig.showSymbol,
       itemsPerPage: currentConfig.itemsPerPage,
+      standbyFailover: currentConfig.standbyFailover,
       marketProvider
     }).catch(console.error);
   }, [floatingActive, symbols, marketProvider]);
@@ -298,6 +299,7 @@ function HomePage() {
         opacity: currentConfig.opacity,
         showSymbol: currentConfig.showSymbol,
         itemsPerPage: currentConfig.itemsPerPage,
+        standbyFailover: currentConfig.standbyFailover,
         marketProvider
       });
     } catch (e) {
@@ -328,6 +330,7 @@ function HomePage() {
           opacity: newConfig.opacity,
           showSymbol: newConfig.showSymbol,
           itemsPerPage: newConfig.itemsPerPage,
+          standbyFailover: newConfig.standbyFailover,
           marketProvider
         });
       } catch (e) {
@@ -826,6 +829,16 @@ function HomePage() {
               <label>每页显示数量: {config.itemsPerPage}</label>
               <input type="range" min="1" max="5" value={config.itemsPerPage} onChange={e => updateConfig('itemsPerPage', parseInt(e.target.value))} />
             </div>
+            {Capacitor.isNativePlatform() && (
+              <div className="settings-group">
+                <label>备用数据源自动切换
+                  <input type="checkbox" checked={!!config.standbyFailover} onChange={e => updateConfig('standbyFailover', e.target.checked)} />
+                </label>
+                <div style={{ marginTop: 6, fontSize: 12, color: '#888' }}>
+                  主数据源行情中断时临时切换到另一家交易所，恢复后自动切回。
+                </div>
+              </div>
+            )}
             <div className="modal-actions">
               <button className="btn btn-primary" onClick={() => setShowFloatingSettings(false)}>完成</button>
               {DIAG_ENABLED && Capacitor.isNativePlatform() && (
@@ -857,6 +870,7 @@ const ChartPageWrapper = () => {
 function DiagnosticsPage() {
   const [nativeText, setNativeText] = useState('');
   const [jsText, setJsText] = useState('');
+  const [pipelineText, setPipelineText] = useState('');
 
   const copyText = async (text) => {
     const v = text || '';
@@ -920,6 +934,12 @@ function DiagnosticsPage() {
     } catch (e) {
       setNativeText(String(e?.message || e));
     }
+    try {
+      const res = await Diagnostics.getPipelineStats();
+      setPipelineText(res?.running ? (res.text || '') : '(服务未运行)');
+    } catch (e) {
+      setPipelineText(String(e?.message || e));
+    }
     try {
       const raw = localStorage.getItem('amaze_diag_js');
       const list = raw ? JSON.parse(raw) : [];
@@ -959,6 +979,11 @@ function DiagnosticsPage() {
         value={jsText}
         onCopy={async () => { await copyText(jsText); }}
       />
+      <LogBox
+        title="Native 流水线统计（各阶段队列深度 / 等待 / 处理耗时）"
+        value={pipelineText}
+        onCopy={async () => { await copyText(pipelineText); }}
+      />
     </div>
   );
 }
@@ -4,6 +4,23 @@ import FloatingWidget from '../plugins/FloatingWidget';
 import { Capacitor } from '@capacitor/core';
 import './AlertConfigModal.css';
 
+// Second and 3h candles are built from the trade stream by the Android service.
+const NATIVE_CANDLES = Capacitor.isNativePlatform() && Capacitor.getPlatform() === 'android';
+const KLINE_INTERVAL_OPTIONS = [
+    ...(NATIVE_CANDLES ? [
+        { value: '5s', label: '5秒' },
+        { value: '15s', label: '15秒' },
+        { value: '30s', label: '30秒' }
+    ] : []),
+    { value: '1m', label: '1分钟' },
+    { value: '5m', label: '5分钟' },
+    { value: '15m', label: '15分钟' },
+    { value: '1h', label: '1小时' },
+    ...(NATIVE_CANDLES ? [{ value: '3h', label: '3小时' }] : []),
+    { value: '4h', label: '4小时' },
+    { value: '1d', label: '1天' }
+];
+
 const CustomSelect = ({ value, onChange, options, placeholder = '请选择', style = {} }) => {
     const [isOpen, setIsOpen] = useState(false);
     const selectedOpt = options.find(o => String(o.value) === String(value));
@@ -675,14 +692,7 @@ export default function AlertConfigModal({ symbol, currentPrice, onClose }) {
                                             <CustomSelect
                                                 value={interval}
                                                 onChange={setInterval}
-                                                options={[
-                                                    { value: '1m', label: '1分钟' },
-                                                    { value: '5m', label: '5分钟' },
-                                                    { value: '15m', label: '15分钟' },
-                                                    { value: '1h', label: '1小时' },
-                                                    { value: '4h', label: '4小时' },
-                                                    { value: '1d', label: '1天' }
-                                                ]}
+                                                options={KLINE_INTERVAL_OPTIONS}
                                             />
                                         </div>
                                     </>
@@ -750,14 +760,7 @@ export default function AlertConfigModal({ symbol, currentPrice, onClose }) {
                                         <CustomSelect
                                             value={interval}
                                             onChange={setInterval}
-                                            options={[
-                                                { value: '1m', label: '1分钟' },
-                                                { value: '5m', label: '5分钟' },
-                                                { value: '15m', label: '15分钟' },
-                                                { value: '1h', label: '1小时' },
-                                                { value: '4h', label: '4小时' },
-                                                { value: '1d', label: '1天' }
-                                            ]}
+                                            options={KLINE_INTERVAL_OPTIONS}
                                         />
                                     </div>
                                 )}
@@ -157,7 +157,10 @@ export default function ChartPage() {
     // Ensure we start with all symbols
     const [allSymbols] = useState(() => getSymbols());
     const [marketProvider] = useState(() => getMarketDataProvider());
-    const liveTickers = useMarketTickers(marketProvider, allSymbols);
+    // Tickers are only rendered in the symbol menu; keep the native bridge quiet otherwise.
+    const liveTickers = useMarketTickers(marketProvider, allSymbols, {
+        visibleSymbols: showSymbolMenu ? allSymbols : []
+    });
 
 
     // Enhanced Indicator State
@@ -16,14 +16,18 @@ const DIAG_ENABLED = 1;
 const TICKERS_CACHE_KEY = 'binance_tickers_cache_v1';
 const DEV_REST_SPOT_BASE = '/binance-api/api/v3';
 const DEV_REST_FUTURES_BASE = '/binance-fapi/fapi/v1';
+// Native side aggregates ticks and emits one `tickerBatch` event per interval.
+const NATIVE_TICKER_BATCH_INTERVAL_MS = 200;
 
 /**
  * Hook to get real-time ticker data.
  * Supports both Spot (BTCUSDT) and Perpetual Futures (BTCUSDT.P)
  * On Android: receives data from native Service (must call FloatingWidget.startData first)
  * On Web: uses WebSocket directly
+ * options.visibleSymbols: subset the UI actually renders (defaults to all symbols); on Android the
+ * native bridge only forwards these, and nothing while the page is hidden.
  */
-export const useBinanceTickers = (symbols = []) => {
+export const useBinanceTickers = (symbols = [], options = {}) => {
     const [tickers, setTickers] = useState(() => {
         try {
             const raw = localStorage.getItem(TICKERS_CACHE_KEY);
@@ -33,7 +37,7 @@ export const useBinanceTickers = (symbols = []) => {
             return {};
         }
     });
-    const bufferRef = useRef({}); // Store latest data per symbol { symbol: { price, ... } }
+    const bufferRef = useRef({}); // Store latest data per symbol { symbol: { price, ... } } (web mode)
     const wsSpotRef = useRef(null);
     const wsFuturesRef = useRef(null);
     const watchdogIntervalRef = useRef(null);
@@ -43,6 +47,15 @@ export const useBinanceTickers = (symbols = []) => {
     const perfLoggedRef = useRef(false);
     const resumeHeartbeatRef = useRef(null);
     const lastPersistAtRef = useRef(0);
+    // Pull watermark: only advanced by getQuotes (which is never scoped), so symbols that changed
+    // while hidden from the bridge are still included in the next delta.
+    const quoteVersionRef = useRef(0);
+    // Service instance the watermark belongs to; a different epoch makes the service send everything.
+    const quoteEpochRef = useRef('0');
+    const visibleSymbols = options.visibleSymbols || symbols;
+    const visibleKey = visibleSymbols.filter(Boolean).join(',');
+    const visibleSymbolsRef = useRef(visibleSymbols);
+    visibleSymbolsRef.current = visibleSymbols;
 
     const spotSymbolsRef = useRef([]);
     const futuresSymbolsRef = useRef([]);
@@ -70,30 +83,68 @@ export const useBinanceTickers = (symbols = []) => {
     const isPerpetual = (symbol) => symbol.endsWith('.P');
     const getBaseSymbol = (symbol) => isPerpetual(symbol) ? symbol.slice(0, -2) : symbol;
 
+    // Merge a set of updates into state (and occasionally persist the cache).
+    const commitUpdates = (updates) => {
+        setTickers(prev => {
+            const next = { ...prev, ...updates };
+            const now = Date.now();
+            if (now - lastPersistAtRef.current > 5000) {
+                lastPersistAtRef.current = now;
+                try {
+                    localStorage.setItem(TICKERS_CACHE_KEY, JSON.stringify(next));
+                } catch { }
+            }
+            return next;
+        });
+    };
+
+    const publishNativeVisibility = (background) => {
+        const payload = background ? { symbols: [], background: true } : { symbols: visibleSymbolsRef.current.filter(Boolean) };
+        FloatingWidget.setVisibleSymbols(payload).catch(() => { });
+    };
+
+    // Native catch-up: pull only quotes that changed since the last version we saw, in one round trip.
+    const catchUpNativeQuotes = async () => {
+        try {
+            FloatingWidget.requestTickerUpdate({ replay: false }).catch(() => { });
+            const res = await FloatingWidget.getQuotes({ sinceVersion: quoteVersionRef.current, epoch: quoteEpochRef.current });
+            const quotes = res?.quotes || [];
+            if (typeof res?.version === 'number') quoteVersionRef.current = res.version;
+            if (typeof res?.epoch === 'string') quoteEpochRef.current = res.epoch;
+            if (quotes.length === 0) return;
+            const updates = {};
+            for (const q of quotes) {
+                updates[q.symbol] = {
+                    price: q.price,
+                    change: 0,
+                    changePercent: q.changePercent,
+                    version: q.version,
+                    updatedAt: q.updatedAt,
+                    // Last run's value restored by the service; cleared by the next live tick.
+                    stale: !!q.stale
+                };
+            }
+            commitUpdates(updates);
+        } catch (e) {
+            perfLog('[perf] getQuotes failed', e?.message || e);
+        }
+    };
+
     // ===== UI UPDATE LOOP (Throttling) =====
-    // Decouples high-frequency data (WS/Native) from React Rendering
+    // Decouples high-frequency WS data from React Rendering (native data already arrives batched)
     useEffect(() => {
         let timer = null;
 
         const flushUpdates = () => {
             if (Object.keys(bufferRef.current).length > 0) {
-                setTickers(prev => {
-                    // Merge buffer into previous state
-                    const next = { ...prev, ...bufferRef.current };
-                    bufferRef.current = {}; // Clear buffer
-                    const now = Date.now();
-                    if (now - lastPersistAtRef.current > 5000) {
-                        lastPersistAtRef.current = now;
-                        try {
-                            localStorage.setItem(TICKERS_CACHE_KEY, JSON.stringify(next));
-                        } catch { }
-                    }
-                    return next;
-                });
+                const updates = bufferRef.current;
+                bufferRef.current = {}; // Clear buffer
+                commitUpdates(updates);
             }
         };
 
         const startLoop = () => {
+            if (isNative) return;
             if (timer) clearInterval(timer);
             // Flush every 200ms (5 FPS update rate for table is sufficient, 60FPS is waste for just numbers)
             timer = setInterval(flushUpdates, 200);
@@ -115,12 +166,16 @@ export const useBinanceTickers = (symbols = []) => {
             if (document.hidden) {
                 perfLog('[perf] visibilitychange hidden at', Date.now());
                 stopLoop();
+                if (isNative) publishNativeVisibility(true);
             } else {
                 perfLog('[perf] visibilitychange visible at', Date.now(), 'isNative=', isNative);
                 startLoop();
                 if (DIAG_ENABLED) requestAnimationFrame(() => perfLog('[perf] visibilitychange visible rAF at', Date.now()));
                 // On resume, if native, request fresh data
-                if (isNative) requestAnimationFrame(() => FloatingWidget.requestTickerUpdate());
+                if (isNative) {
+                    publishNativeVisibility(false);
+                    requestAnimationFrame(() => catchUpNativeQuotes());
+                }
             }
         };
 
@@ -138,31 +193,43 @@ export const useBinanceTickers = (symbols = []) => {
 
         perfLog('[perf] useBinanceTickers native listener setup at', Date.now(), 'symbols=', symbols);
 
-        listenerRef.current = FloatingWidget.addListener('tickerUpdate', (data) => {
-            const { symbol, price, changePercent } = data;
+        FloatingWidget.setTickerBatchInterval({ intervalMs: NATIVE_TICKER_BATCH_INTERVAL_MS }).catch(() => { });
 
-            // Update Buffer ONLY
-            bufferRef.current[symbol] = {
-                price: price,
-                change: 0,
-                changePercent: changePercent
-            };
+        // One event per native batch interval: { ticks: [[symbol, price, changePercent, version], ...] }
+        listenerRef.current = FloatingWidget.addListener('tickerBatch', (data) => {
+            const ticks = data?.ticks;
+            if (!Array.isArray(ticks) || ticks.length === 0) return;
+            const updates = {};
+            for (const [symbol, price, changePercent, version] of ticks) {
+                updates[symbol] = {
+                    price: price,
+                    change: 0,
+                    changePercent: changePercent,
+                    version: version
+                };
+            }
+            commitUpdates(updates);
         });
 
-        // Request update after first paint to reduce startup jank.
-        const t = setTimeout(() => {
-            perfLog('[perf] useBinanceTickers requestTickerUpdate at', Date.now());
-            FloatingWidget.requestTickerUpdate();
-        }, 0);
+        // Initial catch-up happens in the visibility-scope effect below (publish scope, then getQuotes).
 
         return () => {
-            clearTimeout(t);
             if (listenerRef.current) {
                 listenerRef.current.remove();
             }
         };
     }, [isNative]);
 
+    // Scope native forwarding to what this page renders; catch up on symbols that just became visible.
+    useEffect(() => {
+        if (!isNative) return;
+        if (document.hidden) return;
+        perfLog('[perf] useBinanceTickers visible scope', visibleKey, 'at', Date.now());
+        publishNativeVisibility(false);
+        catchUpNativeQuotes();
+        // eslint-disable-next-line react-hooks/exhaustive-deps
+    }, [isNative, visibleKey]);
+
     // ===== WEB MODE =====
     const scheduleSpotReconnect = (reason) => {
         if (spotReconnectTimerRef.current) clearTimeout(spotReconnectTimerRef.current);
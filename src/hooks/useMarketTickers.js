@@ -16,15 +16,16 @@ const toHyperliquidMarketName = (symbol) => {
 /**
  * Unified tickers hook.
  * Returns a map keyed by the *input symbols* shape: { [symbol]: { price, change, changePercent } }
+ * options.visibleSymbols: symbols currently rendered (limits native bridge traffic on Android).
  */
-export const useMarketTickers = (provider, symbols = []) => {
+export const useMarketTickers = (provider, symbols = [], options = {}) => {
     const safeProvider = provider === 'hyperliquid' ? 'hyperliquid' : 'binance';
     const key = useMemo(() => symbols.filter(Boolean).join(','), [symbols]);
 
     // On Android, tickers come from the native `FloatingWindowService` via plugin events.
     // The native layer now supports multiple providers, so always consume the same event stream here.
     const isAndroidNative = Capacitor.isNativePlatform() && Capacitor.getPlatform() === 'android';
-    const binanceTickers = useBinanceTickers(isAndroidNative || safeProvider === 'binance' ? symbols : []);
+    const binanceTickers = useBinanceTickers(isAndroidNative || safeProvider === 'binance' ? symbols : [], options);
 
     const hyperMarkets = useMemo(() => {
         if (safeProvider !== 'hyperliquid') return [];
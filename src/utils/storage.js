@@ -63,7 +63,8 @@ const DEFAULT_CONFIG = {
     showSymbol: false,
     fontSize: 10,
     opacity: 0.5,
-    itemsPerPage: 1
+    itemsPerPage: 1,
+    standbyFailover: false // Android: keep the other exchange warm and switch to it if the feed stalls
 };
 
 export const getFloatingConfig = () => {